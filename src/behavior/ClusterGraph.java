@@ -0,0 +1,500 @@
+package behavior;
+
+import datastructures.Edge;
+import datastructures.Graph;
+import datastructures.Vertex;
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import model.CellGrid;
+
+/**
+ * The abstract graph for hierarchical pathfinding (HPA*), see Pathfinder.Strategy.HIERARCHICAL.
+ * The grid is cut into square clusters. Wherever two neighboring clusters have open terrain (see
+ * CellGrid.isOpenTerrain) on both sides of their border, an entrance is placed: a vertex on each side,
+ * joined by edges of weight 1. Within a cluster, every pair of vertices that can reach each other is
+ * joined by an edge weighted with the number of steps between them, moving in 8 directions without
+ * leaving the cluster. A long search then runs over a few hundred vertices instead of a whole lake's
+ * worth of cells.
+ * Only mountains and water are taken into account: critters and food move around too often, so they
+ * are left to the cell-level search that refines the start of the path.
+ * When the terrain of a cluster changes, the entrances on its borders and the edges inside it and its
+ * neighbors are rebuilt, and nothing else. Vertices are renumbered after every rebuild.
+ * Searches may run on several threads at once. The graph only rebuilds itself before a search, when
+ * the terrain changed since the last rebuild, which only happens between parallel phases.
+ */
+public class ClusterGraph implements Graph<ClusterGraph.Node> {
+    /**
+     * The default side length of a cluster in cells
+     */
+    public static final int DEFAULT_CLUSTER_SIZE = 16;
+
+    /**
+     * Runs of open border cells at least this long get an entrance at each end instead of one in the
+     * middle
+     */
+    private static final int LONG_ENTRANCE = 6;
+
+    /**
+     * Offsets of the eight neighbors of a cell
+     */
+    private static final int[] DX = {0, 0, 1, -1, 1, 1, -1, -1};
+    private static final int[] DY = {-1, 1, 0, 0, 1, -1, 1, -1};
+
+    /**
+     * A vertex of the graph: one side of an entrance
+     */
+    public static final class Node implements Vertex<Link> {
+        private int id;
+        private final int x;
+        private final int y;
+        private final int cluster;
+        private final List<Link> edges = new ArrayList<>();
+
+        Node(int x, int y, int cluster) {
+            this.x = x;
+            this.y = y;
+            this.cluster = cluster;
+        }
+
+        @Override
+        public int getId() { return id; }
+
+        @Override
+        public Iterable<Link> outgoingEdges() { return edges; }
+
+        /**
+         * getters for the cell this vertex stands on and the cluster it belongs to
+         */
+        public int x() { return x; }
+        public int y() { return y; }
+        public int cluster() { return cluster; }
+    }
+
+    /**
+     * An edge of the graph, either across a border or within a cluster
+     */
+    public static final class Link implements Edge {
+        private final Node start;
+        private final Node end;
+        private final double weight;
+
+        Link(Node start, Node end, double weight) {
+            this.start = start;
+            this.end = end;
+            this.weight = weight;
+        }
+
+        @Override
+        public int startId() { return start.id; }
+
+        @Override
+        public int endId() { return end.id; }
+
+        @Override
+        public double weight() { return weight; }
+
+        /**
+         * Returns the vertex this edge leads to
+         */
+        Node end() { return end; }
+    }
+
+    private final CellGrid grid;
+    private final int clusterSize;
+    private final int clusterColumns;
+    private final int clusterRows;
+
+    /**
+     * The vertices of each cluster
+     */
+    private final List<List<Node>> clusterNodes;
+
+    /**
+     * The vertices placed on each border: index 2 * c for the border between cluster c and the one to
+     * its right, 2 * c + 1 for the one below
+     */
+    private final List<List<Node>> borderNodes;
+
+    /**
+     * For each cluster, the sum of its regions' terrain versions when it was last built
+     */
+    private final long[] clusterStamps;
+
+    /**
+     * All vertices, indexed by id
+     */
+    private final List<Node> vertices = new ArrayList<>();
+
+    /**
+     * The grid's terrain version when the graph was last brought up to date, -1 before the first build
+     */
+    private volatile int builtVersion = -1;
+
+    /**
+     * Constructs the graph of "grid" with clusters of DEFAULT_CLUSTER_SIZE cells a side
+     */
+    public ClusterGraph(CellGrid grid) {
+        this(grid, DEFAULT_CLUSTER_SIZE);
+    }
+
+    /**
+     * Constructs the graph of "grid" with clusters of "clusterSize" cells a side, which must be a
+     * positive multiple of CellGrid.REGION_SIZE. The graph is built on first use
+     */
+    public ClusterGraph(CellGrid grid, int clusterSize) {
+        if (clusterSize <= 0 || clusterSize % CellGrid.REGION_SIZE != 0) {
+            throw new IllegalArgumentException("Cluster size must be a positive multiple of "
+                    + CellGrid.REGION_SIZE + ", got " + clusterSize);
+        }
+        this.grid = grid;
+        this.clusterSize = clusterSize;
+        this.clusterColumns = (grid.width() + clusterSize - 1) / clusterSize;
+        this.clusterRows = (grid.height() + clusterSize - 1) / clusterSize;
+        int clusters = clusterColumns * clusterRows;
+        this.clusterNodes = new ArrayList<>(clusters);
+        this.borderNodes = new ArrayList<>(clusters * 2);
+        for (int c = 0; c < clusters; c++) {
+            clusterNodes.add(new ArrayList<>());
+            borderNodes.add(new ArrayList<>());
+            borderNodes.add(new ArrayList<>());
+        }
+        this.clusterStamps = new long[clusters];
+    }
+
+    @Override
+    public int vertexCount() {
+        update();
+        return vertices.size();
+    }
+
+    @Override
+    public Node getVertex(int id) {
+        update();
+        if (id < 0 || id >= vertices.size()) {
+            throw new NoSuchElementException("No vertex with id " + id);
+        }
+        return vertices.get(id);
+    }
+
+    /**
+     * Returns the side length of a cluster
+     */
+    public int clusterSize() {
+        return clusterSize;
+    }
+
+    /**
+     * Returns the cluster the cell at (x, y) lies in. Requires (x, y) to be in bounds
+     */
+    public int clusterOf(int x, int y) {
+        return (y / clusterSize) * clusterColumns + x / clusterSize;
+    }
+
+    /**
+     * Returns the entrances a shortest route from "start" to next to "target" passes through, in order,
+     * or null if the terrain leaves no route. The route only avoids mountains and water, and moves
+     * within a cluster are only counted, not listed. Both points must be in bounds and in different
+     * clusters
+     */
+    public List<Point> waypoints(Point start, Point target) {
+        update();
+        int startCluster = clusterOf(start.x, start.y);
+        int targetCluster = clusterOf(target.x, target.y);
+        List<Node> startNodes = clusterNodes.get(startCluster);
+        List<Node> targetNodes = clusterNodes.get(targetCluster);
+        int[] fromStart = distancesInCluster(start.x, start.y, startNodes);
+        int[] toTarget = distancesInCluster(target.x, target.y, targetNodes);
+
+        // the start and the target get the two ids after the real vertices
+        int n = vertices.size();
+        int source = n;
+        int sink = n + 1;
+        SearchContext search = SearchContext.get(n + 2);
+        search.discover(source, 0, -1);
+        search.push(source, chebyshev(start.x, start.y, target));
+        while (!search.isEmpty()) {
+            int current = search.pop();
+            if (search.close(current)) {
+                continue;
+            }
+            if (current == sink) {
+                List<Point> waypoints = new ArrayList<>();
+                for (int id = search.parent(sink); id != source; id = search.parent(id)) {
+                    Node node = vertices.get(id);
+                    waypoints.add(new Point(node.x, node.y));
+                }
+                Collections.reverse(waypoints);
+                return waypoints;
+            }
+            double cost = search.cost(current);
+            if (current == source) {
+                for (int i = 0; i < startNodes.size(); i++) {
+                    if (fromStart[i] >= 0) {
+                        relax(search, startNodes.get(i), cost + fromStart[i], current, target);
+                    }
+                }
+                continue;
+            }
+            Node node = vertices.get(current);
+            for (Link link : node.edges) {
+                relax(search, link.end(), cost + link.weight(), current, target);
+            }
+            if (node.cluster == targetCluster) {
+                int i = targetNodes.indexOf(node);
+                if (toTarget[i] >= 0) {
+                    double total = cost + toTarget[i];
+                    if (!search.discovered(sink) || total < search.cost(sink)) {
+                        search.discover(sink, total, current);
+                        search.push(sink, total);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * helper method, records "cost" as the cost of reaching "node" from "parent" if it is the cheapest
+     * way found so far
+     */
+    private void relax(SearchContext search, Node node, double cost, int parent, Point target) {
+        if (!search.discovered(node.id) || cost < search.cost(node.id)) {
+            search.discover(node.id, cost, parent);
+            search.push(node.id, cost + chebyshev(node.x, node.y, target));
+        }
+    }
+
+    /**
+     * helper method, the number of moves from (x, y) to "target" on open ground, which never
+     * overestimates
+     */
+    private static double chebyshev(int x, int y, Point target) {
+        return Math.max(Math.abs(x - target.x), Math.abs(y - target.y));
+    }
+
+    /**
+     * Brings the graph up to date with the grid's terrain, rebuilding only what changed
+     */
+    private void update() {
+        if (builtVersion == grid.terrainVersion()) {
+            return;
+        }
+        synchronized (this) {
+            int version = grid.terrainVersion();
+            if (builtVersion == version) {
+                return;
+            }
+            int clusters = clusterStamps.length;
+            boolean first = builtVersion == -1;
+            boolean[] changed = new boolean[clusters];
+            for (int c = 0; c < clusters; c++) {
+                long stamp = terrainStamp(c);
+                if (first || stamp != clusterStamps[c]) {
+                    clusterStamps[c] = stamp;
+                    changed[c] = true;
+                }
+            }
+
+            // a changed cluster changes the entrances on all four of its borders, and with them the
+            // vertices of the clusters on the other side
+            boolean[] rebuild = new boolean[clusters];
+            for (int c = 0; c < clusters; c++) {
+                if (!changed[c]) {
+                    continue;
+                }
+                int cx = c % clusterColumns;
+                int cy = c / clusterColumns;
+                rebuild[c] = true;
+                rebuildBorder(c, true);
+                rebuildBorder(c, false);
+                if (cx > 0) {
+                    rebuildBorder(c - 1, true);
+                    rebuild[c - 1] = true;
+                }
+                if (cy > 0) {
+                    rebuildBorder(c - clusterColumns, false);
+                    rebuild[c - clusterColumns] = true;
+                }
+                if (cx + 1 < clusterColumns) {
+                    rebuild[c + 1] = true;
+                }
+                if (cy + 1 < clusterRows) {
+                    rebuild[c + clusterColumns] = true;
+                }
+            }
+            for (int c = 0; c < clusters; c++) {
+                if (rebuild[c]) {
+                    connectCluster(c);
+                }
+            }
+
+            vertices.clear();
+            for (List<Node> nodes : clusterNodes) {
+                for (Node node : nodes) {
+                    node.id = vertices.size();
+                    vertices.add(node);
+                }
+            }
+            builtVersion = version;
+        }
+    }
+
+    /**
+     * helper method, returns the sum of the terrain versions of the regions in cluster "c"
+     */
+    private long terrainStamp(int c) {
+        int x0 = (c % clusterColumns) * clusterSize;
+        int y0 = (c / clusterColumns) * clusterSize;
+        long stamp = 0;
+        for (int y = y0; y < Math.min(y0 + clusterSize, grid.height()); y += CellGrid.REGION_SIZE) {
+            for (int x = x0; x < Math.min(x0 + clusterSize, grid.width()); x += CellGrid.REGION_SIZE) {
+                stamp += grid.terrainVersion(grid.region(x, y));
+            }
+        }
+        return stamp;
+    }
+
+    /**
+     * helper method, replaces the entrances on the right ("vertical") or bottom border of cluster "c"
+     * with ones for the current terrain. Leaves the edges inside the clusters to connectCluster
+     */
+    private void rebuildBorder(int c, boolean vertical) {
+        int cx = c % clusterColumns;
+        int cy = c / clusterColumns;
+        int other = vertical ? c + 1 : c + clusterColumns;
+        List<Node> border = borderNodes.get(2 * c + (vertical ? 0 : 1));
+        for (Node node : border) {
+            clusterNodes.get(node.cluster).remove(node);
+        }
+        border.clear();
+        if (vertical ? cx + 1 >= clusterColumns : cy + 1 >= clusterRows) {
+            return;
+        }
+
+        // walk along the border, cell "i" of it lies at (x, y) on this side and one step across on the other
+        int length = vertical
+                ? Math.min(clusterSize, grid.height() - cy * clusterSize)
+                : Math.min(clusterSize, grid.width() - cx * clusterSize);
+        int runStart = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean open = i < length && openAcross(c, vertical, i);
+            if (open && runStart < 0) {
+                runStart = i;
+            } else if (!open && runStart >= 0) {
+                int runEnd = i - 1;
+                if (runEnd - runStart + 1 >= LONG_ENTRANCE) {
+                    addEntrance(c, other, vertical, runStart, border);
+                    addEntrance(c, other, vertical, runEnd, border);
+                } else {
+                    addEntrance(c, other, vertical, (runStart + runEnd) / 2, border);
+                }
+                runStart = -1;
+            }
+        }
+    }
+
+    /**
+     * helper method, returns whether cell "i" of a border of cluster "c" is open on both sides
+     */
+    private boolean openAcross(int c, boolean vertical, int i) {
+        int x = borderX(c, vertical, i);
+        int y = borderY(c, vertical, i);
+        return grid.isOpenTerrain(x, y) && grid.isOpenTerrain(vertical ? x + 1 : x, vertical ? y : y + 1);
+    }
+
+    /**
+     * helper methods, return the coordinates of cell "i" of a border on cluster c's side
+     */
+    private int borderX(int c, boolean vertical, int i) {
+        int x0 = (c % clusterColumns) * clusterSize;
+        return vertical ? x0 + clusterSize - 1 : x0 + i;
+    }
+    private int borderY(int c, boolean vertical, int i) {
+        int y0 = (c / clusterColumns) * clusterSize;
+        return vertical ? y0 + i : y0 + clusterSize - 1;
+    }
+
+    /**
+     * helper method, places an entrance at cell "i" of a border between clusters "c" and "other"
+     */
+    private void addEntrance(int c, int other, boolean vertical, int i, List<Node> border) {
+        int x = borderX(c, vertical, i);
+        int y = borderY(c, vertical, i);
+        Node inside = new Node(x, y, c);
+        Node outside = new Node(vertical ? x + 1 : x, vertical ? y : y + 1, other);
+        inside.edges.add(new Link(inside, outside, 1));
+        outside.edges.add(new Link(outside, inside, 1));
+        clusterNodes.get(c).add(inside);
+        clusterNodes.get(other).add(outside);
+        border.add(inside);
+        border.add(outside);
+    }
+
+    /**
+     * helper method, replaces the edges between the vertices of cluster "c" with ones for the current
+     * terrain. Each vertex keeps its edge across the border as its first edge
+     */
+    private void connectCluster(int c) {
+        List<Node> nodes = clusterNodes.get(c);
+        for (Node node : nodes) {
+            Link across = node.edges.getFirst();
+            node.edges.clear();
+            node.edges.add(across);
+        }
+        for (Node node : nodes) {
+            int[] distances = distancesInCluster(node.x, node.y, nodes);
+            for (int j = 0; j < nodes.size(); j++) {
+                if (nodes.get(j) != node && distances[j] >= 0) {
+                    node.edges.add(new Link(node, nodes.get(j), distances[j]));
+                }
+            }
+        }
+    }
+
+    /**
+     * helper method, returns the number of moves from (x, y) to each of "nodes" over open terrain
+     * without leaving the cluster of (x, y), -1 for the ones it cannot reach. (x, y) itself may be
+     * closed, as a target on water is
+     */
+    private int[] distancesInCluster(int x, int y, List<Node> nodes) {
+        int c = clusterOf(x, y);
+        int x0 = (c % clusterColumns) * clusterSize;
+        int y0 = (c / clusterColumns) * clusterSize;
+        int w = Math.min(clusterSize, grid.width() - x0);
+        int h = Math.min(clusterSize, grid.height() - y0);
+        int[] steps = new int[w * h];
+        Arrays.fill(steps, -1);
+        int[] queue = new int[w * h];
+        int head = 0;
+        int tail = 0;
+        steps[(y - y0) * w + (x - x0)] = 0;
+        queue[tail++] = (y - y0) * w + (x - x0);
+        while (head < tail) {
+            int cell = queue[head++];
+            int cx = cell % w;
+            int cy = cell / w;
+            for (int d = 0; d < DX.length; d++) {
+                int nx = cx + DX[d];
+                int ny = cy + DY[d];
+                if (nx < 0 || ny < 0 || nx >= w || ny >= h) {
+                    continue;
+                }
+                int next = ny * w + nx;
+                if (steps[next] < 0 && grid.isOpenTerrain(x0 + nx, y0 + ny)) {
+                    steps[next] = steps[cell] + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        int[] distances = new int[nodes.size()];
+        for (int i = 0; i < distances.length; i++) {
+            Node node = nodes.get(i);
+            distances[i] = steps[(node.y - y0) * w + (node.x - x0)];
+        }
+        return distances;
+    }
+}
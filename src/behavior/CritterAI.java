@@ -1,18 +1,16 @@
 package behavior;
 
 import brain.Brain;
-import controller.ThreadPool;
 import java.awt.Point;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 import model.Critter;
 import model.Critter.Orientation;
 import model.Critter.Priority;
 import model.Food;
 import model.Water;
 import model.WorldModel;
-import model.WorldModel.CellState;
 
 /**
  * Defines what the critter's next priority is i.e. food, water, or love
@@ -21,100 +19,216 @@ import model.WorldModel.CellState;
  */
 public class CritterAI {
     /**
-     * The thread pool for this AI
+     * The number of values the brain reads for each critter
      */
-    private ThreadPool threadPool;
+    public static final int BRAIN_INPUTS = 3;
 
     /**
      * Constructor for ai
+     * The ai holds no threads of its own, background work goes to the world's thread pool
      */
-    public CritterAI(int maxThreads) {
-        this.threadPool = new ThreadPool(maxThreads);
+    public CritterAI() {}
+
+    /**
+     * Calculates priority based off of critter's current state and attributes, and sets it
+     */
+    public void updatePriority(Critter critter) {
+        critter.setPriority(choosePriority(critter, ThreadLocalRandom.current()));
     }
 
     /**
      * Calculates priority based off of critter's current state and attributes
-     * Returns the calculated priority
+     * Returns the calculated priority without setting it. Does not change the world, so it can run
+     * for many critters in parallel; random choices are drawn from "random"
      */
-    public void updatePriority(Critter critter) {
-        Brain brain = critter.brain();
-        double healthInput = critter.getHealth()/critter.getMaxHealth();
-        double hungerInput = critter.getHunger()/critter.getMaxHunger();
-        double thirstInput = critter.getThirst()/critter.getMaxThirst();
-        double populationDensity = Math.pow((critter.getVision() * 2 + 1), 2);
-
-        double[] input = {
-                healthInput,
-                hungerInput,
-                thirstInput
-        };
+    public Priority choosePriority(Critter critter, RandomGenerator random) {
+        double[] input = new double[BRAIN_INPUTS];
+        writeBrainInput(critter, input, 0);
 
-        double[] brainOutput = brain.feedForward(input);
+        // evaluation does not write to the brain, so critters sharing one can be decided in parallel
+        double[] brainOutput = critter.brain().feedForward(input);
+        return choosePriority(critter, strongestOutput(brainOutput), random);
+    }
+
+    /**
+     * Writes the critter's brain inputs (health, hunger and thirst, each as a fraction of its maximum)
+     * into "input", starting at "offset"
+     */
+    public static void writeBrainInput(Critter critter, double[] input, int offset) {
+        input[offset] = critter.getHealth()/critter.getMaxHealth();
+        input[offset + 1] = critter.getHunger()/critter.getMaxHunger();
+        input[offset + 2] = critter.getThirst()/critter.getMaxThirst();
+    }
+
+    /**
+     * Returns the index of the strongest brain output, the first one on ties
+     */
+    public static int strongestOutput(double[] brainOutput) {
         int actionNeuronIndex = 0;
         for (int i = 0; i < brainOutput.length; i++) {
             if (brainOutput[i] > brainOutput[actionNeuronIndex]) {
                 actionNeuronIndex = i;
             }
         }
+        return actionNeuronIndex;
+    }
 
-
+    /**
+     * Calculates priority from the index of the critter's strongest brain output, as computed by
+     * choosePriority or by a BrainBatchEvaluator, without setting it
+     */
+    public Priority choosePriority(Critter critter, int actionNeuronIndex, RandomGenerator random) {
+        Priority priority;
         // If no synapses have been formed yet, just choose a random priority (not love)
         if (critter.getWorld().innovationManager().innovation() == 0) {
-            double random = (Math.random() * 4);
-            if (random <= 1) {
-                critter.setPriority(Priority.FOOD);
-            } else if (random <= 2) {
-                critter.setPriority(Priority.WATER);
-            } else if (random <= 3) {
-                critter.setPriority(Priority.ATTACK);
-            } else if (random <= 4) {
-                critter.setPriority(Priority.REST);
+            double value = (random.nextDouble() * 4);
+            if (value <= 1) {
+                priority = Priority.FOOD;
+            } else if (value <= 2) {
+                priority = Priority.WATER;
+            } else if (value <= 3) {
+                priority = Priority.ATTACK;
+            } else {
+                priority = Priority.REST;
             }
 
         } else { // if synapses have been formed, use the actionNeuronIndex
             if (actionNeuronIndex == 0) {
-                critter.setPriority(Priority.FOOD);
+                priority = Priority.FOOD;
             } else if (actionNeuronIndex == 1) {
-                critter.setPriority(Priority.WATER);
+                priority = Priority.WATER;
             } else if (actionNeuronIndex == 2) {
-                critter.setPriority(Priority.ATTACK);
+                priority = Priority.ATTACK;
             } else if (actionNeuronIndex == 3) {
-                critter.setPriority(Priority.LOVE);
+                priority = Priority.LOVE;
             } else {
-                critter.setPriority(Priority.REST);
+                priority = Priority.REST;
             }
         }
         // 0.1% chance to reproduce
-        if (Math.random() <= 0.01) {
-            critter.setPriority(Priority.LOVE);
+        if (random.nextDouble() <= 0.01) {
+            priority = Priority.LOVE;
         }
+        return priority;
+    }
 
+    /**
+     * Decide phase of a turn: chooses the critter's priority, locates its target and plans a path to it.
+     * Only reads the world, so decisions for many critters can be made in parallel
+     */
+    public Decision decide(Critter critter, RandomGenerator random) {
+        return decide(critter, choosePriority(critter, random), random);
     }
 
     /**
-     * Has the critter take turn based on its priority and state
+     * Decide phase of a turn for a critter whose strongest brain output was already found, for example
+     * by evaluating the whole population's brains in one batch
      */
-    public void makeMove(Critter critter) {
-        critter.updatePriority();
+    public Decision decide(Critter critter, int actionNeuronIndex, RandomGenerator random) {
+        return decide(critter, choosePriority(critter, actionNeuronIndex, random), random);
+    }
+
+    /**
+     * helper method, locates the target for "priority" and plans a path to it
+     */
+    private Decision decide(Critter critter, Priority priority, RandomGenerator random) {
+        Point target = keptTarget(critter, priority);
+        if (target == null) {
+            DistanceField field = switch (priority) {
+                case FOOD -> critter.getWorld().getFoodField();
+                case WATER -> critter.getWorld().getWaterField();
+                default -> null;
+            };
+            if (field != null) {
+                Decision decision = decideByField(critter, priority, field, random);
+                if (decision != null) {
+                    critter.setPlanner(null);
+                    return decision;
+                }
+            }
+            target = locateTarget(critter, priority);
+        }
+        boolean stationary = priority == Priority.FOOD || priority == Priority.WATER;
+        return new Decision(critter, priority, target, planPath(critter, target, stationary), random);
+    }
+
+    /**
+     * helper method, returns the target of the critter's planner if it is still food or water that
+     * "priority" looks for and still in sight, or null. A critter gets a planner when its target is
+     * further away by foot than it can see (see planPath), and then keeps walking to that target with
+     * it, instead of going down the distance field once it gets close or switching to whichever food or
+     * water is nearest in a straight line as it walks around whatever is in the way
+     */
+    private Point keptTarget(Critter critter, Priority priority) {
+        Point target = critter.getTarget();
+        IncrementalPlanner planner = critter.getPlanner();
+        if (target == null || planner == null || !planner.plansTo(target)
+                || target.distance(critter.getPosition()) >= critter.getVision()) {
+            return null;
+        }
         WorldModel world = critter.getWorld();
-        Pathfinder pathfinder = critter.getPathfinder();
+        boolean kept = switch (priority) {
+            case FOOD -> world.getFoodAt(target.x, target.y) != null;
+            case WATER -> world.getWaterAt(target.x, target.y) != null;
+            default -> false;
+        };
+        return kept ? target : null;
+    }
 
-        updateCritter(critter); // update the critters state for each turn
+    /**
+     * helper method, plans the critter's path to "target". A critter heading for food or water that the
+     * distance field could not lead it to ("stationary"), or for the same target as last turn, keeps an
+     * IncrementalPlanner, which repairs last turn's search instead of starting over; otherwise, or if the
+     * planner gives up, the pathfinder plans the path from scratch.
+     * The planner belongs to the critter, so critters can still be decided in parallel
+     */
+    private List<Point> planPath(Critter critter, Point target, boolean stationary) {
+        Point position = critter.getPosition();
+        IncrementalPlanner planner = critter.getPlanner();
+        if (planner == null || !planner.plansTo(target)) {
+            boolean keep = (stationary || target.equals(critter.getTarget())) && !target.equals(position);
+            planner = keep ? new IncrementalPlanner(critter.getWorld(), target) : null;
+        }
+        List<Point> path = planner != null ? planner.plan(position) : null;
+        critter.setPlanner(path != null ? planner : null);
+        return path != null ? path : critter.getPathfinder().findPath(position, target);
+    }
+
+    /**
+     * helper method, heads for the nearest food or water by walking down its distance field instead of
+     * searching. Returns null if none can be reached in fewer moves than the critter's vision, in which
+     * case it looks around as usual
+     */
+    private Decision decideByField(Critter critter, Priority priority, DistanceField field,
+                                   RandomGenerator random) {
+        Point position = critter.getPosition();
+        int distance = field.distance(position.x, position.y);
+        if (distance == 0 || distance >= critter.getVision()) {
+            return null;
+        }
+        List<Point> path = field.pathFrom(position);
+        Point last = path.getLast();
+        return new Decision(critter, priority, field.downhill(last.x, last.y), path, random);
+    }
+
+    /**
+     * Commit phase of a turn: applies a decision made by decide. The action is checked against the
+     * world as it is now, so if an earlier commit this tick took the square in front of the critter,
+     * the critter does not move onto it
+     */
+    public void commit(Decision decision) {
+        Critter critter = decision.critter();
+        critter.setPriority(decision.priority());
+        // per-turn hunger, thirst, healing and aging are applied to the whole population at once,
+        // see CritterStore.metabolize
 
         // reproduce if priority is love
         if (critter.getPriority() == Priority.LOVE) {
-            critter.reproduce();
+            critter.reproduce(decision.random());
         }
 
-        // locate target and path to target
-        Runnable pathfindingTask = () -> {
-            synchronized (critter) {
-                Point target = locateTarget(critter, critter.getPriority());
-                List<Point> path = pathfinder.findPath(critter.getPosition(), target);
-                critter.setCurrentPath(path);
-            }
-        };
-        threadPool.submitTask(pathfindingTask);
+        critter.setTarget(decision.target());
+        critter.setCurrentPath(decision.path());
 
         // Determine the orientation we need to face the target and rotate if critter is facing the wrong way
         Orientation properOrientation = determineOrientation(critter);
@@ -126,34 +240,44 @@ public class CritterAI {
         takeAction(critter);
     }
 
+    /**
+     * Has the critter take turn based on its priority and state
+     * The path is planned before the critter turns towards it
+     */
+    public void makeMove(Critter critter) {
+        commit(decide(critter, ThreadLocalRandom.current()));
+    }
+
     /**
      * Once all move conditions have been completed, the critter takes an action
      */
     private void takeAction(Critter critter) {
         // Check if there's food or water in front of us
         WorldModel world = critter.getWorld();
-        Point frontSquare = squareInFront(critter);
-        if (frontSquare != null) {
-            Food foodInFront = world.getFood(frontSquare);
+        Point position = critter.getPosition();
+        int frontX = position.x + dx(critter.getOrientation());
+        int frontY = position.y + dy(critter.getOrientation());
+        if (frontX >= 0 && frontX < world.getWidth() && frontY >= 0 && frontY < world.getHeight()) {
+            Food foodInFront = world.getFoodAt(frontX, frontY);
             if (foodInFront != null) {
                 critter.eat(foodInFront);
                 return;
             }
 
-            Water waterInFront = world.getWater(frontSquare);
+            Water waterInFront = world.getWaterAt(frontX, frontY);
             if (waterInFront != null && critter.getPriority() == Priority.WATER) {
                 critter.drink(waterInFront);
                 return;
             }
 
-            Critter critterInFront = world.getCritter(frontSquare);
+            Critter critterInFront = world.getCritterAt(frontX, frontY);
             if (critterInFront != null && critter.getPriority() == Priority.ATTACK) {
                 critter.attack(critterInFront);
                 return;
             }
 
             // If there's nothing to eat/drink in front, and we can move, then move
-            if (isValidMove(frontSquare, world)) {
+            if (isValidMove(frontX, frontY, world)) {
                 critter.move(1);
             }
         }
@@ -162,50 +286,30 @@ public class CritterAI {
     /**
      * Check if a move to the given position is valid
      */
-    private boolean isValidMove(Point pos, WorldModel world) {
-        // Check if position is within world bounds
-        if (pos.x < 0 || pos.x >= world.getWidth() ||
-                pos.y < 0 || pos.y >= world.getHeight()) {
-            return false;
-        }
-
-        // Check if position is occupied by a mountain (1) or another critter (4) or water
-        CellState[][] worldArray = world.getWorldArray();
-        return worldArray[pos.x][pos.y] != CellState.MOUNTAIN &&
-                worldArray[pos.x][pos.y] != CellState.WATER &&
-                worldArray[pos.x][pos.y] != CellState.PEACEFUL_CRITTER &&
-                worldArray[pos.x][pos.y] != CellState.ANGRY_CRITTER;
+    private boolean isValidMove(int x, int y, WorldModel world) {
+        // Check if position is within world bounds and not occupied by a mountain, water, or another critter
+        return world.getGrid().isTraversable(x, y);
     }
 
     /**
      * locates the nearest instance of the critter's target
-     * !!! Eventually change to A* algorithm, but I will figure that out later
+     * Only targets strictly within the critter's vision are considered, so the lookup goes through the
+     * world's spatial indexes and scales with the vision area rather than with the number of targets.
+     * Returns the critter's own position if nothing is in sight
      */
     public Point locateTarget(Critter critter, Priority priority) {
         WorldModel world = critter.getWorld();
         Point currentPos = critter.getPosition();
 
-        double shortestDistance = Double.MAX_VALUE;
-        Point nearestTarget = currentPos;
-
-        // Get the appropriate target set based on priority
-        Map<Point, ?> targets = switch (priority) {
-            case FOOD -> world.getFoods();
-            case WATER -> world.getWaters();
-            case ATTACK -> world.getCritters();
-            default -> new HashMap<>();
+        // Get the nearest target of the appropriate kind based on priority
+        Point nearestTarget = switch (priority) {
+            case FOOD -> world.nearestFood(currentPos, critter.getVision());
+            case WATER -> world.nearestWater(currentPos, critter.getVision());
+            case ATTACK -> world.nearestCritter(currentPos, critter.getVision());
+            default -> null;
         };
 
-        // Use Euclidean distance for initial target selection
-        for (Point target : targets.keySet()) {
-            double distance = Math.sqrt(Math.pow((target.x - currentPos.x), 2) + Math.pow((target.y - currentPos.y), 2));
-            if (distance < shortestDistance && distance < critter.getVision()) {
-                shortestDistance = distance;
-                nearestTarget = target;
-            }
-        }
-
-        return nearestTarget;
+        return nearestTarget == null ? currentPos : nearestTarget;
     }
 
     /**
@@ -250,95 +354,20 @@ public class CritterAI {
     }
 
     /**
-     * private helper method for determining the coordinates of the square in front of the critter
-     */
-    private Point squareInFront(Critter critter) {
-        Orientation orientation = critter.getOrientation();
-        Point position = critter.getPosition();
-        Point squareInFront = null;
-        WorldModel world = critter.getWorld();
-
-        int newX = position.x;
-        int newY = position.y;
-
-        switch (orientation) {
-            case N:  newY = position.y - 1; break;
-            case NE: newX = position.x + 1; newY = position.y - 1; break;
-            case E:  newX = position.x + 1; break;
-            case SE: newX = position.x + 1; newY = position.y + 1; break;
-            case S:  newY = position.y + 1; break;
-            case SW: newX = position.x - 1; newY = position.y + 1; break;
-            case W:  newX = position.x - 1; break;
-            case NW: newX = position.x - 1; newY = position.y - 1; break;
-        }
-
-        // Check if the new position is within world bounds
-        if (newX >= 0 && newX < world.getWidth() &&
-                newY >= 0 && newY < world.getHeight()) {
-            return new Point(newX, newY);
-        }
-
-        return null;
-    }
-
-    /**
-     * Updates critter per turn before making any moves
+     * helper methods, return the x and y offsets of the square in front of a critter facing "orientation"
      */
-    private void updateCritter(Critter critter) {
-        reduceHunger(critter);
-        reduceThirst(critter);
-        heal(critter);
-        age(critter);
-    }
-
-    /**
-     * private helper method for reducing base hunger per turn
-     */
-    private void reduceHunger(Critter critter) {
-        WorldModel world = critter.getWorld();
-
-        // Calculate size factor: larger critters expend more energy
-        double sizeFactor = Math.sqrt(Math.log((critter.getSize()) + 2)); // Adding 2 to avoid log(0)
-
-        // Base hunger expenditure (scaled by size)
-        double baseExpenditure = world.getBASE_HUNGER_EXPENDITURE() * sizeFactor;
-
-        // Apply rest reduction: e.g., 50% less expenditure while resting
-        if (critter.getPriority() == Priority.REST) {
-            baseExpenditure *= 0.5;
-        }
-
-        // Update hunger, ensuring it doesn't go below 0
-        critter.setHunger(Math.max(0, critter.getHunger() - baseExpenditure));
-    }
-
-    /**
-     * private helper method for reducing base thirst per turn
-     */
-    private void reduceThirst(Critter critter) {
-        WorldModel world = critter.getWorld();
-        // take away some thirst, even when resting
-        critter.setThirst(critter.getThirst() - (world.getBASE_THIRST_EXPENDITURE()));
-    }
-
-    /**
-     * private helper method for healing when hunger and thirst are high enough
-     */
-    private void heal(Critter critter) {
-        if (critter.getHunger() > critter.getMaxHunger() * 0.8) {
-            double newHealth = Math.min(
-                    critter.getHealth() + critter.getMaxHealth() * 0.01,  // Regenerate 1% health per tick
-                    critter.getMaxHealth()    // But don't exceed maxHealth
-            );
-            critter.setHealth(newHealth);
-        }
+    private static int dx(Orientation orientation) {
+        return switch (orientation) {
+            case NE, E, SE -> 1;
+            case SW, W, NW -> -1;
+            default -> 0;
+        };
     }
-
-    /**
-     * private helper method for aging the critter per turn
-     */
-    private void age(Critter critter) {
-        // increment age by 1
-        critter.setAge(critter.getAge() + 1);
+    private static int dy(Orientation orientation) {
+        return switch (orientation) {
+            case N, NE, NW -> -1;
+            case SE, S, SW -> 1;
+            default -> 0;
+        };
     }
 }
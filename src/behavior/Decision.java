@@ -0,0 +1,17 @@
+package behavior;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.random.RandomGenerator;
+import model.Critter;
+import model.Critter.Priority;
+
+/**
+ * What a critter decided to do this tick: its new priority, the target it chose for that priority, and
+ * the path it planned to the target. Produced by CritterAI.decide without changing the world, and applied
+ * by CritterAI.commit.
+ * Also carries the random stream the decision was drawn from, so the commit phase, births included, keeps
+ * drawing from the critter's own stream.
+ */
+public record Decision(Critter critter, Priority priority, Point target, List<Point> path,
+                       RandomGenerator random) {}
@@ -0,0 +1,417 @@
+package behavior;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import model.CellGrid;
+import model.WorldModel.CellState;
+
+/**
+ * For every cell of a grid, the fewest moves to the nearest cell in one state (the sources), moving in
+ * 8 directions over open terrain (see CellGrid.isOpenTerrain). Sources are at distance 0, and a cell at
+ * distance d has a neighbor at distance d - 1, so a critter heading for the nearest source only has to
+ * step downhill, which replaces a locateTarget and a path search with a few array reads.
+ * The field is filled by one breadth-first search from all sources at once. After that, only the cells
+ * that changed are repaired: a new source or opened cell lowers the distances around it, and distances
+ * that depended on a cell that closed or stopped being a source are cleared outwards from it and filled
+ * in again from their neighbors. A field can be capped at a distance, beyond which cells count as
+ * unreachable, so every repair stays within that distance of the cells that changed.
+ * Like ClusterGraph, critters count as open, since they come and go. The field notices changes to
+ * mountains and water on its own, through the grid's terrain versions. Sources of any other state come
+ * and go without changing the terrain, so the field has to be told about them, see changed.
+ * Reads may come from several threads at once. The field only repairs itself before a read, when the
+ * grid changed since the last repair, which only happens between parallel phases.
+ */
+public class DistanceField {
+    /**
+     * The distance of a cell that cannot reach a source
+     */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    /**
+     * Offsets of the eight neighbors of a cell
+     */
+    private static final int[] DX = {0, 0, 1, -1, 1, 1, -1, -1};
+    private static final int[] DY = {-1, 1, 0, 0, 1, -1, 1, -1};
+
+    /**
+     * What a cell is to the field
+     */
+    private static final byte BLOCKED = 0;
+    private static final byte OPEN = 1;
+    private static final byte SOURCE = 2;
+
+    private final CellGrid grid;
+    private final CellState source;
+
+    /**
+     * The largest distance the field keeps
+     */
+    private final int maxDistance;
+
+    /**
+     * For each cell, its distance and what it was at the last repair
+     */
+    private final int[] distances;
+    private final byte[] kinds;
+
+    /**
+     * For each region, its terrain version at the last repair
+     */
+    private final int[] regionStamps;
+
+    /**
+     * The grid's terrain version at the last repair, -1 before the field is first built
+     */
+    private volatile int builtVersion = -1;
+
+    /**
+     * The cells passed to changed since the last repair, and whether there are any
+     */
+    private int[] pending = new int[16];
+    private int pendingCount;
+    private volatile boolean dirty;
+
+    /**
+     * Scratch space for repairs: a queue of cells for filling in, and a stack of cells for clearing
+     */
+    private final int[] queue;
+    private int[] stack = new int[64];
+
+    /**
+     * Constructs the field of distances to the cells of "grid" in state "source". The field is built on
+     * first use
+     */
+    public DistanceField(CellGrid grid, CellState source) {
+        this(grid, source, UNREACHABLE - 1);
+    }
+
+    /**
+     * Constructs the field of distances up to "maxDistance" to the cells of "grid" in state "source".
+     * The field is built on first use
+     */
+    public DistanceField(CellGrid grid, CellState source, int maxDistance) {
+        if (maxDistance < 0 || maxDistance == UNREACHABLE) {
+            throw new IllegalArgumentException("Invalid maximum distance " + maxDistance);
+        }
+        this.grid = grid;
+        this.source = source;
+        this.maxDistance = maxDistance;
+        this.distances = new int[grid.size()];
+        this.kinds = new byte[grid.size()];
+        int regionColumns = (grid.width() + CellGrid.REGION_SIZE - 1) / CellGrid.REGION_SIZE;
+        int regionRows = (grid.height() + CellGrid.REGION_SIZE - 1) / CellGrid.REGION_SIZE;
+        this.regionStamps = new int[regionColumns * regionRows];
+        this.queue = new int[grid.size()];
+    }
+
+    /**
+     * Tells the field that the cell at (x, y) may have turned into a source or stopped being one. Needed
+     * for every such change unless the sources are mountains or water. Must not be called while the
+     * field is being read
+     */
+    public synchronized void changed(int x, int y) {
+        if (!grid.inBounds(x, y)) {
+            return;
+        }
+        if (pendingCount == pending.length) {
+            pending = Arrays.copyOf(pending, pendingCount * 2);
+        }
+        pending[pendingCount++] = grid.index(x, y);
+        dirty = true;
+    }
+
+    /**
+     * Returns the fewest moves from (x, y) to a source, or UNREACHABLE if there is no way to one within
+     * the field's maximum distance or (x, y) is off the grid
+     */
+    public int distance(int x, int y) {
+        update();
+        return grid.inBounds(x, y) ? distances[grid.index(x, y)] : UNREACHABLE;
+    }
+
+    /**
+     * Returns the neighbor of (x, y) one move closer to a source, or null if (x, y) is a source or
+     * cannot reach one. A cell next to a source steps onto the source
+     */
+    public Point downhill(int x, int y) {
+        int distance = distance(x, y);
+        if (distance == 0 || distance == UNREACHABLE) {
+            return null;
+        }
+        int next = downhillCell(x, y, distance);
+        return new Point(grid.x(next), grid.y(next));
+    }
+
+    /**
+     * Returns the path downhill from "start" to a square next to a source, starting with "start" itself,
+     * in the form Pathfinder.findPath returns. Returns an empty list if "start" cannot reach a source or
+     * is a source
+     */
+    public List<Point> pathFrom(Point start) {
+        int distance = distance(start.x, start.y);
+        List<Point> path = new ArrayList<>();
+        if (distance == 0 || distance == UNREACHABLE) {
+            return path;
+        }
+        int x = start.x;
+        int y = start.y;
+        path.add(new Point(x, y));
+        for (; distance > 1; distance--) {
+            int next = downhillCell(x, y, distance);
+            x = grid.x(next);
+            y = grid.y(next);
+            path.add(new Point(x, y));
+        }
+        return path;
+    }
+
+    /**
+     * helper method, returns the first neighbor of (x, y) at distance "distance" - 1
+     */
+    private int downhillCell(int x, int y, int distance) {
+        for (int d = 0; d < DX.length; d++) {
+            int nx = x + DX[d];
+            int ny = y + DY[d];
+            if (grid.inBounds(nx, ny) && distances[grid.index(nx, ny)] == distance - 1) {
+                return grid.index(nx, ny);
+            }
+        }
+        throw new IllegalStateException("No way downhill from (" + x + ", " + y + ")");
+    }
+
+    /**
+     * helper method, builds the field, or repairs the cells that changed since the last repair
+     */
+    private void update() {
+        if (builtVersion == grid.terrainVersion() && !dirty) {
+            return;
+        }
+        synchronized (this) {
+            int version = grid.terrainVersion();
+            if (builtVersion == version && !dirty) {
+                return;
+            }
+            if (builtVersion == -1) {
+                build();
+            } else {
+                repair(changedCells());
+            }
+            pendingCount = 0;
+            dirty = false;
+            builtVersion = version;
+        }
+    }
+
+    /**
+     * helper method, returns what the cell at (x, y) is to the field now
+     */
+    private byte kindOf(int x, int y) {
+        if (grid.get(x, y) == source) {
+            return SOURCE;
+        }
+        return grid.isOpenTerrain(x, y) ? OPEN : BLOCKED;
+    }
+
+    /**
+     * helper method, fills the whole field with one breadth-first search from every source
+     */
+    private void build() {
+        Arrays.fill(distances, UNREACHABLE);
+        int tail = 0;
+        for (int y = 0; y < grid.height(); y++) {
+            for (int x = 0; x < grid.width(); x++) {
+                int cell = grid.index(x, y);
+                kinds[cell] = kindOf(x, y);
+                if (kinds[cell] == SOURCE) {
+                    distances[cell] = 0;
+                    queue[tail++] = cell;
+                }
+            }
+        }
+        for (int region = 0; region < regionStamps.length; region++) {
+            regionStamps[region] = grid.terrainVersion(region);
+        }
+        fill(new long[0], tail);
+    }
+
+    /**
+     * helper method, returns the cells whose kind changed since the last repair: those passed to changed,
+     * and those in regions whose terrain changed. A cell may be listed twice
+     */
+    private int[] changedCells() {
+        int[] changed = new int[Math.max(pendingCount * 2, 16)];
+        int count = 0;
+        for (int i = 0; i < pendingCount; i++) {
+            int cell = pending[i];
+            if (kindOf(grid.x(cell), grid.y(cell)) != kinds[cell]) {
+                changed[count++] = cell;
+            }
+        }
+        for (int y0 = 0; y0 < grid.height(); y0 += CellGrid.REGION_SIZE) {
+            for (int x0 = 0; x0 < grid.width(); x0 += CellGrid.REGION_SIZE) {
+                int region = grid.region(x0, y0);
+                int version = grid.terrainVersion(region);
+                if (regionStamps[region] == version) {
+                    continue;
+                }
+                regionStamps[region] = version;
+                for (int y = y0; y < Math.min(y0 + CellGrid.REGION_SIZE, grid.height()); y++) {
+                    for (int x = x0; x < Math.min(x0 + CellGrid.REGION_SIZE, grid.width()); x++) {
+                        if (kindOf(x, y) != kinds[grid.index(x, y)]) {
+                            if (count == changed.length) {
+                                changed = Arrays.copyOf(changed, count * 2);
+                            }
+                            changed[count++] = grid.index(x, y);
+                        }
+                    }
+                }
+            }
+        }
+        return Arrays.copyOf(changed, count);
+    }
+
+    /**
+     * helper method, repairs the field after the cells in "changed" changed kind
+     */
+    private void repair(int[] changed) {
+        // clear the changed cells that lost their distance, and everything that depended on them
+        int[] touched = Arrays.copyOf(changed, Math.max(changed.length * 2, 16));
+        int touchedCount = changed.length;
+        int top = 0;
+        for (int cell : changed) {
+            byte kind = kindOf(grid.x(cell), grid.y(cell));
+            byte old = kinds[cell];
+            if (kind == old) {
+                continue;
+            }
+            kinds[cell] = kind;
+            if (kind == SOURCE) {
+                distances[cell] = 0;
+            } else if (distances[cell] != UNREACHABLE && (old == SOURCE || kind == BLOCKED)) {
+                distances[cell] = UNREACHABLE;
+                top = pushNeighbors(cell, top);
+            }
+        }
+        while (top > 0) {
+            int cell = stack[--top];
+            int distance = distances[cell];
+            if (kinds[cell] != OPEN || distance == UNREACHABLE || hasNeighborAt(cell, distance - 1)) {
+                continue;
+            }
+            // nothing leads from this cell to a source any more
+            distances[cell] = UNREACHABLE;
+            top = pushNeighbors(cell, top);
+            if (touchedCount == touched.length) {
+                touched = Arrays.copyOf(touched, touchedCount * 2);
+            }
+            touched[touchedCount++] = cell;
+        }
+
+        // every cell that still has a distance has a way to a source, so the touched cells are filled in
+        // again from the new sources and the cells around them, nearest first
+        long[] seeds = new long[Math.max(touchedCount * 2, 16)];
+        int seedCount = 0;
+        for (int i = 0; i < touchedCount; i++) {
+            int cell = touched[i];
+            int x = grid.x(cell);
+            int y = grid.y(cell);
+            for (int d = -1; d < DX.length; d++) {
+                int nx = d == -1 ? x : x + DX[d];
+                int ny = d == -1 ? y : y + DY[d];
+                if (!grid.inBounds(nx, ny)) {
+                    continue;
+                }
+                int seed = grid.index(nx, ny);
+                if (kinds[seed] != BLOCKED && distances[seed] != UNREACHABLE) {
+                    if (seedCount == seeds.length) {
+                        seeds = Arrays.copyOf(seeds, seedCount * 2);
+                    }
+                    seeds[seedCount++] = (long) distances[seed] << 32 | seed;
+                }
+            }
+        }
+        seeds = Arrays.copyOf(seeds, seedCount);
+        Arrays.sort(seeds);
+        fill(seeds, 0);
+    }
+
+    /**
+     * helper method, returns whether a source or open neighbor of "cell" is at distance "distance"
+     */
+    private boolean hasNeighborAt(int cell, int distance) {
+        int x = grid.x(cell);
+        int y = grid.y(cell);
+        for (int d = 0; d < DX.length; d++) {
+            int nx = x + DX[d];
+            int ny = y + DY[d];
+            if (grid.inBounds(nx, ny) && distances[grid.index(nx, ny)] == distance
+                    && kinds[grid.index(nx, ny)] != BLOCKED) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * helper method, pushes the open neighbors of "cell" onto the clearing stack above "top", and
+     * returns the new top
+     */
+    private int pushNeighbors(int cell, int top) {
+        int x = grid.x(cell);
+        int y = grid.y(cell);
+        for (int d = 0; d < DX.length; d++) {
+            int nx = x + DX[d];
+            int ny = y + DY[d];
+            if (grid.inBounds(nx, ny) && kinds[grid.index(nx, ny)] == OPEN) {
+                if (top == stack.length) {
+                    stack = Arrays.copyOf(stack, top * 2);
+                }
+                stack[top++] = grid.index(nx, ny);
+            }
+        }
+        return top;
+    }
+
+    /**
+     * helper method, the breadth-first search behind build and repair. Takes cells from "seeds" (each
+     * its distance in the high 32 bits and its index in the low, sorted) and from queue[0 .. tail - 1],
+     * always the nearer one first, and gives each open neighbor one more than the cell's distance if
+     * that is shorter
+     */
+    private void fill(long[] seeds, int tail) {
+        int head = 0;
+        int next = 0;
+        while (head < tail || next < seeds.length) {
+            int cell;
+            if (next < seeds.length && (head == tail || seeds[next] >>> 32 < distances[queue[head]])) {
+                cell = (int) seeds[next];
+                if (distances[cell] != seeds[next++] >>> 32) {
+                    // it got nearer since, and has gone through the queue
+                    continue;
+                }
+            } else {
+                cell = queue[head++];
+            }
+            int distance = distances[cell] + 1;
+            if (distance > maxDistance) {
+                continue;
+            }
+            int x = grid.x(cell);
+            int y = grid.y(cell);
+            for (int d = 0; d < DX.length; d++) {
+                int nx = x + DX[d];
+                int ny = y + DY[d];
+                if (!grid.inBounds(nx, ny)) {
+                    continue;
+                }
+                int neighbor = grid.index(nx, ny);
+                if (kinds[neighbor] == OPEN && distances[neighbor] > distance) {
+                    distances[neighbor] = distance;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,575 @@
+package behavior;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import model.CellGrid;
+import model.WorldModel;
+
+/**
+ * Incremental path planning with D* Lite (Koenig and Likhachev, 2002), for a critter that keeps heading
+ * for the same target. The search runs backwards, from the squares next to the target towards the
+ * critter, and is kept between turns. When the critter has moved and some squares have been taken or
+ * freed since the last plan, only the distances those changes affect are repaired, so following a long
+ * path costs a few expansions a turn instead of a new search. Changes are found by comparing the
+ * versions of the regions around the search (see CellGrid.regionVersion) and rescanning only the
+ * regions that changed, so a plan never looks at changes made elsewhere in the world.
+ * As in Pathfinder, the goal is any traversable square next to the target, the critter moves in 8
+ * directions and diagonal moves may pass between two blocked squares. Paths have the fewest moves
+ * possible. The search state covers only the squares it has touched, and the planner gives up once a
+ * plan takes more than its expansion limit, so a far or unreachable target cannot make it grow without
+ * bound.
+ * A planner belongs to one critter, so it needs no locking; it only reads the world.
+ */
+public final class IncrementalPlanner {
+    /**
+     * The default number of expansions a plan may take
+     */
+    public static final int DEFAULT_EXPANSION_LIMIT = 4096;
+
+    /**
+     * The distance of a square that cannot reach the goal. Small enough that keys never overflow
+     */
+    private static final int INFINITY = Integer.MAX_VALUE / 4;
+
+    /**
+     * Offsets of the eight neighbors of a square
+     */
+    private static final int[] DX = {0, 0, 1, -1, 1, 1, -1, -1};
+    private static final int[] DY = {-1, 1, 0, 0, 1, -1, 1, -1};
+
+    private final CellGrid grid;
+    private final Point target;
+    private final int expansionLimit;
+
+    /**
+     * The regions around the squares in the table, a rectangle of regionColumns by regionRows regions
+     * starting at region column regionX and row regionY. For each, its version and which of its squares
+     * were traversable (bit (y % REGION_SIZE) * REGION_SIZE + x % REGION_SIZE) when the planner last
+     * looked. A region of CellGrid.REGION_SIZE 8 has 64 squares, one long's worth
+     */
+    private int regionX;
+    private int regionY;
+    private int regionColumns;
+    private int regionRows;
+    private int[] regionVersions = new int[0];
+    private long[] regionTraversable = new long[0];
+
+    /**
+     * The start of the last plan, -1 before the first, and the D* Lite key modifier: how far the start
+     * has moved in total, which keeps old keys valid as lower bounds
+     */
+    private int lastStart = -1;
+    private int keyModifier;
+
+    /**
+     * The number of expansions over all plans
+     */
+    private long expansions;
+
+    /**
+     * The search state of every square touched so far, in an open-addressed table keyed by cell + 1
+     * (0 for an empty slot): its distance to the goal g, the one-step lookahead rhs, and its key in the
+     * open set, or -1 if it is not in it
+     */
+    private int[] cells = new int[64];
+    private int[] g = new int[64];
+    private int[] rhs = new int[64];
+    private long[] queued = new long[64];
+    private int size;
+
+    /**
+     * The bounding box of the squares in the table. A change further than one square outside it
+     * cannot affect the search, so it is skipped without looking at the table
+     */
+    private int minX = Integer.MAX_VALUE;
+    private int minY = Integer.MAX_VALUE;
+    private int maxX = Integer.MIN_VALUE;
+    private int maxY = Integer.MIN_VALUE;
+
+    /**
+     * The open set: a binary heap of keys (the two D* Lite key parts packed into a long) and cells.
+     * An entry whose key is no longer the cell's queued key is stale, and skipped when it comes up
+     */
+    private long[] heapKeys = new long[64];
+    private int[] heapCells = new int[64];
+    private int heapSize;
+
+    /**
+     * Constructs a planner for paths to next to "target" on "world", with the default expansion limit
+     */
+    public IncrementalPlanner(WorldModel world, Point target) {
+        this(world, target, DEFAULT_EXPANSION_LIMIT);
+    }
+
+    /**
+     * Constructs a planner for paths to next to "target" on "world" that gives up once a plan takes more
+     * than "expansionLimit" expansions
+     */
+    public IncrementalPlanner(WorldModel world, Point target, int expansionLimit) {
+        this.grid = world.getGrid();
+        this.target = new Point(target);
+        this.expansionLimit = expansionLimit;
+    }
+
+    /**
+     * Returns whether this planner plans paths to "target"
+     */
+    public boolean plansTo(Point target) {
+        return this.target.equals(target);
+    }
+
+    /**
+     * Returns the number of squares expanded over all plans
+     */
+    public long expansions() {
+        return expansions;
+    }
+
+    /**
+     * Plans a path from "start" to a traversable square next to the target, in the form
+     * Pathfinder.findPath returns: starting with "start", and empty if there is no path. Returns null if
+     * the planner cannot go on, because the plan took more than the expansion limit or "start" or the
+     * target is off the grid; the planner should then be dropped
+     */
+    public List<Point> plan(Point start) {
+        if (!grid.inBounds(start.x, start.y) || !grid.inBounds(target.x, target.y)) {
+            return null;
+        }
+        int startCell = grid.index(start.x, start.y);
+        if (isGoal(start.x, start.y)) {
+            List<Point> path = new ArrayList<>();
+            path.add(new Point(start));
+            return path;
+        }
+
+        if (lastStart == -1) {
+            lastStart = startCell;
+            for (int d = 0; d < DX.length; d++) {
+                int x = target.x + DX[d];
+                int y = target.y + DY[d];
+                if (grid.inBounds(x, y)) {
+                    updateVertex(grid.index(x, y));
+                }
+            }
+        } else {
+            keyModifier += heuristic(lastStart, startCell);
+            lastStart = startCell;
+            findChanges();
+            // the start stands where a critter is, so it is tracked even if it is not traversable
+            updateVertex(startCell);
+        }
+
+        if (!computeShortestPath(startCell)) {
+            return null;
+        }
+        // the world does not change while a critter plans, so this is the grid the search just saw
+        trackRegions();
+        return extractPath(startCell);
+    }
+
+    /**
+     * helper method, passes every square around the search whose traversability changed since the last
+     * plan to cellChanged. Only the squares of regions whose version changed are looked at
+     */
+    private void findChanges() {
+        for (int i = 0; i < regionVersions.length; i++) {
+            int rx = regionX + i % regionColumns;
+            int ry = regionY + i / regionColumns;
+            int region = grid.region(rx * CellGrid.REGION_SIZE, ry * CellGrid.REGION_SIZE);
+            if (grid.regionVersion(region) == regionVersions[i]) {
+                continue;
+            }
+            regionVersions[i] = grid.regionVersion(region);
+            long traversable = traversable(rx, ry);
+            long changed = traversable ^ regionTraversable[i];
+            regionTraversable[i] = traversable;
+            while (changed != 0) {
+                int bit = Long.numberOfTrailingZeros(changed);
+                changed &= changed - 1;
+                cellChanged(grid.index(rx * CellGrid.REGION_SIZE + bit % CellGrid.REGION_SIZE,
+                        ry * CellGrid.REGION_SIZE + bit / CellGrid.REGION_SIZE));
+            }
+        }
+    }
+
+    /**
+     * helper method, widens the tracked regions to cover the squares in the table and the squares next
+     * to them, recording the version and traversable squares of each region added
+     */
+    private void trackRegions() {
+        int x0 = Math.max(minX - 1, 0) / CellGrid.REGION_SIZE;
+        int y0 = Math.max(minY - 1, 0) / CellGrid.REGION_SIZE;
+        int x1 = Math.min(maxX + 1, grid.width() - 1) / CellGrid.REGION_SIZE;
+        int y1 = Math.min(maxY + 1, grid.height() - 1) / CellGrid.REGION_SIZE;
+        if (regionVersions.length > 0) {
+            // the search never shrinks, so neither do the regions around it
+            x0 = Math.min(x0, regionX);
+            y0 = Math.min(y0, regionY);
+            x1 = Math.max(x1, regionX + regionColumns - 1);
+            y1 = Math.max(y1, regionY + regionRows - 1);
+            if (x0 == regionX && y0 == regionY && x1 - x0 + 1 == regionColumns && y1 - y0 + 1 == regionRows) {
+                return;
+            }
+        }
+        int columns = x1 - x0 + 1;
+        int rows = y1 - y0 + 1;
+        int[] versions = new int[columns * rows];
+        long[] traversable = new long[columns * rows];
+        for (int ry = y0; ry <= y1; ry++) {
+            for (int rx = x0; rx <= x1; rx++) {
+                int i = (ry - y0) * columns + rx - x0;
+                if (regionVersions.length > 0 && rx >= regionX && rx < regionX + regionColumns
+                        && ry >= regionY && ry < regionY + regionRows) {
+                    int old = (ry - regionY) * regionColumns + rx - regionX;
+                    versions[i] = regionVersions[old];
+                    traversable[i] = regionTraversable[old];
+                } else {
+                    versions[i] = grid.regionVersion(grid.region(rx * CellGrid.REGION_SIZE,
+                            ry * CellGrid.REGION_SIZE));
+                    traversable[i] = traversable(rx, ry);
+                }
+            }
+        }
+        regionX = x0;
+        regionY = y0;
+        regionColumns = columns;
+        regionRows = rows;
+        regionVersions = versions;
+        regionTraversable = traversable;
+    }
+
+    /**
+     * helper method, returns which squares of the region in column "rx" and row "ry" are traversable,
+     * one bit per square
+     */
+    private long traversable(int rx, int ry) {
+        long bits = 0;
+        for (int dy = 0; dy < CellGrid.REGION_SIZE; dy++) {
+            for (int dx = 0; dx < CellGrid.REGION_SIZE; dx++) {
+                if (grid.isTraversable(rx * CellGrid.REGION_SIZE + dx, ry * CellGrid.REGION_SIZE + dy)) {
+                    bits |= 1L << (dy * CellGrid.REGION_SIZE + dx);
+                }
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * helper method, takes a change of the traversability of "cell" into account: the squares that can
+     * step onto it, and the cell itself if it is a goal, need a new lookahead. Squares the search has
+     * never touched are left alone, since all their neighbors are still out of reach
+     */
+    private void cellChanged(int cell) {
+        int x = grid.x(cell);
+        int y = grid.y(cell);
+        if (x < minX - 1 || x > maxX + 1 || y < minY - 1 || y > maxY + 1) {
+            return;
+        }
+        if (slot(cell) >= 0 || isGoal(x, y)) {
+            updateVertex(cell);
+        }
+        for (int d = 0; d < DX.length; d++) {
+            int nx = x + DX[d];
+            int ny = y + DY[d];
+            if (grid.inBounds(nx, ny)) {
+                int neighbor = grid.index(nx, ny);
+                if (slot(neighbor) >= 0) {
+                    updateVertex(neighbor);
+                }
+            }
+        }
+    }
+
+    /**
+     * helper method, the main loop of D* Lite: expands squares until the start's distance is known.
+     * Returns false if that took more than the expansion limit
+     */
+    private boolean computeShortestPath(int startCell) {
+        int count = 0;
+        while (true) {
+            dropStale();
+            if (heapSize == 0) {
+                return true;
+            }
+            long top = heapKeys[0];
+            int startSlot = slotFor(startCell);
+            if (top >= key(startSlot) && rhs[startSlot] == g[startSlot]) {
+                return true;
+            }
+            int cell = heapCells[0];
+            pop();
+            int slot = slot(cell);
+            queued[slot] = -1;
+            long newKey = key(slot);
+            if (top < newKey) {
+                push(slot, newKey);
+                continue;
+            }
+            if (++count > expansionLimit) {
+                return false;
+            }
+            expansions++;
+            if (g[slot] > rhs[slot]) {
+                g[slot] = rhs[slot];
+            } else {
+                g[slot] = INFINITY;
+                updateVertex(cell);
+            }
+            updatePredecessors(cell);
+        }
+    }
+
+    /**
+     * helper method, updates the lookahead of every square that could step onto "cell"
+     */
+    private void updatePredecessors(int cell) {
+        int x = grid.x(cell);
+        int y = grid.y(cell);
+        for (int d = 0; d < DX.length; d++) {
+            int nx = x + DX[d];
+            int ny = y + DY[d];
+            if (grid.inBounds(nx, ny)) {
+                int neighbor = grid.index(nx, ny);
+                // only the start is tracked while blocked, since nothing else can step from a blocked square
+                if (neighbor == lastStart || grid.isTraversable(nx, ny)) {
+                    updateVertex(neighbor);
+                }
+            }
+        }
+    }
+
+    /**
+     * helper method, recomputes the lookahead of "cell" and puts it into the open set if it no longer
+     * matches its distance, or takes it out if it does
+     */
+    private void updateVertex(int cell) {
+        int slot = slotFor(cell);
+        int x = grid.x(cell);
+        int y = grid.y(cell);
+        if (isGoal(x, y)) {
+            rhs[slot] = grid.isTraversable(x, y) ? 0 : INFINITY;
+        } else {
+            int best = INFINITY;
+            for (int d = 0; d < DX.length; d++) {
+                int nx = x + DX[d];
+                int ny = y + DY[d];
+                if (grid.isTraversable(nx, ny)) {
+                    best = Math.min(best, distance(grid.index(nx, ny)) + 1);
+                }
+            }
+            rhs[slot] = Math.min(best, INFINITY);
+        }
+        if (g[slot] != rhs[slot]) {
+            long key = key(slot);
+            if (queued[slot] != key) {
+                push(slot, key);
+            }
+        } else {
+            queued[slot] = -1;
+        }
+    }
+
+    /**
+     * helper method, follows the distances down from the start to the goal. Returns an empty list if
+     * the start cannot reach the goal, or null if the distances have a gap
+     */
+    private List<Point> extractPath(int startCell) {
+        List<Point> path = new ArrayList<>();
+        int cell = startCell;
+        int distance = distance(cell);
+        if (distance >= INFINITY) {
+            return path;
+        }
+        path.add(new Point(grid.x(cell), grid.y(cell)));
+        while (distance > 0) {
+            int x = grid.x(cell);
+            int y = grid.y(cell);
+            int next = -1;
+            for (int d = 0; d < DX.length; d++) {
+                int nx = x + DX[d];
+                int ny = y + DY[d];
+                if (grid.isTraversable(nx, ny) && distance(grid.index(nx, ny)) < distance) {
+                    next = grid.index(nx, ny);
+                    distance = distance(next);
+                }
+            }
+            if (next == -1) {
+                return null;
+            }
+            cell = next;
+            path.add(new Point(grid.x(cell), grid.y(cell)));
+        }
+        return path;
+    }
+
+    /**
+     * helper method, returns whether (x, y) is next to the target
+     */
+    private boolean isGoal(int x, int y) {
+        return Math.abs(x - target.x) <= 1 && Math.abs(y - target.y) <= 1 && !(x == target.x && y == target.y);
+    }
+
+    /**
+     * helper method, the number of moves between two cells if nothing were in the way
+     */
+    private int heuristic(int from, int to) {
+        return Math.max(Math.abs(grid.x(from) - grid.x(to)), Math.abs(grid.y(from) - grid.y(to)));
+    }
+
+    /**
+     * helper method, returns the D* Lite key of the square in "slot", packed so that comparing the longs
+     * compares the keys
+     */
+    private long key(int slot) {
+        int distance = Math.min(g[slot], rhs[slot]);
+        long first = (long) distance + heuristic(lastStart, cells[slot] - 1) + keyModifier;
+        return first << 32 | distance;
+    }
+
+    /**
+     * helper method, returns the distance g of "cell", INFINITY if the search has not touched it
+     */
+    private int distance(int cell) {
+        int slot = slot(cell);
+        return slot < 0 ? INFINITY : g[slot];
+    }
+
+    /**
+     * helper method, returns the slot of "cell" in the table, or -1 if it is not there
+     */
+    private int slot(int cell) {
+        int mask = cells.length - 1;
+        for (int slot = hash(cell) & mask; ; slot = (slot + 1) & mask) {
+            if (cells[slot] == 0) {
+                return -1;
+            }
+            if (cells[slot] == cell + 1) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * helper method, returns the slot of "cell" in the table, adding it out of reach if it is not there
+     */
+    private int slotFor(int cell) {
+        int slot = slot(cell);
+        if (slot >= 0) {
+            return slot;
+        }
+        if ((size + 1) * 2 > cells.length) {
+            grow();
+        }
+        int mask = cells.length - 1;
+        slot = hash(cell) & mask;
+        while (cells[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        cells[slot] = cell + 1;
+        minX = Math.min(minX, grid.x(cell));
+        minY = Math.min(minY, grid.y(cell));
+        maxX = Math.max(maxX, grid.x(cell));
+        maxY = Math.max(maxY, grid.y(cell));
+        g[slot] = INFINITY;
+        rhs[slot] = INFINITY;
+        queued[slot] = -1;
+        size++;
+        return slot;
+    }
+
+    /**
+     * helper method, doubles the table. Heap entries hold cells rather than slots, so they stay valid
+     */
+    private void grow() {
+        int[] oldCells = cells;
+        int[] oldG = g;
+        int[] oldRhs = rhs;
+        long[] oldQueued = queued;
+        cells = new int[oldCells.length * 2];
+        g = new int[oldCells.length * 2];
+        rhs = new int[oldCells.length * 2];
+        queued = new long[oldCells.length * 2];
+        int mask = cells.length - 1;
+        for (int i = 0; i < oldCells.length; i++) {
+            if (oldCells[i] != 0) {
+                int slot = hash(oldCells[i] - 1) & mask;
+                while (cells[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                cells[slot] = oldCells[i];
+                g[slot] = oldG[i];
+                rhs[slot] = oldRhs[i];
+                queued[slot] = oldQueued[i];
+            }
+        }
+    }
+
+    /**
+     * helper method, spreads the bits of a cell index
+     */
+    private static int hash(int cell) {
+        int h = cell * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * helper method, pops heap entries that are no longer their cell's queued key
+     */
+    private void dropStale() {
+        while (heapSize > 0 && queued[slot(heapCells[0])] != heapKeys[0]) {
+            pop();
+        }
+    }
+
+    /**
+     * helper method, queues the square in "slot" with "key", leaving any older entry to go stale
+     */
+    private void push(int slot, long key) {
+        queued[slot] = key;
+        if (heapSize == heapKeys.length) {
+            heapKeys = Arrays.copyOf(heapKeys, heapSize * 2);
+            heapCells = Arrays.copyOf(heapCells, heapSize * 2);
+        }
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (heapKeys[parent] <= key) {
+                break;
+            }
+            heapKeys[i] = heapKeys[parent];
+            heapCells[i] = heapCells[parent];
+            i = parent;
+        }
+        heapKeys[i] = key;
+        heapCells[i] = cells[slot] - 1;
+    }
+
+    /**
+     * helper method, removes the top entry of the heap
+     */
+    private void pop() {
+        heapSize--;
+        long key = heapKeys[heapSize];
+        int cell = heapCells[heapSize];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]) {
+                child++;
+            }
+            if (heapKeys[child] >= key) {
+                break;
+            }
+            heapKeys[i] = heapKeys[child];
+            heapCells[i] = heapCells[child];
+            i = child;
+        }
+        heapKeys[i] = key;
+        heapCells[i] = cell;
+    }
+}
@@ -3,6 +3,7 @@ package behavior;
 import java.awt.Point;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.random.RandomGenerator;
 import model.Critter;
 import model.Critter.Orientation;
 import model.Food;
@@ -33,21 +34,26 @@ public class InteractionManager {
             Point foodPos = food.getPosition();
             WorldModel world = critter.getWorld();
 
-            List<Point> aroundFood = world.squaresAround(foodPos);
-            aroundFood.removeIf(p -> world.getCritter(p) == null);
+            // sum up the sizes of the critters on the 8 squares around the food, without allocating
+            boolean crittersAround = false;
+            double sum = 0;
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    if (dx == 0 && dy == 0) {
+                        continue;
+                    }
+                    Critter other = world.getCritterAt(foodPos.x + dx, foodPos.y + dy);
+                    if (other != null) {
+                        crittersAround = true;
+                        sum += other.getSize();
+                    }
+                }
+            }
             // ratio to be used to size advantage
             double ratio = 1;
 
-            if (!aroundFood.isEmpty()) {
-                List<Double> sizeCrittersAround = new ArrayList<>();
-                for (Point p : aroundFood) {
-                    sizeCrittersAround.add(world.getCritter(p).getSize());
-                }
-                // sum up the sizes and calculate the size advantage of this critter
-                double sum = 0;
-                for (double size : sizeCrittersAround) {
-                    sum += size;
-                }
+            if (crittersAround) {
+                // calculate the size advantage of this critter
                 ratio = critter.getSize()/sum;
 
                 // if this critter is the largest, it gets all the food, otherwise it gets nothing
@@ -76,10 +82,8 @@ public class InteractionManager {
             );
             critter.setHealth(newHealth);
 
-            // Remove the food and update the world
+            // Remove the food, which also updates its cell in the world array
             world.removeFood(food.getPosition());
-            world.getDirtyCells().add(food.getPosition());
-            world.updateWorldArray();
 
             return critter.getHunger();
         }
@@ -171,10 +175,6 @@ public class InteractionManager {
         double hungerUsed =  (world.getBASE_MOVE_COST() + distance * world.getMOVE_COST() * Math.pow(critter.getSize(), world.getSIZE_COST()));
         critter.setHunger(Math.max(critter.getHunger() - hungerUsed, 0));
 
-        // Update world array
-        world.getDirtyCells().add(critter.getPosition());
-        world.updateWorldArray();
-
         return critter.getPosition();
     }
 
@@ -182,8 +182,9 @@ public class InteractionManager {
      * Creates and returns a new critter based its parent's attributes
      * the critter should have at least one empty square around it to reproduce
      * uses up a large amount of hunger
+     * Every random choice, including the child's mutations, is drawn from "random"
      */
-    public void reproduce(Critter parent) {
+    public void reproduce(Critter parent, RandomGenerator random) {
         WorldModel world = parent.getWorld();
 
         double parentMutationRate = parent.getMutationRate();
@@ -191,20 +192,20 @@ public class InteractionManager {
         double combinedMutationRate = parentMutationRate + baseMutationRate;
 
         // Mutate traits based on the combined mutation rate
-        int maxAge = (int) Math.min(Math.round(mutateTrait((double) parent.getMaxAge(), combinedMutationRate)), 2000);
-        double maxHunger = Math.min(mutateTrait(parent.getMaxHunger(), combinedMutationRate), 100);
-        double maxThirst = Math.min(mutateTrait(parent.getMaxThirst(), combinedMutationRate), 100);
-        double size = Math.min(mutateTrait(parent.getSize(), combinedMutationRate), 100);
-        double maxHealth = Math.min(mutateTrait(parent.getMaxHealth(), combinedMutationRate), 100);
-        double offense = Math.min(mutateTrait(parent.getOffense(), combinedMutationRate), 100);
-        double defense = Math.min(mutateTrait(parent.getDefense(), combinedMutationRate), 100);
-        double aggression = Math.min(mutateTrait(parent.getAggression(), combinedMutationRate), 100);
-        double mutationRate = mutateTrait(parent.getMutationRate(), combinedMutationRate);
-        int vision = (int) Math.round(mutateTrait(parent.getVision(), combinedMutationRate));
+        int maxAge = (int) Math.min(Math.round(mutateTrait((double) parent.getMaxAge(), combinedMutationRate, random)), 2000);
+        double maxHunger = Math.min(mutateTrait(parent.getMaxHunger(), combinedMutationRate, random), 100);
+        double maxThirst = Math.min(mutateTrait(parent.getMaxThirst(), combinedMutationRate, random), 100);
+        double size = Math.min(mutateTrait(parent.getSize(), combinedMutationRate, random), 100);
+        double maxHealth = Math.min(mutateTrait(parent.getMaxHealth(), combinedMutationRate, random), 100);
+        double offense = Math.min(mutateTrait(parent.getOffense(), combinedMutationRate, random), 100);
+        double defense = Math.min(mutateTrait(parent.getDefense(), combinedMutationRate, random), 100);
+        double aggression = Math.min(mutateTrait(parent.getAggression(), combinedMutationRate, random), 100);
+        double mutationRate = mutateTrait(parent.getMutationRate(), combinedMutationRate, random);
+        int vision = (int) Math.round(mutateTrait(parent.getVision(), combinedMutationRate, random));
 
         if (!emptySquares(parent).isEmpty()) {
             // first determine what square the child should be born on
-            Point birthPosition = birthPoint(parent);
+            Point birthPosition = birthPoint(parent, random);
             Critter child = new Critter(
                     parent.getAi(),
                     parent.getInteractionManager(),
@@ -221,15 +222,16 @@ public class InteractionManager {
                     aggression,
                     mutationRate,
                     vision,
-                    parent.getWorld()
+                    parent.getWorld(),
+                    parent.brain().genome()
             );
 
-            child.setBrain(parent.brain());
-            child.brain().mutate();
+            // the child starts out sharing the parent's genome, and mutating only copies what changes
+            child.brain().mutate(random);
+            child.setSpecies(world.speciesRegistry().assign(child.brain().genome(), parent.species()));
 
             // then add the critter to the world
             parent.getWorld().addCritter(child);
-            parent.getWorld().getDirtyCells().add(child.getPosition());
         }
         parent.setHunger(world.getBASE_REPRODUCTION_COST() * parent.getMaxHunger());
     }
@@ -238,11 +240,10 @@ public class InteractionManager {
      * Mutates a given trait
      * helper method for reproduce
      */
-    private double mutateTrait(double trait, double mutationRate) {
-        double random = Math.random();
-        if (random < mutationRate) {
-            double change = Math.random() / 5;
-            return (Math.random() < 0.5) ? trait * (1 - change) : trait * (1 + change);
+    private double mutateTrait(double trait, double mutationRate, RandomGenerator random) {
+        if (random.nextDouble() < mutationRate) {
+            double change = random.nextDouble() / 5;
+            return (random.nextDouble() < 0.5) ? trait * (1 - change) : trait * (1 + change);
         }
         return trait;
     }
@@ -274,15 +275,18 @@ public class InteractionManager {
         Point currentPos = critter.getPosition();
         WorldModel world = critter.getWorld();
         critter.getWorld().removeCritter(critter.getPosition());
+        if (critter.species() != null) {
+            world.speciesRegistry().remove(critter.species());
+            critter.setSpecies(null);
+        }
         Food newFood = new Food(currentPos, (int) (critter.getSize() * 2), 0);
         world.addFood(newFood);
-        world.getDirtyCells().add(critter.getPosition());
     }
 
     /**
      * private helper method to calculate where the child should be born
      */
-    private Point birthPoint(Critter critter) {
+    private Point birthPoint(Critter critter, RandomGenerator random) {
         WorldModel world = critter.getWorld();
         Point position = critter.getPosition();
         Orientation orientation = critter.getOrientation();
@@ -306,13 +310,13 @@ public class InteractionManager {
         // check if the new position is within world bounds or if it is already taken up
         if (childX >= 0 && childX < world.getWidth() &&
                 childY >= 0 && childY < world.getHeight() &&
-                world.getWorldArray()[childX][childY] == CellState.GRASS) {
+                world.getCell(childX, childY) == CellState.GRASS) {
             return birthPos;
         }
 
         // otherwise, choose any random empty square around the parent
         List<Point> emptySquares = emptySquares(critter);
-        int randomNum = (int) (Math.random() * emptySquares.size());
+        int randomNum = random.nextInt(emptySquares.size());
         return emptySquares.get(randomNum);
     }
 
@@ -337,7 +341,7 @@ public class InteractionManager {
         emptySquares.removeIf(p ->
                 p.x < 0 || p.x >= critter.getWorld().getWidth() ||
                         p.y < 0 || p.y >= critter.getWorld().getHeight() ||
-                        critter.getWorld().getWorldArray()[p.x][p.y] != CellState.GRASS
+                        critter.getWorld().getCell(p.x, p.y) != CellState.GRASS
         );
 
         return emptySquares;
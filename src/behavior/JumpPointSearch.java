@@ -0,0 +1,211 @@
+package behavior;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import model.CellGrid;
+
+/**
+ * Jump Point Search (Harabor and Grastien, 2011) for Pathfinder.Strategy.JUMP_POINT.
+ * Critters move in 8 directions, diagonals included, and every move costs the same. On such a grid most
+ * shortest paths have many twins that differ only in the order of their moves, and A* expands them
+ * all. JPS only expands the cells where a shortest path may have to turn: from each expanded cell it
+ * scans along the few directions that a shortest path could continue in, and stops at a cell that has a
+ * forced neighbor (one next to an obstacle, which cannot be reached as cheaply any other way), or at a
+ * goal. Across open grassland that skips almost every cell.
+ * As in Pathfinder's A*, the goal is any square next to the target, diagonal moves may pass between two
+ * blocked squares, and the start square itself may be blocked (the critter stands on it). The returned
+ * path lists every square, so it can be followed one step at a time, and has the fewest moves possible.
+ */
+final class JumpPointSearch {
+    /**
+     * Offsets of the eight neighbors of a square
+     */
+    private static final int[] DX = {0, 0, 1, -1, 1, 1, -1, -1};
+    private static final int[] DY = {-1, 1, 0, 0, 1, -1, 1, -1};
+
+    private final CellGrid grid;
+    private final Point target;
+    private final SearchContext search;
+
+    /**
+     * The number of cells expanded so far, i.e. taken off the open set
+     */
+    private int expansions;
+
+    /**
+     * Prepares a search on "grid" for a path to next to "target", using this thread's SearchContext
+     */
+    JumpPointSearch(CellGrid grid, Point target) {
+        this.grid = grid;
+        this.target = target;
+        this.search = SearchContext.get(grid.size());
+    }
+
+    /**
+     * Returns the number of cells this search has expanded
+     */
+    int expansions() {
+        return expansions;
+    }
+
+    /**
+     * Returns a shortest path from "start" to a traversable square next to the target, or an empty list
+     * if there is none. Requires "start" to be on the grid
+     */
+    List<Point> findPath(Point start) {
+        int startCell = grid.index(start.x, start.y);
+        search.discover(startCell, 0, -1);
+        search.push(startCell, heuristic(start.x, start.y));
+        while (!search.isEmpty()) {
+            int current = search.pop();
+            if (search.close(current)) {
+                continue;
+            }
+            expansions++;
+            int x = grid.x(current);
+            int y = grid.y(current);
+            if (isGoal(x, y)) {
+                return reconstructPath(current);
+            }
+
+            int parent = search.parent(current);
+            if (parent == -1) {
+                for (int d = 0; d < DX.length; d++) {
+                    jumpFrom(current, x, y, DX[d], DY[d]);
+                }
+                continue;
+            }
+            int dx = Integer.signum(x - grid.x(parent));
+            int dy = Integer.signum(y - grid.y(parent));
+            if (dx != 0 && dy != 0) {
+                jumpFrom(current, x, y, dx, 0);
+                jumpFrom(current, x, y, 0, dy);
+                jumpFrom(current, x, y, dx, dy);
+                if (!open(x - dx, y)) {
+                    jumpFrom(current, x, y, -dx, dy);
+                }
+                if (!open(x, y - dy)) {
+                    jumpFrom(current, x, y, dx, -dy);
+                }
+            } else if (dx != 0) {
+                jumpFrom(current, x, y, dx, 0);
+                if (!open(x, y + 1)) {
+                    jumpFrom(current, x, y, dx, 1);
+                }
+                if (!open(x, y - 1)) {
+                    jumpFrom(current, x, y, dx, -1);
+                }
+            } else {
+                jumpFrom(current, x, y, 0, dy);
+                if (!open(x + 1, y)) {
+                    jumpFrom(current, x, y, 1, dy);
+                }
+                if (!open(x - 1, y)) {
+                    jumpFrom(current, x, y, -1, dy);
+                }
+            }
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * helper method, jumps from "cell" at (x, y) in direction (dx, dy) and records the jump point it
+     * lands on, if it is a cheaper way there
+     */
+    private void jumpFrom(int cell, int x, int y, int dx, int dy) {
+        int jumpPoint = jump(x, y, dx, dy);
+        if (jumpPoint == -1) {
+            return;
+        }
+        int jx = grid.x(jumpPoint);
+        int jy = grid.y(jumpPoint);
+        double cost = search.cost(cell) + Math.max(Math.abs(jx - x), Math.abs(jy - y));
+        if (!search.discovered(jumpPoint) || cost < search.cost(jumpPoint)) {
+            search.discover(jumpPoint, cost, cell);
+            search.push(jumpPoint, cost + heuristic(jx, jy));
+        }
+    }
+
+    /**
+     * helper method, steps from (x, y) in direction (dx, dy) until it reaches a jump point, and returns
+     * its cell, or -1 if it runs into an obstacle first
+     */
+    private int jump(int x, int y, int dx, int dy) {
+        while (true) {
+            x += dx;
+            y += dy;
+            if (!open(x, y)) {
+                return -1;
+            }
+            if (isGoal(x, y)) {
+                return grid.index(x, y);
+            }
+            if (dx != 0 && dy != 0) {
+                if ((open(x - dx, y + dy) && !open(x - dx, y)) || (open(x + dx, y - dy) && !open(x, y - dy))) {
+                    return grid.index(x, y);
+                }
+                // a diagonal step is a jump point if a straight scan from it finds one
+                if (jump(x, y, dx, 0) != -1 || jump(x, y, 0, dy) != -1) {
+                    return grid.index(x, y);
+                }
+            } else if (dx != 0) {
+                if ((open(x + dx, y + 1) && !open(x, y + 1)) || (open(x + dx, y - 1) && !open(x, y - 1))) {
+                    return grid.index(x, y);
+                }
+            } else {
+                if ((open(x + 1, y + dy) && !open(x + 1, y)) || (open(x - 1, y + dy) && !open(x - 1, y))) {
+                    return grid.index(x, y);
+                }
+            }
+        }
+    }
+
+    /**
+     * helper method, returns whether a critter can step onto (x, y)
+     */
+    private boolean open(int x, int y) {
+        return grid.isTraversable(x, y);
+    }
+
+    /**
+     * helper method, returns whether (x, y) is next to the target
+     */
+    private boolean isGoal(int x, int y) {
+        return Math.abs(x - target.x) <= 1 && Math.abs(y - target.y) <= 1 && !(x == target.x && y == target.y);
+    }
+
+    /**
+     * helper method, the number of moves from (x, y) to the nearest square next to the target, if
+     * nothing were in the way
+     */
+    private double heuristic(int x, int y) {
+        return Math.max(Math.max(Math.abs(x - target.x), Math.abs(y - target.y)) - 1, 0);
+    }
+
+    /**
+     * helper method, lists every square from the start to "cell", filling in the straight and diagonal
+     * runs between consecutive jump points
+     */
+    private List<Point> reconstructPath(int cell) {
+        List<Point> path = new ArrayList<>();
+        for (int current = cell; current != -1; current = search.parent(current)) {
+            int x = grid.x(current);
+            int y = grid.y(current);
+            path.add(new Point(x, y));
+            int parent = search.parent(current);
+            if (parent != -1) {
+                int px = grid.x(parent);
+                int py = grid.y(parent);
+                int dx = Integer.signum(px - x);
+                int dy = Integer.signum(py - y);
+                for (x += dx, y += dy; x != px || y != py; x += dx, y += dy) {
+                    path.add(new Point(x, y));
+                }
+            }
+        }
+        Collections.reverse(path);
+        return path;
+    }
+}
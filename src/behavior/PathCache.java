@@ -0,0 +1,313 @@
+package behavior;
+
+import datastructures.LongHashMap;
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import model.CellGrid;
+
+/**
+ * A bounded cache of planned paths, shared by every critter in a world, see Pathfinder.
+ * Each entry remembers the regions of the grid its path passes through (see CellGrid.regionVersion) and
+ * their versions when it was planned. A lookup only returns the path if none of those regions changed
+ * since, so a path goes stale when something moves into, out of or next to its corridor, and not when
+ * something changes on the other side of the world.
+ * Entries are evicted with the CLOCK algorithm: each lookup hit marks its entry, and when a new entry
+ * needs room the clock hand sweeps over the entries, clearing marks, until it finds an unmarked one.
+ * Stale entries are never marked, so they are the first to go.
+ * Critters plan their paths in parallel, so the cache is split into segments by key, each with its own
+ * lock, table and clock. Region versions only change in the serial commit phase.
+ * While critters plan in parallel, new entries are held back (see deferPuts) and only cached afterwards,
+ * each segment's in order of key. So the entries a lookup can find, and the ones that get evicted, never
+ * depend on the order the threads happened to plan in.
+ * Paths are cached per Pathfinder.Strategy, so a pathfinder never gets a path another strategy planned.
+ */
+public class PathCache {
+    /**
+     * The default number of entries, and the number of segments
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 14;
+    private static final int SEGMENTS = 16;
+
+    /**
+     * A cached path from start to target, stored as cell indices, and its slot in the clock ring
+     */
+    private static final class Entry {
+        final long key;
+        final int[] cells;
+        final int[] regions;
+        final int[] versions;
+        boolean referenced;
+        int slot;
+
+        Entry(long key, int[] cells, int[] regions, int[] versions) {
+            this.key = key;
+            this.cells = cells;
+            this.regions = regions;
+            this.versions = versions;
+        }
+    }
+
+    /**
+     * One lock's worth of the cache: its entries by key, and the clock ring they sit in
+     */
+    private static final class Segment {
+        final LongHashMap<Entry> entries = new LongHashMap<>();
+        final List<Entry> deferred = new ArrayList<>();
+        final Entry[] ring;
+        int hand;
+        int count;
+
+        Segment(int capacity) {
+            this.ring = new Entry[capacity];
+        }
+    }
+
+    /**
+     * The grid whose regions the paths are checked against
+     */
+    private final CellGrid grid;
+
+    private final Segment[] segments;
+
+    /**
+     * Whether put holds new entries back instead of caching them, see deferPuts
+     */
+    private volatile boolean deferring;
+
+    /**
+     * Metrics: lookups that returned a path, lookups that did not (including stale entries), entries
+     * found stale, and entries evicted to make room
+     */
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Constructs a cache of up to DEFAULT_CAPACITY paths on "grid"
+     */
+    public PathCache(CellGrid grid) {
+        this(grid, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a cache of up to "capacity" paths on "grid", rounded up to a multiple of the number of
+     * segments
+     */
+    public PathCache(CellGrid grid, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive, got " + capacity);
+        }
+        this.grid = grid;
+        this.segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment((capacity + SEGMENTS - 1) / SEGMENTS);
+        }
+    }
+
+    /**
+     * Returns a new list holding the path from "start" to "target" cached for "strategy", or null if
+     * there is none or part of its corridor changed since it was planned
+     */
+    public List<Point> get(Point start, Point target, Pathfinder.Strategy strategy) {
+        long key = key(start, target, strategy);
+        Segment segment = segment(key);
+        int[] cells;
+        synchronized (segment) {
+            Entry entry = segment.entries.get(key);
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            if (!current(entry)) {
+                misses.increment();
+                invalidations.increment();
+                return null;
+            }
+            entry.referenced = true;
+            cells = entry.cells;
+        }
+        hits.increment();
+        List<Point> path = new ArrayList<>(cells.length);
+        for (int cell : cells) {
+            path.add(new Point(grid.x(cell), grid.y(cell)));
+        }
+        return path;
+    }
+
+    /**
+     * Caches "path" from "start" to "target", planned with "strategy", tagged with the current versions
+     * of the regions it passes through and the target's region. Every point of the path must be on the
+     * grid. Between deferPuts and applyDeferred the path is only cached by applyDeferred
+     */
+    public void put(Point start, Point target, Pathfinder.Strategy strategy, List<Point> path) {
+        int[] cells = new int[path.size()];
+        int[] regions = new int[path.size() + 1];
+        int regionCount = 0;
+        for (int i = 0; i < cells.length; i++) {
+            Point p = path.get(i);
+            cells[i] = grid.index(p.x, p.y);
+            regionCount = addRegion(regions, regionCount, grid.region(p.x, p.y));
+        }
+        if (grid.inBounds(target.x, target.y)) {
+            regionCount = addRegion(regions, regionCount, grid.region(target.x, target.y));
+        }
+        regions = Arrays.copyOf(regions, regionCount);
+        int[] versions = new int[regionCount];
+        for (int i = 0; i < regionCount; i++) {
+            versions[i] = grid.regionVersion(regions[i]);
+        }
+
+        long key = key(start, target, strategy);
+        Entry entry = new Entry(key, cells, regions, versions);
+        Segment segment = segment(key);
+        synchronized (segment) {
+            if (deferring) {
+                segment.deferred.add(entry);
+            } else {
+                insert(segment, entry);
+            }
+        }
+    }
+
+    /**
+     * Holds back every entry put from now on until applyDeferred, so that the cache does not change
+     * while critters plan in parallel
+     */
+    public void deferPuts() {
+        deferring = true;
+    }
+
+    /**
+     * Caches the entries held back since deferPuts, each segment's in order of key, and caches entries
+     * as they are put again. Must not run while anything else uses the cache
+     */
+    public void applyDeferred() {
+        deferring = false;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                // two entries with the same key planned the same path on the same world, so their order
+                // does not matter
+                segment.deferred.sort((a, b) -> Long.compare(a.key, b.key));
+                for (Entry entry : segment.deferred) {
+                    insert(segment, entry);
+                }
+                segment.deferred.clear();
+            }
+        }
+    }
+
+    /**
+     * helper method, caches "entry" in "segment", evicting an entry if the segment is full. The caller
+     * holds the segment's lock
+     */
+    private void insert(Segment segment, Entry entry) {
+        Entry old = segment.entries.put(entry.key, entry);
+        if (old != null) {
+            entry.slot = old.slot;
+        } else if (segment.count < segment.ring.length) {
+            entry.slot = segment.count++;
+        } else {
+            // sweep until an entry that has not been used since the last sweep comes up
+            while (segment.ring[segment.hand].referenced) {
+                segment.ring[segment.hand].referenced = false;
+                segment.hand = (segment.hand + 1) % segment.ring.length;
+            }
+            segment.entries.remove(segment.ring[segment.hand].key);
+            entry.slot = segment.hand;
+            segment.hand = (segment.hand + 1) % segment.ring.length;
+            evictions.increment();
+        }
+        segment.ring[entry.slot] = entry;
+    }
+
+    /**
+     * Returns the number of cached paths
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * getters for the metrics
+     */
+    public long hits() { return hits.sum(); }
+    public long misses() { return misses.sum(); }
+    public long invalidations() { return invalidations.sum(); }
+    public long evictions() { return evictions.sum(); }
+
+    /**
+     * Returns the fraction of lookups that returned a path, 0 if there have been none
+     */
+    public double hitRate() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    /**
+     * Resets the metrics to 0
+     */
+    public void resetMetrics() {
+        hits.reset();
+        misses.reset();
+        invalidations.reset();
+        evictions.reset();
+    }
+
+    /**
+     * helper method, returns whether none of the regions "entry" passes through changed since it was
+     * cached
+     */
+    private boolean current(Entry entry) {
+        for (int i = 0; i < entry.regions.length; i++) {
+            if (grid.regionVersion(entry.regions[i]) != entry.versions[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * helper method, appends "region" to the first "count" regions unless it is already there. Paths
+     * are contiguous, so a repeat is almost always one of the last few
+     */
+    private static int addRegion(int[] regions, int count, int region) {
+        for (int i = count - 1; i >= 0; i--) {
+            if (regions[i] == region) {
+                return count;
+            }
+        }
+        regions[count] = region;
+        return count + 1;
+    }
+
+    /**
+     * helper method, packs the coordinates of both points and the strategy into one key. Each coordinate
+     * takes 15 bits of a 16 bit field, which covers any world the simulation runs, and the strategy's
+     * two bits take the spare top bits of the target's fields
+     */
+    private static long key(Point start, Point target, Pathfinder.Strategy strategy) {
+        int ordinal = strategy.ordinal();
+        return ((long) (start.x & 0x7FFF) << 48) | ((long) (start.y & 0x7FFF) << 32)
+                | ((long) ((ordinal >> 1) << 15 | target.x & 0x7FFF) << 16)
+                | ((ordinal & 1) << 15 | target.y & 0x7FFF);
+    }
+
+    /**
+     * helper method, returns the segment that holds "key"
+     */
+    private Segment segment(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return segments[(int) (h >>> 60)];
+    }
+}
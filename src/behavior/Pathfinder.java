@@ -1,21 +1,20 @@
 package behavior;
 
 
-import datastructures.HeapMinQueue;
 import java.awt.Point;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import model.CellGrid;
 import model.Food;
 import model.WorldModel;
 import model.WorldModel.CellState;
 
 /**
  * Finds the shortest path from one point to another. Used in critter pathfinding
+ * Planned paths are kept in the world's PathCache, which every pathfinder on the world shares, apart for
+ * each strategy
  */
 public class Pathfinder {
     /**
@@ -23,86 +22,223 @@ public class Pathfinder {
      */
     private final static int DIRECT_PATHING_THRESHOLD = 5;
 
+    /**
+     * Offsets of the eight neighbors of a square, in the order of WorldModel.squaresAround
+     */
+    private static final int[] NEIGHBOR_DX = {0, 0, 1, -1, 1, 1, -1, -1};
+    private static final int[] NEIGHBOR_DY = {-1, 1, 0, 0, 1, -1, 1, -1};
+
     /**
      * The world that this pathfinder operates on
      */
     private final WorldModel world;
 
     /**
-     * A cache of paths to improve performance
+     * The world's cache of paths, shared with every other pathfinder on the world
      */
-    private final Map<PathKey, List<Point>> pathCache = new ConcurrentHashMap<>();
-    private final static int CACHE_SIZE = 1000;
+    private final PathCache pathCache;
 
     /**
      * Creates a new pathfinder
      */
     public Pathfinder(WorldModel world) {
         this.world = world;
+        this.pathCache = world != null ? world.getPathCache() : null;
+    }
+
+    /**
+     * Ways of planning a path
+     * ASTAR searches the grid cell by cell.
+     * HIERARCHICAL plans paths longer than a cluster over a ClusterGraph of the terrain, and only
+     * searches cell by cell up to the first entrance out of the start's cluster. The rest of the path is
+     * the entrances it passes through, which is enough for a critter, since it only takes the first step
+     * and plans again next turn.
+     * JUMP_POINT runs Jump Point Search, which skips the many equally short ways across open ground and
+     * expands far fewer cells than ASTAR. Its paths have the fewest moves possible, so they are never
+     * longer than ASTAR's
+     */
+    public enum Strategy { ASTAR, HIERARCHICAL, JUMP_POINT }
+
+    /**
+     * How paths are planned
+     */
+    private volatile Strategy strategy = Strategy.ASTAR;
+
+    /**
+     * The abstract graph for HIERARCHICAL, built the first time it is needed
+     */
+    private ClusterGraph clusters;
+
+    /**
+     * The number of cells expanded by this pathfinder's searches, see expansions
+     */
+    private final LongAdder expansions = new LongAdder();
+
+    /**
+     * getter and setter for the strategy
+     */
+    public Strategy getStrategy() { return strategy; }
+    public void setStrategy(Strategy strategy) { this.strategy = strategy; }
+
+    /**
+     * Returns the number of cells taken off the open set by searches since the last resetExpansions.
+     * Paths served from the cache expand nothing
+     */
+    public long expansions() {
+        return expansions.sum();
+    }
+
+    /**
+     * Resets the expansion count
+     */
+    public void resetExpansions() {
+        expansions.reset();
     }
 
     /**
      * Finds the optimal path from the start node to the final node using the A* search algorithm
      * Returns an empty list if the start or target node is not a valid node
+     * The path starts at "start" and otherwise moves one square at a time, except with HIERARCHICAL for
+     * a far target: then only the part up to the first entrance out of the start's cluster is cell by
+     * cell, and the rest is the entrances, which can be a cluster apart. Such paths are not cached
      */
     public List<Point> findPath(Point start, Point target) {
         // check cache first
-        PathKey key = new PathKey(start, target);
-        List<Point> cachedPath = pathCache.get(key);
+        Strategy strategy = this.strategy;
+        List<Point> cachedPath = pathCache.get(start, target, strategy);
         if (cachedPath != null) {
-            return new ArrayList<>(cachedPath);
+            return cachedPath;
+        }
+
+        // the cache only tags the regions of the listed squares, so it cannot tell when the terrain
+        // between two entrances changes
+        if (strategy == Strategy.HIERARCHICAL && isFar(start, target)) {
+            return findHierarchicalPath(start, target);
+        }
+        List<Point> path = strategy == Strategy.JUMP_POINT ? findJumpPointPath(start, target) : search(start, target);
+        if (!path.isEmpty()) {
+            pathCache.put(start, target, strategy, path);
+        }
+        return path;
+    }
+
+    /**
+     * helper method, returns whether "start" and "target" are both on the grid and further apart than
+     * a cluster, so that planning over the clusters pays off
+     */
+    private boolean isFar(Point start, Point target) {
+        CellGrid grid = world.getGrid();
+        return grid.inBounds(start.x, start.y) && grid.inBounds(target.x, target.y)
+                && Math.max(Math.abs(start.x - target.x), Math.abs(start.y - target.y))
+                > ClusterGraph.DEFAULT_CLUSTER_SIZE;
+    }
+
+    /**
+     * helper method, plans a path over the cluster graph and refines it cell by cell up to the first
+     * entrance outside the start's cluster
+     */
+    private List<Point> findHierarchicalPath(Point start, Point target) {
+        ClusterGraph graph = clusters();
+        List<Point> waypoints = graph.waypoints(start, target);
+        if (waypoints == null || waypoints.isEmpty()) {
+            return new ArrayList<>();
+        }
+        int startCluster = graph.clusterOf(start.x, start.y);
+        int first = 0;
+        while (first < waypoints.size() - 1
+                && graph.clusterOf(waypoints.get(first).x, waypoints.get(first).y) == startCluster) {
+            first++;
         }
+        // the search stops next to the entrance, which then continues the path
+        List<Point> path = search(start, waypoints.get(first));
+        if (!path.isEmpty()) {
+            path.addAll(waypoints.subList(first, waypoints.size()));
+        }
+        return path;
+    }
+
+    /**
+     * helper method, finds a path with Jump Point Search. Returns an empty list if the start is off the
+     * grid or there is no path
+     */
+    private List<Point> findJumpPointPath(Point start, Point target) {
+        CellGrid grid = world.getGrid();
+        if (!grid.inBounds(start.x, start.y)) {
+            return new ArrayList<>();
+        }
+        JumpPointSearch search = new JumpPointSearch(grid, target);
+        List<Point> path = search.findPath(start);
+        expansions.add(search.expansions());
+        return path;
+    }
+
+    /**
+     * helper method, returns the cluster graph, building it the first time
+     */
+    private synchronized ClusterGraph clusters() {
+        if (clusters == null) {
+            clusters = new ClusterGraph(world.getGrid());
+        }
+        return clusters;
+    }
 
-        // initialize frontier, visited, and start node
-        HeapMinQueue<PathNode> frontier = new HeapMinQueue<>();
-        Set<Point> visited = new HashSet<>();
-        PathNode startNode = new PathNode(start, null, 0, 0);
-        double estimatedHeuristic = calculateHeuristic(start, target);
-        frontier.addOrUpdate(startNode, estimatedHeuristic);
+    /**
+     * helper method, the A* search behind findPath: searches cell by cell until it reaches a square
+     * next to "target". Returns an empty list if there is no such path
+     */
+    private List<Point> search(Point start, Point target) {
+        // the search runs on this thread's reusable tables, indexed by cell
+        CellGrid grid = world.getGrid();
+        if (!grid.inBounds(start.x, start.y)) {
+            return new ArrayList<>();
+        }
+        double foodBonus = foodBonus(target);
+        SearchContext search = SearchContext.get(grid.size());
+        int startCell = grid.index(start.x, start.y);
+        search.discover(startCell, 0, -1);
+        search.push(startCell, heuristic(start.x, start.y, target, foodBonus));
 
         // the search loop
-        while (!frontier.isEmpty()) {
-            PathNode current = frontier.remove();
-            visited.add(current.getPosition());
+        int expanded = 0;
+        while (!search.isEmpty()) {
+            int current = search.pop();
+            expanded++;
+            int x = grid.x(current);
+            int y = grid.y(current);
 
             // if we are adjacent to our target, return the path
-            if (isAdjacent(current.getPosition(), target)) {
-                List<Point> path = reconstructPath(current);
-                if (pathCache.size() < CACHE_SIZE) {
-                    pathCache.put(key, path);
-                } else {
-                    System.out.println("cache full!");
-                }
-                return path;
+            if (isAdjacent(x, y, target)) {
+                expansions.add(expanded);
+                return reconstructPath(search, grid, current);
             }
 
             // if not, iterate through neighbors and continue loop
-            for (Point p: getNeighbors(current.getPosition())) {
-                if (visited.contains(p)) continue;
-                visited.add(p);
-
-                PathNode neighbor = new PathNode(p, current, current.getFCost() + 1, calculateHeuristic(p, target));
-
-                double dist = current.getFCost() + 1;
-                if (!neighbor.discovered() || dist < neighbor.getGCost()) {
-                    neighbor.setDiscovered(true);
-                    double estimatedCost = calculateHeuristic(neighbor.getPosition(), target);
-                    frontier.addOrUpdate(neighbor, dist + estimatedCost);
-                }
+            double dist = search.cost(current) + 1;
+            for (int i = 0; i < NEIGHBOR_DX.length; i++) {
+                int nx = x + NEIGHBOR_DX[i];
+                int ny = y + NEIGHBOR_DY[i];
+                if (!grid.isTraversable(nx, ny)) continue;
+                int neighbor = grid.index(nx, ny);
+                if (search.discovered(neighbor)) continue;
+
+                double estimatedCost = heuristic(nx, ny, target, foodBonus);
+                search.discover(neighbor, dist + estimatedCost, current);
+                search.push(neighbor, dist + estimatedCost);
             }
         }
 
         // return empty path if no path can be found
+        expansions.add(expanded);
         return new ArrayList<>();
-    }   
+    }
 
     /**
-     * Returns whether a point is adjacent to another target point
+     * Returns whether (x, y) is adjacent to the target point
      */
-    private boolean isAdjacent(Point p1, Point p2) {
-        return Math.abs(p1.x - p2.x) <= 1 &&
-                Math.abs(p1.y - p2.y) <= 1 &&
-                !(p1.x == p2.x && p1.y == p2.y);
+    private boolean isAdjacent(int x, int y, Point target) {
+        return Math.abs(x - target.x) <= 1 &&
+                Math.abs(y - target.y) <= 1 &&
+                !(x == target.x && y == target.y);
     }
 
     /**
@@ -121,12 +257,7 @@ public class Pathfinder {
 
     public boolean isValidPosition(Point p) {
         // Check if this is a valid destination point
-        return p.x >= 0 && p.x < world.getWidth() &&
-                p.y >= 0 && p.y < world.getHeight() &&
-                world.getWorldArray()[p.x][p.y] != CellState.MOUNTAIN &&
-                world.getWorldArray()[p.x][p.y] != CellState.WATER &&
-                world.getWorldArray()[p.x][p.y] != CellState.PEACEFUL_CRITTER &&
-                world.getWorldArray()[p.x][p.y] != CellState.ANGRY_CRITTER;
+        return world.getGrid().isTraversable(p.x, p.y);
     }
 
     /**
@@ -135,11 +266,10 @@ public class Pathfinder {
      * h(n) = distance - food value
      */
     public double calculateHeuristic(Point start, Point target) {
-        CellState[][] worldArray = world.getWorldArray();
         double euclidean = calculateDistance(start, target);
 
-        if (worldArray[target.x][target.y] == CellState.FOOD) {
-            Food food = world.getFood(new Point(target.x, target.y));
+        if (world.getCell(target.x, target.y) == CellState.FOOD) {
+            Food food = world.getFoodAt(target.x, target.y);
             return (euclidean) - food.getQuantity() * 0.08;
         } else {
             return (euclidean);
@@ -150,41 +280,45 @@ public class Pathfinder {
      * helper method for calculating Euclidean distance between two points
      */
     private double calculateDistance(Point p1, Point p2) {
-        int dx = Math.abs(p1.x - p2.x);
-        int dy = Math.abs(p1.y - p2.y);
-        return Math.sqrt(Math.pow(dx, 2) + Math.pow(dy, 2));
+        return distance(Math.abs(p1.x - p2.x), Math.abs(p1.y - p2.y));
     }
 
-
     /**
-     * Reconstructs the path using back pointer data stored in each pathNode
+     * helper method, returns the length of the vector (dx, dy)
      */
-    private List<Point> reconstructPath(PathNode target) {
-        List<Point> path = new ArrayList<>();
-        PathNode current = target;
+    private static double distance(int dx, int dy) {
+        return Math.sqrt(Math.pow(dx, 2) + Math.pow(dy, 2));
+    }
 
-        while (current != null) {
-            path.add(current.getPosition());
-            current = current.getParent();
+    /**
+     * helper method, returns how much calculateHeuristic takes off the distance for "target": the food's
+     * value if it is a food square, 0 otherwise
+     */
+    private double foodBonus(Point target) {
+        if (world.getCell(target.x, target.y) == CellState.FOOD) {
+            return world.getFoodAt(target.x, target.y).getQuantity() * 0.08;
         }
-        Collections.reverse(path);
-        return path;
+        return 0;
     }
 
-    private record PathKey(Point start, Point target) {
+    /**
+     * helper method, calculateHeuristic for (x, y) with the target's food bonus already looked up
+     */
+    private static double heuristic(int x, int y, Point target, double foodBonus) {
+        double euclidean = distance(Math.abs(x - target.x), Math.abs(y - target.y));
+        return foodBonus == 0 ? euclidean : euclidean - foodBonus;
+    }
 
-        @Override
-            public boolean equals(Object o) {
-                if (this == o) {
-                    return true;
-                }
-                if (!(o instanceof PathKey(Point start1, Point target1))) {
-                    return false;
-                }
-                return start.equals(start1) && target.equals(target1);
-            }
 
+    /**
+     * Reconstructs the path by following the parents stored in the search back from "cell"
+     */
+    private List<Point> reconstructPath(SearchContext search, CellGrid grid, int cell) {
+        List<Point> path = new ArrayList<>();
+        for (int current = cell; current != -1; current = search.parent(current)) {
+            path.add(new Point(grid.x(current), grid.y(current)));
+        }
+        Collections.reverse(path);
+        return path;
     }
 }
-
-
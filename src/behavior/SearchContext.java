@@ -0,0 +1,177 @@
+package behavior;
+
+import java.util.Arrays;
+
+/**
+ * Reusable scratch state for one grid search at a time, see Pathfinder.
+ * Per-cell tables are indexed by cell index (see CellGrid.index) and are never cleared: a cell's entries
+ * only count if its stamp equals the current search's generation, so starting a search is O(1).
+ * The open set is a binary heap of cell indices with parallel priorities. It makes exactly the same
+ * comparisons and swaps as HeapMinQueue, so ties are broken the same way as the search it replaced.
+ * Each thread gets its own context through get, so searches never allocate once the tables are big
+ * enough for the world.
+ */
+final class SearchContext {
+    /**
+     * One context per thread
+     */
+    private static final ThreadLocal<SearchContext> CONTEXT = ThreadLocal.withInitial(SearchContext::new);
+
+    /**
+     * The current search's generation, and for each cell the generation it was last discovered in
+     */
+    private int generation;
+    private int[] stamps = new int[0];
+
+    /**
+     * For each cell, the generation it was last closed in, see close
+     */
+    private int[] closedStamps = new int[0];
+
+    /**
+     * For each cell discovered this generation, its cost and the cell it was reached from (-1 for the
+     * start)
+     */
+    private double[] costs = new double[0];
+    private int[] parents = new int[0];
+
+    /**
+     * The open set: heap[0 .. size - 1] are cell indices and priorities[i] is the priority of heap[i]
+     */
+    private int[] heap = new int[16];
+    private double[] priorities = new double[16];
+    private int size;
+
+    /**
+     * Returns this thread's context, reset for a new search over "cells" cells
+     */
+    static SearchContext get(int cells) {
+        SearchContext context = CONTEXT.get();
+        context.reset(cells);
+        return context;
+    }
+
+    /**
+     * helper method, starts a new generation and grows the tables to "cells" if needed
+     */
+    private void reset(int cells) {
+        if (stamps.length < cells) {
+            stamps = new int[cells];
+            closedStamps = new int[cells];
+            costs = new double[cells];
+            parents = new int[cells];
+            generation = 0;
+        }
+        if (++generation == 0) {
+            // the generation wrapped around, so old stamps could look current
+            Arrays.fill(stamps, 0);
+            Arrays.fill(closedStamps, 0);
+            generation = 1;
+        }
+        size = 0;
+    }
+
+    /**
+     * Returns whether "cell" has been discovered in this search
+     */
+    boolean discovered(int cell) {
+        return stamps[cell] == generation;
+    }
+
+    /**
+     * Marks "cell" as discovered with cost "cost", reached from "parent"
+     */
+    void discover(int cell, double cost, int parent) {
+        stamps[cell] = generation;
+        costs[cell] = cost;
+        parents[cell] = parent;
+    }
+
+    /**
+     * Marks "cell" as closed, i.e. finished, and returns whether it already was. Searches that push a
+     * cell again when they find a cheaper way to it use this to skip the stale copies
+     */
+    boolean close(int cell) {
+        boolean closed = closedStamps[cell] == generation;
+        closedStamps[cell] = generation;
+        return closed;
+    }
+
+    /**
+     * getters for a discovered cell's cost and parent
+     */
+    double cost(int cell) { return costs[cell]; }
+    int parent(int cell) { return parents[cell]; }
+
+    /**
+     * Returns whether the open set is empty
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Adds "cell" to the open set with priority "priority". A cell may be added more than once, see close
+     */
+    void push(int cell, double priority) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+            priorities = Arrays.copyOf(priorities, size * 2);
+        }
+        int index = size++;
+        heap[index] = cell;
+        priorities[index] = priority;
+        // bubble up
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (priorities[parent] <= priorities[index]) {
+                break;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    /**
+     * Removes and returns the cell with the smallest priority. Requires the open set not to be empty
+     */
+    int pop() {
+        int min = heap[0];
+        size--;
+        if (size == 0) {
+            return min;
+        }
+        heap[0] = heap[size];
+        priorities[0] = priorities[size];
+        // bubble down
+        int index = 0;
+        while (true) {
+            int left = 2 * index + 1;
+            int right = 2 * index + 2;
+            int smallest = index;
+            if (left < size && priorities[left] < priorities[smallest]) {
+                smallest = left;
+            }
+            if (right < size && priorities[right] < priorities[smallest]) {
+                smallest = right;
+            }
+            if (smallest == index) {
+                return min;
+            }
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+
+    /**
+     * helper method, swaps heap entries "i" and "j"
+     */
+    private void swap(int i, int j) {
+        int cell = heap[i];
+        heap[i] = heap[j];
+        heap[j] = cell;
+        double priority = priorities[i];
+        priorities[i] = priorities[j];
+        priorities[j] = priority;
+    }
+}
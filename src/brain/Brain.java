@@ -6,8 +6,9 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 import model.Critter;
 
 // testing git
@@ -32,14 +33,50 @@ public class Brain {
      * Map of all synapses in this brain, with the keys as innovation and the values as synapses
      */
     private Map<Integer, Synapse> synapses;
-    public Map<Integer, Synapse> getSynapses() { return synapses; }
-    public void addSynapse(Synapse synapse) { synapses.put(synapse.innovation(), synapse); }
+    public Map<Integer, Synapse> getSynapses() {
+        materialize();
+        return synapses;
+    }
+    public void addSynapse(Synapse synapse) {
+        materialize();
+        synapses.put(synapse.innovation(), synapse);
+        invalidate();
+    }
 
     /**
      * The number of hidden layers in this network
      */
     private int hiddenLayers;
 
+    /**
+     * The largest id of any neuron added to this brain
+     */
+    private int maxNeuronId;
+
+    /**
+     * Whether the neuron and synapse objects exist. A brain made from a genome starts without them, and
+     * builds them from the genome only when something asks for them; until then it is just the genome,
+     * shared with its parent
+     */
+    private boolean materialized;
+
+    /**
+     * Counts changes to the neuron and synapse objects
+     */
+    private volatile long version;
+
+    /**
+     * A genome and the version of the objects it describes
+     */
+    private record Snapshot(Genome genome, long version) {}
+
+    /**
+     * This brain's genome, current while its version equals the brain's. Mutations only run between
+     * decide phases, but a genome may be captured while other threads evaluate the brain, so the genome
+     * and its version are read and written together
+     */
+    private volatile Snapshot snapshot;
+
     /**
      * Constructs a new empty brain belonging to Critter "critter"
      * critter cannot be empty
@@ -49,6 +86,20 @@ public class Brain {
         this.neurons = new HashMap<>();
         this.synapses = new HashMap<>();
         this.hiddenLayers = 0;
+        this.materialized = true;
+
+        assertInv();
+    }
+
+    /**
+     * Constructs a brain belonging to Critter "critter" with the network described by "genome", which
+     * is shared, not copied
+     */
+    public Brain(Critter critter, Genome genome) {
+        this.critter = critter;
+        this.neurons = new HashMap<>();
+        this.synapses = new HashMap<>();
+        this.snapshot = new Snapshot(genome, version);
 
         assertInv();
     }
@@ -58,8 +109,10 @@ public class Brain {
      */
     public Brain() {
         this.neurons = new HashMap<>();
+        this.synapses = new HashMap<>();
         this.hiddenLayers = 0;
         this.critter = null;
+        this.materialized = true;
     }
 
 
@@ -71,24 +124,32 @@ public class Brain {
     /**
      * getters and setters for the number of hidden layers in this network
      */
-    public int hiddenLayers() { return hiddenLayers; }
-    public void setHiddenLayers(int num) { hiddenLayers = num; }
+    public int hiddenLayers() { return materialized ? hiddenLayers : genome().hiddenLayers(); }
+    public void setHiddenLayers(int num) {
+        materialize();
+        hiddenLayers = num;
+        invalidate();
+    }
 
     /**
      * Returns the number of neurons in this brain
      */
-    public int neuronCount() { return this.neurons.size(); }
+    public int neuronCount() { return materialized ? neurons.size() : genome().neuronCount(); }
 
     /**
      * Returns the neuron with id "id"
      */
-    public Neuron getNeuron(int id) { return neurons.get(id); }
+    public Neuron getNeuron(int id) {
+        materialize();
+        return neurons.get(id);
+    }
 
     /**
      * Returns a map of all neurons in the brain (added for visualization)
      * @return A map with neuron IDs as keys and neurons as values
      */
     public Map<Integer, Neuron> getNeuronMap() {
+        materialize();
         return new HashMap<>(neurons);
     }
 
@@ -96,51 +157,146 @@ public class Brain {
      * Adds a neuron to this brain
      */
     public void addNeuron(Neuron neuron) {
+        materialize();
         neurons.put(neuron.getId(), neuron);
+        maxNeuronId = Math.max(maxNeuronId, neuron.getId());
         if (neuron.getLayer() > hiddenLayers) {
             hiddenLayers = neuron.getLayer();
         }
+        invalidate();
     }
 
     /**
      * Removes a neuron associated with "id" from this brain
      */
-    public void removeNeuron(int id) { neurons.remove(id); }
+    public void removeNeuron(int id) {
+        materialize();
+        neurons.remove(id);
+        invalidate();
+    }
 
     /**
-     * forward propagation through the network
+     * Marks the genome as out of date. Called by every change to the neurons, synapses or layers
      */
-    public double[] feedForward(double[] input) {
+    void invalidate() { version++; }
 
-        List<Neuron> inputNeurons = getNeuronsByLayer(0);
-        List<Neuron> outputNeurons = getNeuronsByLayer(-1);
-        double[] output = new double[outputNeurons.size()];
+    /**
+     * Returns this brain's genome, capturing it from the neuron and synapse objects if they changed
+     * since it was last captured
+     */
+    public Genome genome() {
+        long current = version;
+        Snapshot captured = snapshot;
+        if (captured == null || captured.version() != current) {
+            captured = new Snapshot(capture(), current);
+            snapshot = captured;
+        }
+        return captured.genome();
+    }
 
+    /**
+     * Returns this brain compiled into flat arrays, compiling it first if it changed since the last call
+     */
+    public CompiledNetwork compiled() {
+        return genome().compiled();
+    }
 
-        // validate input size
-        if (input.length != inputNeurons.size()) {
-            throw new IllegalArgumentException("Input array length is not equal to neuron count. Input length: " + input.length + " Neuron count: " + inputNeurons.size());
+    /**
+     * helper method, builds a genome from the neuron and synapse objects. Each neuron's incoming
+     * synapses are listed in the order it adds them up
+     */
+    private Genome capture() {
+        List<Neuron> sorted = new ArrayList<>(neurons.values());
+        sorted.sort((a, b) -> Integer.compare(a.getId(), b.getId()));
+        int[] neuronIds = new int[sorted.size()];
+        int[] neuronLayers = new int[sorted.size()];
+        List<Synapse> genes = new ArrayList<>();
+        for (int i = 0; i < sorted.size(); i++) {
+            Neuron neuron = sorted.get(i);
+            neuronIds[i] = neuron.getId();
+            neuronLayers[i] = neuron.getLayer();
+            for (Synapse synapse : neuron.allIncomingSynapses()) {
+                if (neurons.get(synapse.start().getId()) == synapse.start()) {
+                    genes.add(synapse);
+                }
+            }
         }
 
-        // set input values
-        for (int i = 0; i < inputNeurons.size(); i++) {
-            inputNeurons.get(i).setActivation(input[i]);
+        int[] innovations = new int[genes.size()];
+        int[] startIds = new int[genes.size()];
+        int[] endIds = new int[genes.size()];
+        boolean[] enabled = new boolean[genes.size()];
+        double[] weights = new double[genes.size()];
+        for (int s = 0; s < genes.size(); s++) {
+            Synapse synapse = genes.get(s);
+            innovations[s] = synapse.innovation();
+            startIds[s] = synapse.start().getId();
+            endIds[s] = synapse.end().getId();
+            enabled[s] = synapse.isEnabled();
+            weights[s] = synapse.weight();
+        }
+        Genome.Structure structure = new Genome.Structure(neuronIds, neuronLayers, hiddenLayers, innovations,
+                startIds, endIds, enabled);
+        // share the structure with every other brain in the world that has the same genes
+        if (critter != null && critter.getWorld() != null) {
+            structure = critter.getWorld().genomePool().intern(structure);
         }
+        return new Genome(structure, weights);
+    }
 
-        // process hidden layers
-        for (int i = 1; i <= hiddenLayers; i++) {
-            List<Neuron> hiddenNeurons = getNeuronsByLayer(i);
-            for (Neuron hiddenNeuron : hiddenNeurons) {
-                hiddenNeuron.processNeuron();
-            }
+    /**
+     * helper method, builds the neuron and synapse objects from the genome if they do not exist yet
+     */
+    private void materialize() {
+        if (materialized) {
+            return;
+        }
+        Genome genome = genome();
+        Genome.Structure structure = genome.structure();
+        for (int i = 0; i < structure.neuronIds.length; i++) {
+            neurons.put(structure.neuronIds[i], new Neuron(structure.neuronIds[i], structure.neuronLayers[i], this));
+            maxNeuronId = Math.max(maxNeuronId, structure.neuronIds[i]);
         }
+        for (int s = 0; s < structure.innovations.length; s++) {
+            Synapse synapse = new Synapse(neurons.get(structure.startIds[s]), neurons.get(structure.endIds[s]),
+                    genome.weight(s), structure.enabled[s], structure.innovations[s]);
+            synapses.put(synapse.innovation(), synapse);
+        }
+        hiddenLayers = structure.hiddenLayers;
+        materialized = true;
+        // the objects were just built from the genome, so it is still current
+        snapshot = new Snapshot(genome, version);
+    }
 
-        // process output layer
-        for (int i = 0; i < outputNeurons.size(); i++) {
-            output[i] = outputNeurons.get(i).processNeuron();
+    /**
+     * Drops the neuron and synapse objects and keeps only the genome, so the brain is just its weights
+     * and a structure shared with other brains. The objects are rebuilt when something asks for them
+     */
+    public void compact() {
+        if (materialized) {
+            dematerialize();
         }
+    }
+
+    /**
+     * helper method, drops the neuron and synapse objects and keeps only the genome
+     */
+    private void dematerialize() {
+        genome();
+        neurons.clear();
+        synapses.clear();
+        materialized = false;
+    }
 
-        // return the output array
+    /**
+     * forward propagation through the network
+     * Runs on the compiled network, so it does not write neuron activations and is safe to call from
+     * several threads at once
+     */
+    public double[] feedForward(double[] input) {
+        CompiledNetwork network = compiled();
+        double[] output = new double[network.outputCount()];
+        network.evaluate(input, output);
         return output;
     }
 
@@ -148,32 +304,59 @@ public class Brain {
      * Mutates the network
      */
     public void mutate() {
+        mutate(ThreadLocalRandom.current());
+    }
+
+    /**
+     * Mutates the network, drawing every random choice from "random"
+     */
+    public void mutate(RandomGenerator random) {
+        // a brain still sharing its parent's genome only builds neuron and synapse objects for a
+        // structural mutation, and goes back to being a genome afterwards
+        boolean wasMaterialized = materialized;
+        mutateNetwork(random);
+        if (!wasMaterialized && materialized) {
+            dematerialize();
+        }
+    }
+
+    /**
+     * helper method for mutate, applies the mutations
+     */
+    private void mutateNetwork(RandomGenerator random) {
         // needs to support adding/removing a hidden neuron, adding/removing a synapse, and changing the weight of a synapse
         double chance_weight = critter.getWorld().getMutationRate() + critter.getMutationRate();
 
         // 1. WEIGHT MUTATION: change the weights of the synapses - each synapse's rate of mutation is based off the world's mutation rate plus the critter's mutation rate
-        for (Synapse synapse : synapses.values()) {
-            if (Math.random() < chance_weight) {
-                // Choose mutation type based on probabilities
-                double r = Math.random();
-                if (r < 0.8) {
-                    // Perturb weight slightly (80% chance)
-                    double change = Math.random() * 0.4 - 0.2; // -0.2 to 0.2 change
-                    synapse.setWeight(Math.max(0.0, Math.min(1.0, synapse.weight() + change)));
-                } else if (r < 0.9) {
-                    // Assign new random weight (10% chance)
-                    synapse.setWeight(Math.random());
-                } else {
-                    // Reset weight to 1.0 (10% chance)
-                    synapse.setWeight(1.0);
+        if (materialized) {
+            for (Synapse synapse : synapses.values()) {
+                if (random.nextDouble() < chance_weight) {
+                    synapse.setWeight(mutateWeight(synapse.weight(), random));
+                }
+            }
+        } else {
+            // copy only the weights, the new genome shares its structure with the parent's
+            Genome genome = genome();
+            double[] weights = null;
+            for (int i = 0; i < genome.synapseCount(); i++) {
+                if (random.nextDouble() < chance_weight) {
+                    if (weights == null) {
+                        weights = genome.copyWeights();
+                    }
+                    weights[i] = mutateWeight(weights[i], random);
                 }
             }
+            if (weights != null) {
+                invalidate();
+                snapshot = new Snapshot(genome.withWeights(weights), version);
+            }
         }
 
 
         // 2. ADD SYNAPSE MUTATION: add a synapse
         double chance_synapse = (critter.getWorld().getMutationRate() + critter.getMutationRate()) * 0.3;
-        if (chance_synapse > Math.random()) {
+        if (chance_synapse > random.nextDouble()) {
+            materialize();
             // get all neurons in brain
             List<Neuron> allNeurons = new ArrayList<>(neurons.values());
             if (allNeurons.size() < 2)
@@ -181,8 +364,8 @@ public class Brain {
 
             // make multiple attempts to find a valid connection (10 attempts)
             for (int attempts = 0; attempts < 10; attempts++) {
-                int indexFrom = new Random().nextInt(allNeurons.size());
-                int indexTo = new Random().nextInt(allNeurons.size());
+                int indexFrom = random.nextInt(allNeurons.size());
+                int indexTo = random.nextInt(allNeurons.size());
 
                 Neuron fromNeuron = allNeurons.get(indexFrom);
                 Neuron toNeuron = allNeurons.get(indexTo);
@@ -201,19 +384,20 @@ public class Brain {
 
         // 3. ADD NEURON  MUTATION: (must be added on top of an already existing synapse)
         double chance_neuron = (critter.getWorld().getMutationRate() + critter.getMutationRate()) * 0.1;
-        if (chance_neuron > Math.random()) {
+        if (chance_neuron > random.nextDouble()) {
             int maxInnovation = critter.getWorld().innovationManager().innovation();
             if (maxInnovation <= 0) {
-                addNeuronMutation(0);
+                addNeuronMutation(0, random);
             } else {
+                materialize();
                 List<Synapse> allSynapses = new ArrayList<>(synapses.values());
                 if (allSynapses.isEmpty()) {
-                    addNeuronMutation(0);
+                    addNeuronMutation(0, random);
                 }
                 else {
-                    int randomIndex = new Random().nextInt(allSynapses.size());
+                    int randomIndex = random.nextInt(allSynapses.size());
                     Synapse targetSynapse = allSynapses.get(randomIndex);
-                    addNeuronMutation(targetSynapse.innovation());
+                    addNeuronMutation(targetSynapse.innovation(), random);
                 }
 
             }
@@ -221,6 +405,25 @@ public class Brain {
     }
 
 
+    /**
+     * helper method for mutate, returns a mutated synapse weight
+     */
+    private static double mutateWeight(double weight, RandomGenerator random) {
+        // Choose mutation type based on probabilities
+        double r = random.nextDouble();
+        if (r < 0.8) {
+            // Perturb weight slightly (80% chance)
+            double change = random.nextDouble() * 0.4 - 0.2; // -0.2 to 0.2 change
+            return Math.max(0.0, Math.min(1.0, weight + change));
+        } else if (r < 0.9) {
+            // Assign new random weight (10% chance)
+            return random.nextDouble();
+        } else {
+            // Reset weight to 1.0 (10% chance)
+            return 1.0;
+        }
+    }
+
     /**
      * Mutation: adds a neuron
      * Creates a new neuron, disables the original synapse, and inserts the neuron in between where the old synapse was
@@ -230,16 +433,23 @@ public class Brain {
      * a random input and random output neuron to place the neuron between
      */
     public void addNeuronMutation(int innovation) {
+        addNeuronMutation(innovation, ThreadLocalRandom.current());
+    }
+
+    /**
+     * helper method for addNeuronMutation and mutate, picks the input and output neurons from "random"
+     */
+    private void addNeuronMutation(int innovation, RandomGenerator random) {
         assert innovation >= 0;
-        InnovationManager innovationManager = critter.getWorld().innovationManager();
+        materialize();
 
         // choose a random input and output neuron if innovation = 0
         if (innovation == 0) {
             List<Neuron> inputNeurons = getNeuronsByLayer(0);
             List<Neuron> outputNeurons = getNeuronsByLayer(-1);
 
-            int inputIndex = new Random().nextInt(inputNeurons.size());
-            int outputIndex = new Random().nextInt(outputNeurons.size());
+            int inputIndex = random.nextInt(inputNeurons.size());
+            int outputIndex = random.nextInt(outputNeurons.size());
 
             Neuron inputNeuron = inputNeurons.get(inputIndex);
             Neuron outputNeuron = outputNeurons.get(outputIndex);
@@ -249,7 +459,7 @@ public class Brain {
             Synapse startSynapse = new Synapse(inputNeuron, newNeuron, 1,true);
             Synapse endSynapse = new Synapse(newNeuron, outputNeuron, 1, true);
         } else { // else, follow the normal logic
-            Synapse disabledSynapse = innovationManager.get(innovation);
+            Synapse disabledSynapse = synapses.get(innovation);
             disabledSynapse.setEnabled(false); // disables the synapse
 
             // get the layers of the endpoint neurons to calculate the layer of the new neuron
@@ -285,8 +495,9 @@ public class Brain {
      * takes in a neuron as a parameter as the leftmost neuron
      */
     private void adjustAfterAdd(Neuron neuron) {
-        for (Synapse synapse : neuron.outgoingSynapses()) {
-            Neuron endNeuron = synapse.end();
+        List<Synapse> outgoing = neuron.outgoingSynapses();
+        for (int i = 0; i < outgoing.size(); i++) {
+            Neuron endNeuron = outgoing.get(i).end();
             if (endNeuron.getLayer() != -1) {
                 endNeuron.setLayer(endNeuron.getLayer() + 1);
                 if (endNeuron.getLayer() > hiddenLayers) {
@@ -352,13 +563,12 @@ public class Brain {
      * Parameters: takes in the ids of the two endpoint neurons the synapse will be attached to
      */
     public void addSynapseMutation(int id1, int id2) {
+        materialize();
         InnovationManager innovationManager = critter.getWorld().innovationManager();
-        for (int i = 1; i <= innovationManager.innovation(); i++) {
-            Synapse synapse = innovationManager.get(i);
-            if (synapse.start().getId() == id1 && synapse.end().getId() == id2) {
-                synapse.setEnabled(true);
-                return;
-            }
+        Synapse synapse = synapses.get(innovationManager.innovation(id1, id2));
+        if (synapse != null) {
+            synapse.setEnabled(true);
+            return;
         }
         Synapse newSynapse = new Synapse(getNeuron(id1), getNeuron(id2), 1.0, true);
     }
@@ -372,15 +582,15 @@ public class Brain {
 
         if (startNeuron.getLayer() == 0 && endNeuron.getLayer() == -1) {
             List<Synapse> startOutgoing = startNeuron.outgoingSynapses();
-            for (Synapse synapse : startOutgoing) {
-                if (synapse.end().getLayer() > 0) {
+            for (int i = 0; i < startOutgoing.size(); i++) {
+                if (startOutgoing.get(i).end().getLayer() > 0) {
                     return false;
                 }
             }
 
             List<Synapse> endIncoming = endNeuron.incomingSynapses();
-            for (Synapse synapse : endIncoming) {
-                if (synapse.end().getLayer() > 0) {
+            for (int i = 0; i < endIncoming.size(); i++) {
+                if (endIncoming.get(i).end().getLayer() > 0) {
                     return false;
                 }
             }
@@ -403,8 +613,8 @@ public class Brain {
      * Parameters: takes in the innovation number of the to be changed synapse
      */
     public void changeWeightMutation(int innovation) {
-        InnovationManager innovationManager = critter.getWorld().innovationManager();
-        Synapse synapse = innovationManager.get(innovation);
+        materialize();
+        Synapse synapse = synapses.get(innovation);
 
         double weight = synapse.weight();
         double randomChange = Math.random()/5;
@@ -421,6 +631,7 @@ public class Brain {
      * helper method to get neurons by layer
      */
     public List<Neuron> getNeuronsByLayer(int layer) {
+        materialize();
         List<Neuron> layeredNeurons = new ArrayList<>();
         for (Neuron neuron : neurons.values()) {
             if (layer == neuron.getLayer()) {
@@ -432,15 +643,11 @@ public class Brain {
 
     /**
      * Returns the id of the neuron with the largest id, for neuron creation
+     * Ids are never reused, so this counts neurons that were added and later removed too
      */
     public int getDiscoveredNeuronCount() {
-        int count = 0;
-        for (Neuron neuron : neurons.values()) {
-            if (neuron.getId() > count) {
-                count = neuron.getId();
-            }
-        }
-        return count;
+        materialize();
+        return maxNeuronId;
     }
 
     /**
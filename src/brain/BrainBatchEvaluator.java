@@ -0,0 +1,345 @@
+package brain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Evaluates the brains of a whole population at once.
+ * Networks with the same topology (see CompiledNetwork.sameTopology) are grouped, and each group is
+ * evaluated in one pass with the group's critters side by side: a group of G critters stores the value
+ * of slot n for critter c at n * G + c, and the weight of synapse s at s * G + c. Every synapse then
+ * becomes one multiply-add over G contiguous doubles, which the JIT can vectorize, instead of G separate
+ * walks over small networks. Since BrainFactory stamps out the same shape for every new critter, and
+ * children share their parent's brain, a population usually falls into a handful of groups.
+ * Genomes interned by GenomePool share their topology arrays and precomputed hash, so looking up a
+ * network's group is a hash lookup followed by identity checks.
+ * Each critter's sums are added in the same order as CompiledNetwork.evaluate, so the results are
+ * identical to evaluating the networks one by one.
+ * Optionally, decisions are memoized: each input is quantized into a number of equal buckets on [0, 1],
+ * and each network remembers its strongest output for every combination of buckets it has evaluated.
+ * Critters whose inputs stay in the same buckets from tick to tick then skip inference. Networks are
+ * evaluated on the centers of the buckets, so a decision does not depend on which critter filled the
+ * cache. Inputs outside [0, 1] are always evaluated exactly.
+ * An evaluator reuses its buffers between calls, so it must not be used by several threads at once.
+ */
+public class BrainBatchEvaluator {
+
+    /**
+     * A set of critters whose networks share a topology
+     */
+    private static final class Group {
+        /**
+         * A network with the group's topology
+         */
+        CompiledNetwork shape;
+
+        /**
+         * The critters in this group, as indices into the population
+         */
+        int[] members = new int[16];
+        int size;
+
+        /**
+         * Adds critter "index" to this group
+         */
+        void add(int index) {
+            if (size == members.length) {
+                members = Arrays.copyOf(members, size * 2);
+            }
+            members[size++] = index;
+        }
+    }
+
+    /**
+     * Key for looking up a group by topology
+     */
+    private record Topology(CompiledNetwork network) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Topology other && network.sameTopology(other.network);
+        }
+
+        @Override
+        public int hashCode() {
+            return network.topologyHash();
+        }
+    }
+
+    /**
+     * The groups of the current call, and spare groups kept for later calls
+     */
+    private final Map<Topology, Group> groups = new HashMap<>();
+    private final List<Group> active = new ArrayList<>();
+    private final List<Group> spare = new ArrayList<>();
+
+    /**
+     * Packed slot values and weights for the group being evaluated, grown as needed
+     */
+    private double[] values = new double[0];
+    private double[] weights = new double[0];
+
+    /**
+     * The number of groups in the last call to evaluate
+     */
+    private int lastGroupCount;
+
+    /**
+     * The number of buckets each input is quantized into, or 0 to evaluate every critter exactly
+     */
+    private int buckets;
+
+    /**
+     * Per critter: the packed quantized inputs, or -1 when the critter is not cached, and whether its
+     * decision still has to be computed. Grown as needed
+     */
+    private int[] keys = new int[0];
+    private boolean[] pending = new boolean[0];
+
+    /**
+     * The inputs the networks are evaluated on: the bucket centers when quantizing. Grown as needed
+     */
+    private double[] quantized = new double[0];
+
+    /**
+     * Decisions taken from the caches and decisions computed, since the last resetCacheMetrics
+     */
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
+    /**
+     * Sets the number of buckets each input is quantized into for the decision caches. 0 turns the
+     * caches off. Networks with so many inputs that buckets^inputs does not fit in an int are not cached
+     */
+    public void setBuckets(int buckets) {
+        if (buckets < 0 || buckets > 1024) {
+            throw new IllegalArgumentException("Bucket count must be between 0 and 1024, got: " + buckets);
+        }
+        this.buckets = buckets;
+    }
+
+    /**
+     * Returns the number of buckets each input is quantized into, 0 if decisions are not cached
+     */
+    public int getBuckets() {
+        return buckets;
+    }
+
+    /**
+     * Returns the number of decisions taken from the caches and computed by evaluating a network,
+     * and the fraction taken from the caches, since the last reset. Safe to call from any thread
+     */
+    public long cacheHits() {
+        return cacheHits.sum();
+    }
+    public long cacheMisses() {
+        return cacheMisses.sum();
+    }
+    public double cacheHitRate() {
+        long hits = cacheHits.sum();
+        long total = hits + cacheMisses.sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Sets the cache hit and miss counts back to 0
+     */
+    public void resetCacheMetrics() {
+        cacheHits.reset();
+        cacheMisses.reset();
+    }
+
+    /**
+     * Evaluates "count" critters' networks. Critter i's network is networks[i] and its inputs are
+     * inputs[i * inputCount] .. inputs[(i + 1) * inputCount - 1], where every network must take
+     * "inputCount" inputs. Writes the index of critter i's strongest output, the first one on ties, to
+     * strongest[i]
+     */
+    public void evaluate(CompiledNetwork[] networks, double[] inputs, int inputCount, int count,
+                         int[] strongest) {
+        if (pending.length < count) {
+            pending = new boolean[count];
+            keys = new int[count];
+        }
+        double[] evaluated = inputs;
+        if (buckets > 0 && Math.pow(buckets, inputCount) <= Integer.MAX_VALUE) {
+            evaluated = lookUp(networks, inputs, inputCount, count, strongest);
+        } else {
+            for (int i = 0; i < count; i++) {
+                pending[i] = true;
+                keys[i] = -1;
+            }
+        }
+
+        group(networks, inputCount, count);
+        for (Group group : active) {
+            evaluateGroup(group, networks, evaluated, inputCount, strongest);
+        }
+        release();
+
+        if (evaluated != inputs) {
+            long misses = 0;
+            for (int i = 0; i < count; i++) {
+                if (pending[i] && keys[i] >= 0) {
+                    networks[i].decisions().put(keys[i], strongest[i]);
+                    misses++;
+                }
+            }
+            cacheMisses.add(misses);
+        }
+    }
+
+    /**
+     * helper method, quantizes every critter's inputs and takes its decision from its network's cache
+     * when it is there. Returns the inputs to evaluate the other critters on
+     */
+    private double[] lookUp(CompiledNetwork[] networks, double[] inputs, int inputCount, int count,
+                            int[] strongest) {
+        if (quantized.length < count * inputCount) {
+            quantized = new double[count * inputCount];
+        }
+        long hits = 0;
+        for (int i = 0; i < count; i++) {
+            int key = 0;
+            for (int j = i * inputCount; j < (i + 1) * inputCount && key >= 0; j++) {
+                double input = inputs[j];
+                if (input >= 0 && input <= 1) {
+                    int bucket = Math.min(buckets - 1, (int) (input * buckets));
+                    key = key * buckets + bucket;
+                    quantized[j] = (bucket + 0.5) / buckets;
+                } else {
+                    key = -1;
+                }
+            }
+            if (key < 0) {
+                // out of range or NaN, evaluate exactly
+                System.arraycopy(inputs, i * inputCount, quantized, i * inputCount, inputCount);
+            }
+            keys[i] = key;
+            int cached = key >= 0 && networks[i].inputCount() == inputCount ? networks[i].decisions().get(key) : -1;
+            pending[i] = cached < 0;
+            if (cached >= 0) {
+                strongest[i] = cached;
+                hits++;
+            }
+        }
+        cacheHits.add(hits);
+        return quantized;
+    }
+
+    /**
+     * Returns the number of topologies found by the last call to evaluate
+     */
+    public int lastGroupCount() {
+        return lastGroupCount;
+    }
+
+    /**
+     * helper method, sorts the critters still pending into groups by topology
+     */
+    private void group(CompiledNetwork[] networks, int inputCount, int count) {
+        CompiledNetwork previous = null;
+        Group previousGroup = null;
+        for (int i = 0; i < count; i++) {
+            if (!pending[i]) {
+                continue;
+            }
+            CompiledNetwork network = networks[i];
+            if (network.inputCount() != inputCount) {
+                throw new IllegalArgumentException("Input array length is not equal to neuron count. Input length: " + inputCount + " Neuron count: " + network.inputCount());
+            }
+            // critters sharing a brain are often next to each other, so skip the lookup for repeats
+            if (network != previous) {
+                Topology key = new Topology(network);
+                previousGroup = groups.get(key);
+                if (previousGroup == null) {
+                    previousGroup = spare.isEmpty() ? new Group() : spare.removeLast();
+                    previousGroup.shape = network;
+                    groups.put(key, previousGroup);
+                    active.add(previousGroup);
+                }
+                previous = network;
+            }
+            previousGroup.add(i);
+        }
+        lastGroupCount = active.size();
+    }
+
+    /**
+     * helper method, clears the groups of the last call and keeps them for the next one
+     */
+    private void release() {
+        for (Group group : active) {
+            group.shape = null;
+            group.size = 0;
+            spare.add(group);
+        }
+        active.clear();
+        groups.clear();
+    }
+
+    /**
+     * helper method, evaluates every critter of "group" side by side
+     */
+    private void evaluateGroup(Group group, CompiledNetwork[] networks, double[] inputs, int inputCount,
+                               int[] strongest) {
+        CompiledNetwork shape = group.shape;
+        int g = group.size;
+        int[] members = group.members;
+        int[] offsets = shape.offsets();
+        int[] sources = shape.sources();
+        int slotCount = shape.slotCount();
+        int synapseCount = sources.length;
+
+        if (values.length < slotCount * g) {
+            values = new double[slotCount * g];
+        }
+        if (weights.length < synapseCount * g) {
+            weights = new double[synapseCount * g];
+        }
+        double[] v = values;
+        double[] w = weights;
+
+        for (int c = 0; c < g; c++) {
+            double[] own = networks[members[c]].weights();
+            for (int s = 0; s < synapseCount; s++) {
+                w[s * g + c] = own[s];
+            }
+            int in = members[c] * inputCount;
+            for (int i = 0; i < inputCount; i++) {
+                v[i * g + c] = inputs[in + i];
+            }
+        }
+
+        for (int slot = inputCount; slot < slotCount; slot++) {
+            int out = slot * g;
+            for (int c = 0; c < g; c++) {
+                v[out + c] = 0;
+            }
+            for (int s = offsets[slot], end = offsets[slot + 1]; s < end; s++) {
+                int from = sources[s] * g;
+                int ws = s * g;
+                for (int c = 0; c < g; c++) {
+                    v[out + c] += v[from + c] * w[ws + c];
+                }
+            }
+            for (int c = 0; c < g; c++) {
+                v[out + c] = Math.max(0, v[out + c]);
+            }
+        }
+
+        int firstOutput = slotCount - shape.outputCount();
+        for (int c = 0; c < g; c++) {
+            int best = 0;
+            for (int o = 1; o < shape.outputCount(); o++) {
+                if (v[(firstOutput + o) * g + c] > v[(firstOutput + best) * g + c]) {
+                    best = o;
+                }
+            }
+            strongest[members[c]] = best;
+        }
+    }
+}
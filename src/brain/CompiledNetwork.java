@@ -0,0 +1,143 @@
+package brain;
+
+import java.util.Arrays;
+
+/**
+ * A brain compiled into flat arrays for fast evaluation.
+ * Every evaluated neuron gets a slot: the input neurons first, then the hidden neurons layer by layer,
+ * then the output neurons, each group by id. A slot's incoming synapses are stored as a range of parallel
+ * source slot and weight arrays, so evaluating the network is one loop over primitive arrays that never
+ * touches Neuron or Synapse objects and allocates nothing.
+ * A compiled network never changes and never writes neuron activations, so any number of threads may
+ * evaluate it at once. Only its decision cache, used by BrainBatchEvaluator on the tick thread, changes.
+ * Each Genome is compiled once.
+ * A synapse whose source is not evaluated before its end (which the mutations never produce) contributes
+ * 0 instead of whatever activation an earlier evaluation left behind.
+ */
+public final class CompiledNetwork {
+    /**
+     * Per-thread slot values, grown as needed
+     */
+    private static final ThreadLocal<double[]> SCRATCH = ThreadLocal.withInitial(() -> new double[16]);
+
+    /**
+     * The number of input neurons, output neurons, and slots
+     */
+    private final int inputCount;
+    private final int outputCount;
+    private final int slotCount;
+
+    /**
+     * The incoming synapses of slot n are sources[offsets[n]] .. sources[offsets[n + 1] - 1], with the
+     * matching weights. Input slots have no incoming synapses
+     */
+    private final int[] offsets;
+    private final int[] sources;
+    private final double[] weights;
+
+    /**
+     * Hash of the network's shape (everything but the weights), see sameTopology
+     */
+    private final int topologyHash;
+
+    /**
+     * Decisions remembered for quantized inputs, created when first needed by BrainBatchEvaluator
+     */
+    private DecisionCache decisions;
+
+    /**
+     * Constructs a compiled network from its arrays. Networks compiled from one genome structure share
+     * their offsets and sources
+     */
+    CompiledNetwork(int inputCount, int outputCount, int[] offsets, int[] sources, double[] weights) {
+        this(inputCount, outputCount, offsets, sources, weights, hash(inputCount, outputCount, offsets, sources));
+    }
+
+    /**
+     * Constructs a compiled network from its arrays and the topology hash already computed for them,
+     * see hash
+     */
+    CompiledNetwork(int inputCount, int outputCount, int[] offsets, int[] sources, double[] weights,
+                    int topologyHash) {
+        this.inputCount = inputCount;
+        this.outputCount = outputCount;
+        this.slotCount = offsets.length - 1;
+        this.offsets = offsets;
+        this.sources = sources;
+        this.weights = weights;
+        this.topologyHash = topologyHash;
+    }
+
+    /**
+     * Returns the topology hash of a network with the given counts and arrays
+     */
+    static int hash(int inputCount, int outputCount, int[] offsets, int[] sources) {
+        return 31 * (31 * (31 * inputCount + outputCount) + Arrays.hashCode(offsets)) + Arrays.hashCode(sources);
+    }
+
+    /**
+     * Returns the number of input and output neurons
+     */
+    public int inputCount() { return inputCount; }
+    public int outputCount() { return outputCount; }
+
+    /**
+     * Returns whether "other" has the same shape as this network, so that the two differ at most in
+     * their weights and can be evaluated together by BrainBatchEvaluator
+     */
+    public boolean sameTopology(CompiledNetwork other) {
+        return this == other || (topologyHash == other.topologyHash
+                && inputCount == other.inputCount
+                && outputCount == other.outputCount
+                && Arrays.equals(offsets, other.offsets)
+                && Arrays.equals(sources, other.sources));
+    }
+
+    /**
+     * Returns a hash of the network's shape, equal for networks with the same topology
+     */
+    public int topologyHash() { return topologyHash; }
+
+    /**
+     * Returns this network's decision cache, creating it the first time
+     */
+    DecisionCache decisions() {
+        if (decisions == null) {
+            decisions = new DecisionCache();
+        }
+        return decisions;
+    }
+
+    /**
+     * Accessors for the flat arrays, for BrainBatchEvaluator. Callers must not modify them
+     */
+    int slotCount() { return slotCount; }
+    int[] offsets() { return offsets; }
+    int[] sources() { return sources; }
+    double[] weights() { return weights; }
+
+    /**
+     * Evaluates the network on "input" and writes the output activations into "output", which must
+     * hold at least outputCount() values
+     */
+    public void evaluate(double[] input, double[] output) {
+        if (input.length != inputCount) {
+            throw new IllegalArgumentException("Input array length is not equal to neuron count. Input length: " + input.length + " Neuron count: " + inputCount);
+        }
+        double[] values = SCRATCH.get();
+        if (values.length < slotCount) {
+            values = new double[Math.max(slotCount, values.length * 2)];
+            SCRATCH.set(values);
+        }
+
+        System.arraycopy(input, 0, values, 0, inputCount);
+        for (int slot = inputCount; slot < slotCount; slot++) {
+            double activation = 0;
+            for (int s = offsets[slot], end = offsets[slot + 1]; s < end; s++) {
+                activation += values[sources[s]] * weights[s];
+            }
+            values[slot] = Math.max(0, activation);
+        }
+        System.arraycopy(values, slotCount - outputCount, output, 0, outputCount);
+    }
+}
@@ -0,0 +1,82 @@
+package brain;
+
+/**
+ * Remembers a network's strongest output for each quantized input it has seen, see
+ * BrainBatchEvaluator.setBuckets. Each compiled network has its own cache, and a mutation makes a new
+ * genome with a new network, so a cache never outlives the weights it was filled from.
+ * Keys are packed quantized inputs, stored in an open-addressed table with linear probing.
+ * Not thread-safe: only the evaluator that owns the tick touches it.
+ */
+final class DecisionCache {
+    /**
+     * key + 1 for each slot, 0 for an empty slot, and the cached output index
+     */
+    private int[] keys = new int[16];
+    private int[] values = new int[16];
+    private int size;
+
+    /**
+     * Returns the output index cached for "key", or -1 if there is none. Keys are never negative
+     */
+    int get(int key) {
+        int mask = keys.length - 1;
+        for (int slot = slot(key, mask); ; slot = (slot + 1) & mask) {
+            if (keys[slot] == 0) {
+                return -1;
+            }
+            if (keys[slot] == key + 1) {
+                return values[slot];
+            }
+        }
+    }
+
+    /**
+     * Caches "value" for "key"
+     */
+    void put(int key, int value) {
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+        }
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        while (keys[slot] != 0 && keys[slot] != key + 1) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] == 0) {
+            size++;
+        }
+        keys[slot] = key + 1;
+        values[slot] = value;
+    }
+
+    /**
+     * Returns the number of cached keys
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * helper method, doubles the table
+     */
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                put(oldKeys[i] - 1, oldValues[i]);
+            }
+        }
+    }
+
+    /**
+     * helper method, returns the home slot of "key"
+     */
+    private static int slot(int key, int mask) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,334 @@
+package brain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable description of a brain's network: its neuron genes (id and layer) and its synapse genes
+ * (innovation number, end neuron ids, enabled flag and weight).
+ * A genome is split into a structure, which holds everything but the weights, and the weights. Genomes
+ * are never changed, so a child simply shares its parent's genome; a weight mutation makes a new genome
+ * with a copy of the weights that shares the structure, and only a structural mutation makes a new
+ * structure. Each genome compiles its network once, and networks compiled from one structure share
+ * their topology arrays. Within a world, structures with the same genes are interned by GenomePool,
+ * so brains that were built separately share them too.
+ * Synapse genes are stored grouped by end neuron, each group in the order the end neuron adds up its
+ * inputs, so that rebuilding a brain from its genome and compiling either gives identical sums.
+ */
+public final class Genome {
+
+    /**
+     * Everything in a genome but the weights
+     */
+    static final class Structure {
+        /**
+         * The neuron genes, sorted by id
+         */
+        final int[] neuronIds;
+        final int[] neuronLayers;
+        final int hiddenLayers;
+
+        /**
+         * The synapse genes, in parallel arrays
+         */
+        final int[] innovations;
+        final int[] startIds;
+        final int[] endIds;
+        final boolean[] enabled;
+
+        /**
+         * The compiled topology, built the first time a genome with this structure is compiled. For each
+         * compiled synapse, weightIndex holds the index of its synapse gene
+         */
+        private volatile Topology topology;
+
+        /**
+         * The innovation numbers in ascending order, and for each one the index of its synapse gene.
+         * Built the first time a genome with this structure is compared with another, see compatibility
+         */
+        private volatile int[] sortedInnovations;
+        private volatile int[] sortedGenes;
+
+        /**
+         * The content hash, 0 until it is first computed
+         */
+        private int contentHash;
+
+        Structure(int[] neuronIds, int[] neuronLayers, int hiddenLayers, int[] innovations, int[] startIds,
+                  int[] endIds, boolean[] enabled) {
+            this.neuronIds = neuronIds;
+            this.neuronLayers = neuronLayers;
+            this.hiddenLayers = hiddenLayers;
+            this.innovations = innovations;
+            this.startIds = startIds;
+            this.endIds = endIds;
+            this.enabled = enabled;
+        }
+
+        /**
+         * Returns a hash of everything in this structure, see GenomePool
+         */
+        int contentHash() {
+            int hash = contentHash;
+            if (hash == 0) {
+                hash = 31 * hiddenLayers + Arrays.hashCode(neuronIds);
+                hash = 31 * hash + Arrays.hashCode(neuronLayers);
+                hash = 31 * hash + Arrays.hashCode(innovations);
+                hash = 31 * hash + Arrays.hashCode(startIds);
+                hash = 31 * hash + Arrays.hashCode(endIds);
+                hash = 31 * hash + Arrays.hashCode(enabled);
+                contentHash = hash == 0 ? 1 : hash;
+            }
+            return contentHash;
+        }
+
+        /**
+         * Returns whether "other" holds exactly the same genes as this structure
+         */
+        boolean sameGenes(Structure other) {
+            return this == other || (contentHash() == other.contentHash()
+                    && hiddenLayers == other.hiddenLayers
+                    && Arrays.equals(neuronIds, other.neuronIds)
+                    && Arrays.equals(neuronLayers, other.neuronLayers)
+                    && Arrays.equals(innovations, other.innovations)
+                    && Arrays.equals(startIds, other.startIds)
+                    && Arrays.equals(endIds, other.endIds)
+                    && Arrays.equals(enabled, other.enabled));
+        }
+
+        /**
+         * Returns the compiled topology, compiling it the first time
+         */
+        Topology topology() {
+            Topology result = topology;
+            if (result == null) {
+                result = compileTopology();
+                topology = result;
+            }
+            return result;
+        }
+
+        /**
+         * Returns the synapse gene indices sorted by innovation number, sorting them the first time
+         */
+        int[] sortedGenes() {
+            int[] result = sortedGenes;
+            if (result == null) {
+                long[] packed = new long[innovations.length];
+                for (int s = 0; s < innovations.length; s++) {
+                    packed[s] = ((long) innovations[s] << 32) | s;
+                }
+                Arrays.sort(packed);
+                int[] sorted = new int[packed.length];
+                result = new int[packed.length];
+                for (int i = 0; i < packed.length; i++) {
+                    sorted[i] = (int) (packed[i] >>> 32);
+                    result[i] = (int) packed[i];
+                }
+                sortedInnovations = sorted;
+                sortedGenes = result;
+            }
+            return result;
+        }
+
+        /**
+         * Returns the innovation numbers in ascending order
+         */
+        int[] sortedInnovations() {
+            sortedGenes();
+            return sortedInnovations;
+        }
+
+        /**
+         * helper method, orders the neurons into slots (inputs, hidden layers in order, outputs, each
+         * by id) and collects each slot's enabled incoming synapses from earlier slots
+         */
+        private Topology compileTopology() {
+            List<Integer> order = new ArrayList<>();
+            addLayer(order, 0);
+            int inputCount = order.size();
+            for (int layer = 1; layer <= hiddenLayers; layer++) {
+                addLayer(order, layer);
+            }
+            int firstOutput = order.size();
+            addLayer(order, -1);
+
+            Map<Integer, Integer> slots = new HashMap<>();
+            for (int slot = 0; slot < order.size(); slot++) {
+                slots.put(neuronIds[order.get(slot)], slot);
+            }
+            Map<Integer, List<Integer>> incoming = new HashMap<>();
+            for (int s = 0; s < innovations.length; s++) {
+                incoming.computeIfAbsent(endIds[s], k -> new ArrayList<>()).add(s);
+            }
+
+            int[] offsets = new int[order.size() + 1];
+            int[] sources = new int[innovations.length];
+            int[] weightIndex = new int[innovations.length];
+            int count = 0;
+            for (int slot = 0; slot < order.size(); slot++) {
+                if (slot >= inputCount) {
+                    for (int s : incoming.getOrDefault(neuronIds[order.get(slot)], List.of())) {
+                        Integer source = slots.get(startIds[s]);
+                        if (enabled[s] && source != null && source < slot) {
+                            sources[count] = source;
+                            weightIndex[count] = s;
+                            count++;
+                        }
+                    }
+                }
+                offsets[slot + 1] = count;
+            }
+            int outputCount = order.size() - firstOutput;
+            int[] compiledSources = Arrays.copyOf(sources, count);
+            return new Topology(inputCount, outputCount, offsets, compiledSources,
+                    Arrays.copyOf(weightIndex, count), CompiledNetwork.hash(inputCount, outputCount, offsets, compiledSources));
+        }
+
+        /**
+         * helper method, appends the indices of the neurons in "layer" to "order"
+         */
+        private void addLayer(List<Integer> order, int layer) {
+            for (int i = 0; i < neuronIds.length; i++) {
+                if (neuronLayers[i] == layer) {
+                    order.add(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * A compiled topology and its hash, computed once per structure: see CompiledNetwork
+     */
+    record Topology(int inputCount, int outputCount, int[] offsets, int[] sources, int[] weightIndex, int hash) {}
+
+    /**
+     * This genome's structure, which may be shared with other genomes
+     */
+    private final Structure structure;
+
+    /**
+     * The weight of each synapse gene
+     */
+    private final double[] weights;
+
+    /**
+     * This genome's network, compiled the first time it is needed
+     */
+    private volatile CompiledNetwork compiled;
+
+    /**
+     * Constructs a genome from a structure and its weights
+     */
+    Genome(Structure structure, double[] weights) {
+        assert weights.length == structure.innovations.length;
+        this.structure = structure;
+        this.weights = weights;
+    }
+
+    /**
+     * Returns this genome's structure
+     */
+    Structure structure() { return structure; }
+
+    /**
+     * Returns the number of neuron genes and synapse genes
+     */
+    public int neuronCount() { return structure.neuronIds.length; }
+    public int synapseCount() { return structure.innovations.length; }
+
+    /**
+     * Returns the number of hidden layers
+     */
+    public int hiddenLayers() { return structure.hiddenLayers; }
+
+    /**
+     * getters for the synapse gene at index "i"
+     */
+    public int innovation(int i) { return structure.innovations[i]; }
+    public double weight(int i) { return weights[i]; }
+    public boolean isEnabled(int i) { return structure.enabled[i]; }
+
+    /**
+     * Returns a copy of the weights, indexed like the synapse genes
+     */
+    public double[] copyWeights() { return weights.clone(); }
+
+    /**
+     * Returns a genome with this genome's structure and "weights", which the genome takes ownership of
+     */
+    public Genome withWeights(double[] weights) {
+        if (weights.length != synapseCount()) {
+            throw new IllegalArgumentException("Expected " + synapseCount() + " weights, got " + weights.length);
+        }
+        return new Genome(structure, weights);
+    }
+
+    /**
+     * Returns whether "other" has the same structure object as this genome, i.e. one of them was made
+     * from the other by changing weights only
+     */
+    public boolean sharesStructure(Genome other) {
+        return structure == other.structure;
+    }
+
+    /**
+     * Returns the NEAT compatibility distance between this genome and "other":
+     * excess * E / N + disjoint * D / N + weight * W, where E and D are the numbers of excess and
+     * disjoint genes, N is the number of genes in the larger genome (or 1 below 20 genes) and W is the
+     * average weight difference of the matching genes.
+     * Walks both genomes' sorted innovation numbers once, so it takes time linear in the number of genes
+     */
+    public double compatibility(Genome other, double excess, double disjoint, double weight) {
+        int[] innovationsA = structure.sortedInnovations();
+        int[] genesA = structure.sortedGenes();
+        int[] innovationsB = other.structure.sortedInnovations();
+        int[] genesB = other.structure.sortedGenes();
+
+        int a = 0;
+        int b = 0;
+        int matching = 0;
+        int unmatched = 0;
+        double weightDifference = 0;
+        while (a < innovationsA.length && b < innovationsB.length) {
+            if (innovationsA[a] == innovationsB[b]) {
+                weightDifference += Math.abs(weights[genesA[a++]] - other.weights[genesB[b++]]);
+                matching++;
+            } else if (innovationsA[a] < innovationsB[b]) {
+                a++;
+                unmatched++;
+            } else {
+                b++;
+                unmatched++;
+            }
+        }
+        // whatever is left over in one genome lies beyond the other's last innovation
+        int excessGenes = innovationsA.length - a + innovationsB.length - b;
+        int genes = Math.max(innovationsA.length, innovationsB.length);
+        double n = genes < 20 ? 1 : genes;
+        return excess * excessGenes / n + disjoint * unmatched / n
+                + (matching == 0 ? 0 : weight * weightDifference / matching);
+    }
+
+    /**
+     * Returns this genome's network compiled into flat arrays, compiling it the first time
+     */
+    public CompiledNetwork compiled() {
+        CompiledNetwork network = compiled;
+        if (network == null) {
+            Topology topology = structure.topology();
+            int[] weightIndex = topology.weightIndex();
+            double[] compiledWeights = new double[weightIndex.length];
+            for (int s = 0; s < weightIndex.length; s++) {
+                compiledWeights[s] = weights[weightIndex[s]];
+            }
+            network = new CompiledNetwork(topology.inputCount(), topology.outputCount(), topology.offsets(),
+                    topology.sources(), compiledWeights, topology.hash());
+            compiled = network;
+        }
+        return network;
+    }
+}
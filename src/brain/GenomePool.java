@@ -0,0 +1,87 @@
+package brain;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interns genome structures, so that every brain in a world with the same neurons and synapse genes
+ * shares one structure and its compiled topology, and differs from the others only in its weights.
+ * Seeded critters all start with the same structure, and structural mutations often rediscover one that
+ * is already alive, since innovation numbers are given per neuron pair.
+ * Structures are held weakly, so the pool only keeps the ones some genome still uses.
+ */
+public class GenomePool {
+
+    /**
+     * A weakly held structure, remembering its hash so it can be found again once it is cleared
+     */
+    private static final class Entry extends WeakReference<Genome.Structure> {
+        final int hash;
+
+        Entry(Genome.Structure structure, ReferenceQueue<Genome.Structure> queue) {
+            super(structure, queue);
+            this.hash = structure.contentHash();
+        }
+    }
+
+    /**
+     * The interned structures, by content hash
+     */
+    private final Map<Integer, List<Entry>> structures = new HashMap<>();
+
+    /**
+     * Entries whose structure has been garbage collected
+     */
+    private final ReferenceQueue<Genome.Structure> cleared = new ReferenceQueue<>();
+
+    /**
+     * The number of live entries
+     */
+    private int size;
+
+    /**
+     * Returns the interned structure with the same genes as "structure", interning structure itself if
+     * there is none
+     */
+    synchronized Genome.Structure intern(Genome.Structure structure) {
+        expunge();
+        List<Entry> bucket = structures.computeIfAbsent(structure.contentHash(), k -> new ArrayList<>(1));
+        for (Entry entry : bucket) {
+            Genome.Structure interned = entry.get();
+            if (interned != null && interned.sameGenes(structure)) {
+                return interned;
+            }
+        }
+        bucket.add(new Entry(structure, cleared));
+        size++;
+        return structure;
+    }
+
+    /**
+     * Returns the number of distinct structures in the pool
+     */
+    public synchronized int size() {
+        expunge();
+        return size;
+    }
+
+    /**
+     * helper method, removes the entries whose structure has been garbage collected
+     */
+    private void expunge() {
+        for (Object ref = cleared.poll(); ref != null; ref = cleared.poll()) {
+            Entry entry = (Entry) ref;
+            List<Entry> bucket = structures.get(entry.hash);
+            if (bucket != null && bucket.remove(entry)) {
+                size--;
+                if (bucket.isEmpty()) {
+                    structures.remove(entry.hash);
+                }
+            }
+        }
+    }
+}
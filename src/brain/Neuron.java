@@ -1,8 +1,11 @@
 package brain;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
 
 /**
  * A representation of a neuron within the critter's brain. Takes in the weighted sum of all incoming
@@ -42,6 +45,14 @@ public class Neuron {
     private List<Synapse> incomingSynapses;
     private List<Synapse> outgoingSynapses;
 
+    /**
+     * The enabled synapses of incomingSynapses and outgoingSynapses, kept up to date as synapses are
+     * added, enabled and disabled. A synapse is appended when it is added or enabled, and a disabled
+     * one is swapped out for the last, so the order is not the order the synapses were added in
+     */
+    private final SynapseArray enabledIncoming = new SynapseArray(true);
+    private final SynapseArray enabledOutgoing = new SynapseArray(false);
+
     /**
      * Constructs a new neuron
      */
@@ -95,32 +106,34 @@ public class Neuron {
     /**
      * Sets this neuron's layer to "layer"
      */
-    public void setLayer(int layer) { this.layer = layer; }
+    public void setLayer(int layer) {
+        this.layer = layer;
+        if (brain != null) {
+            brain.invalidate();
+        }
+    }
 
     /**
      * Returns a list of incoming synapses for this neuron
+     * The list is a live, read-only view of the enabled incoming synapses, so calling this allocates nothing
      */
     public List<Synapse> incomingSynapses() {
-        List<Synapse> synapses = new ArrayList<>();
-        for (Synapse synapse : incomingSynapses) {
-            if (synapse.isEnabled()) {
-                synapses.add(synapse);
-            }
-        }
-        return synapses;
+        return enabledIncoming;
+    }
+
+    /**
+     * Returns every incoming synapse, enabled or not, in the order they were added
+     */
+    List<Synapse> allIncomingSynapses() {
+        return incomingSynapses;
     }
 
     /**
      * Returns a list of outgoing synapses for this neuron
+     * The list is a live, read-only view of the enabled outgoing synapses, so calling this allocates nothing
      */
     public List<Synapse> outgoingSynapses() {
-        List<Synapse> synapses = new ArrayList<>();
-        for (Synapse synapse : outgoingSynapses) {
-            if (synapse.isEnabled()) {
-                synapses.add(synapse);
-            }
-        }
-        return synapses;
+        return enabledOutgoing;
     }
 
     /**
@@ -135,6 +148,12 @@ public class Neuron {
      */
     public void addIncomingSynapse(Synapse synapse) {
         incomingSynapses.add(synapse);
+        if (synapse.isEnabled()) {
+            enabledIncoming.append(synapse);
+        }
+        if (brain != null) {
+            brain.invalidate();
+        }
     }
 
     /**
@@ -142,6 +161,22 @@ public class Neuron {
      */
     public void addOutgoingSynapse(Synapse synapse) {
         outgoingSynapses.add(synapse);
+        if (synapse.isEnabled()) {
+            enabledOutgoing.append(synapse);
+        }
+    }
+
+    /**
+     * Brings the enabled synapse lists up to date after "synapse", one of this neuron's synapses, was
+     * enabled or disabled. O(1): the synapse is appended, or swapped out using the index it keeps
+     */
+    void synapseToggled(Synapse synapse) {
+        if (synapse.end() == this) {
+            enabledIncoming.toggled(synapse);
+        }
+        if (synapse.start() == this) {
+            enabledOutgoing.toggled(synapse);
+        }
     }
 
     /**
@@ -155,12 +190,11 @@ public class Neuron {
      */
     public double processNeuron() {
         double activation = 0;
-        for (Synapse synapse : incomingSynapses) {
-            if (synapse.isEnabled()) {
-                Neuron start = synapse.start();
-                double weightedActivation = start.activation() * synapse.weight();
-                activation += weightedActivation;
-            }
+        for (int i = 0; i < enabledIncoming.size(); i++) {
+            Synapse synapse = enabledIncoming.get(i);
+            Neuron start = synapse.start();
+            double weightedActivation = start.activation() * synapse.weight();
+            activation += weightedActivation;
         }
         double normalizedActivation = reLU(activation);
         setActivation(normalizedActivation);
@@ -174,6 +208,74 @@ public class Neuron {
         return Math.max(0, activation);
     }
 
+    /**
+     * A growable array of synapses, read by others through the List interface. Each synapse in it
+     * keeps its index (see Synapse.incomingSlot and Synapse.outgoingSlot), so it can be removed in O(1)
+     */
+    private static final class SynapseArray extends AbstractList<Synapse> implements RandomAccess {
+        private Synapse[] items = new Synapse[4];
+        private int size;
+
+        /**
+         * Whether this array holds a neuron's incoming synapses, and so which index the synapses keep
+         */
+        private final boolean incoming;
+
+        SynapseArray(boolean incoming) {
+            this.incoming = incoming;
+        }
+
+        /**
+         * Appends "synapse"
+         */
+        void append(Synapse synapse) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            setSlot(synapse, size);
+            items[size++] = synapse;
+        }
+
+        /**
+         * Appends "synapse" if it was enabled, or removes it if it was disabled, by moving the last
+         * synapse into its place
+         */
+        void toggled(Synapse synapse) {
+            int slot = incoming ? synapse.incomingSlot : synapse.outgoingSlot;
+            if (synapse.isEnabled() && slot < 0) {
+                append(synapse);
+            } else if (!synapse.isEnabled() && slot >= 0) {
+                Synapse last = items[--size];
+                items[slot] = last;
+                setSlot(last, slot);
+                items[size] = null;
+                setSlot(synapse, -1);
+            }
+        }
+
+        /**
+         * helper method, records that "synapse" is at index "slot" of this array
+         */
+        private void setSlot(Synapse synapse, int slot) {
+            if (incoming) {
+                synapse.incomingSlot = slot;
+            } else {
+                synapse.outgoingSlot = slot;
+            }
+        }
+
+        @Override
+        public Synapse get(int index) {
+            Objects.checkIndex(index, size);
+            return items[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
     /**
      * asserts the class invariant
      */
@@ -0,0 +1,44 @@
+package brain;
+
+/**
+ * A group of critters whose genomes are close to each other, see SpeciesRegistry.
+ * Each species keeps the genome of its first member as its representative, and newborns are only ever
+ * compared with representatives.
+ */
+public final class Species {
+    /**
+     * The species' id, counting up from 1 in each registry
+     */
+    private final int id;
+
+    /**
+     * The genome newborns are compared with
+     */
+    private final Genome representative;
+
+    /**
+     * The number of live critters in the species
+     */
+    private int size;
+
+    /**
+     * Constructs a new, empty species represented by "representative"
+     */
+    Species(int id, Genome representative) {
+        this.id = id;
+        this.representative = representative;
+    }
+
+    /**
+     * getters for the id, representative and number of live members
+     */
+    public int id() { return id; }
+    public Genome representative() { return representative; }
+    public int size() { return size; }
+
+    /**
+     * Adds or removes one member
+     */
+    void join() { size++; }
+    void leave() { size--; }
+}
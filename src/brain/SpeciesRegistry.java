@@ -0,0 +1,115 @@
+package brain;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sorts a world's critters into species with NEAT's compatibility distance, see Genome.compatibility.
+ * A newborn is compared with its parent's species first, which is almost always a match, and otherwise
+ * with the representative of every other live species, so a birth costs time proportional to the number
+ * of species times the genome length, regardless of the population.
+ * Not thread-safe: births and deaths happen in the serial part of a tick.
+ */
+public class SpeciesRegistry {
+    /**
+     * The default coefficients and threshold, from the original NEAT paper
+     */
+    public static final double DEFAULT_EXCESS = 1.0;
+    public static final double DEFAULT_DISJOINT = 1.0;
+    public static final double DEFAULT_WEIGHT = 0.4;
+    public static final double DEFAULT_THRESHOLD = 3.0;
+
+    /**
+     * The coefficients for excess genes, disjoint genes and matching weight difference
+     */
+    private final double excess;
+    private final double disjoint;
+    private final double weight;
+
+    /**
+     * A genome belongs to a species if its distance to the representative is below this
+     */
+    private final double threshold;
+
+    /**
+     * The live species, oldest first
+     */
+    private final List<Species> species = new ArrayList<>();
+
+    /**
+     * The id of the last species created
+     */
+    private int lastId;
+
+    /**
+     * Constructs a registry with the default coefficients and threshold
+     */
+    public SpeciesRegistry() {
+        this(DEFAULT_EXCESS, DEFAULT_DISJOINT, DEFAULT_WEIGHT, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Constructs a registry with the given coefficients and threshold
+     */
+    public SpeciesRegistry(double excess, double disjoint, double weight, double threshold) {
+        this.excess = excess;
+        this.disjoint = disjoint;
+        this.weight = weight;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Adds a critter with "genome" to the first species it is compatible with, trying "hint" (usually
+     * the parent's species, may be null) first. If there is none, starts a new species with genome as
+     * its representative. Returns the species
+     */
+    public Species assign(Genome genome, Species hint) {
+        Species match = null;
+        if (hint != null && hint.size() > 0 && compatible(genome, hint)) {
+            match = hint;
+        }
+        for (int i = 0; match == null && i < species.size(); i++) {
+            Species candidate = species.get(i);
+            if (candidate != hint && compatible(genome, candidate)) {
+                match = candidate;
+            }
+        }
+        if (match == null) {
+            match = new Species(++lastId, genome);
+            species.add(match);
+        }
+        match.join();
+        return match;
+    }
+
+    /**
+     * Removes one member from "species", dropping the species once it has no members left
+     */
+    public void remove(Species species) {
+        species.leave();
+        if (species.size() == 0) {
+            this.species.remove(species);
+        }
+    }
+
+    /**
+     * Returns the live species, oldest first
+     */
+    public List<Species> species() {
+        return List.copyOf(species);
+    }
+
+    /**
+     * Returns the distance between "a" and "b" with this registry's coefficients
+     */
+    public double distance(Genome a, Genome b) {
+        return a.compatibility(b, excess, disjoint, weight);
+    }
+
+    /**
+     * helper method, returns whether "genome" is close enough to the representative of "species"
+     */
+    private boolean compatible(Genome genome, Species species) {
+        return distance(genome, species.representative()) < threshold;
+    }
+}
@@ -32,9 +32,17 @@ public class Synapse {
      */
     private final int innovation;
 
+    /**
+     * The index of this synapse in its end neuron's enabled incoming list and in its start neuron's
+     * enabled outgoing list, or -1 while it is not in that list. Kept up to date by Neuron
+     */
+    int incomingSlot = -1;
+    int outgoingSlot = -1;
+
     /**
      * Constructs a new synapse with "in" and "out" source and end neurons.
-     * The innovation number is incremented from the global innovation number
+     * The innovation number is the one the world's innovation manager gives this pair of neuron ids,
+     * incremented from the global innovation number if the pair is new
      */
     public Synapse(Neuron start, Neuron end, double weight, boolean enabled) {
         InnovationManager innovationManager = start.brain().critter().getWorld().innovationManager();
@@ -43,8 +51,7 @@ public class Synapse {
         this.end = end;
         this.weight = weight;
         this.enabled = enabled;
-        this.innovation = innovationManager.innovation() + 1;
-        innovationManager.addSynapse(this);
+        this.innovation = innovationManager.register(start.getId(), end.getId());
 
         start.addOutgoingSynapse(this);
         end.addIncomingSynapse(this);
@@ -54,8 +61,8 @@ public class Synapse {
     }
 
     /**
-     * Constructs a new synapse with "in" and "out" source and end neurons.
-     * The innovation number is set manually for testing purposes
+     * Constructs a new synapse with "in" and "out" source and end neurons and a known innovation number,
+     * as when a brain is rebuilt from the synapse genes of a Genome. The innovation manager is not consulted
      */
     public Synapse(Neuron start, Neuron end, double weight, boolean enabled, int innovation) {
         this.start = start;
@@ -82,8 +89,27 @@ public class Synapse {
     /**
      * setter methods for weight and enabled
      */
-    public void setWeight(double weight) { this.weight = weight; }
-    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public void setWeight(double weight) {
+        this.weight = weight;
+        invalidate();
+    }
+    public void setEnabled(boolean enabled) {
+        if (this.enabled != enabled) {
+            this.enabled = enabled;
+            start.synapseToggled(this);
+            end.synapseToggled(this);
+        }
+        invalidate();
+    }
+
+    /**
+     * helper method, tells the end neuron's brain that its compiled network is out of date
+     */
+    private void invalidate() {
+        if (end.brain() != null) {
+            end.brain().invalidate();
+        }
+    }
 
     /**
      * asserts the class invariant
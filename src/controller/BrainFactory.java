@@ -3,6 +3,8 @@ package controller;
 import brain.Brain;
 import brain.Neuron;
 import brain.Synapse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 import model.Critter;
 
 /**
@@ -16,9 +18,11 @@ public class BrainFactory {
 
     /**
      * generates a brain
+     * The initial weights are drawn from the critter's world's random stream, if it has a world
      */
     public Brain generateBrain(Critter critter) {
         Brain brain = new Brain(critter);
+        RandomGenerator random = critter.getWorld() != null ? critter.getWorld().random() : ThreadLocalRandom.current();
 
         // input neurons: health, hunger, thirst, peaceful critter density, angry critter density, food density
         Neuron healthNeuron = new Neuron(0, brain);
@@ -61,37 +65,37 @@ public class BrainFactory {
         brain.addNeuron(restNeuron);
 
         // initial connections (all random)
-        Synapse health_food = new Synapse (healthNeuron, foodNeuron, randomWeight(), true);
+        Synapse health_food = new Synapse (healthNeuron, foodNeuron, randomWeight(random), true);
         brain.addSynapse(health_food);
-        Synapse health_water = new Synapse (healthNeuron, waterNeuron, randomWeight(), true);
+        Synapse health_water = new Synapse (healthNeuron, waterNeuron, randomWeight(random), true);
         brain.addSynapse(health_water);
-        Synapse health_attack = new Synapse (healthNeuron, attackNeuron, randomWeight(), true);
+        Synapse health_attack = new Synapse (healthNeuron, attackNeuron, randomWeight(random), true);
         brain.addSynapse(health_attack);
-        Synapse health_reproduce = new Synapse (healthNeuron, reproduceNeuron, randomWeight(), true);
+        Synapse health_reproduce = new Synapse (healthNeuron, reproduceNeuron, randomWeight(random), true);
         brain.addSynapse(health_reproduce);
-        Synapse health_rest = new Synapse (healthNeuron, restNeuron, randomWeight(), true);
+        Synapse health_rest = new Synapse (healthNeuron, restNeuron, randomWeight(random), true);
         brain.addSynapse(health_rest);
 
-        Synapse hunger_food = new Synapse (healthNeuron, foodNeuron, randomWeight(), true);
+        Synapse hunger_food = new Synapse (hungerNeuron, foodNeuron, randomWeight(random), true);
         brain.addSynapse(hunger_food);
-        Synapse hunger_water = new Synapse (healthNeuron, waterNeuron, randomWeight(), true);
+        Synapse hunger_water = new Synapse (hungerNeuron, waterNeuron, randomWeight(random), true);
         brain.addSynapse(hunger_water);
-        Synapse hunger_attack = new Synapse (healthNeuron, attackNeuron, randomWeight(), true);
+        Synapse hunger_attack = new Synapse (hungerNeuron, attackNeuron, randomWeight(random), true);
         brain.addSynapse(hunger_attack);
-        Synapse hunger_reproduce = new Synapse (healthNeuron, reproduceNeuron, randomWeight(), true);
+        Synapse hunger_reproduce = new Synapse (hungerNeuron, reproduceNeuron, randomWeight(random), true);
         brain.addSynapse(hunger_reproduce);
-        Synapse hunger_rest = new Synapse (healthNeuron, restNeuron, randomWeight(), true);
+        Synapse hunger_rest = new Synapse (hungerNeuron, restNeuron, randomWeight(random), true);
         brain.addSynapse(hunger_rest);
 
-        Synapse thirst_food = new Synapse (thirstNeuron, foodNeuron, randomWeight(), true);
+        Synapse thirst_food = new Synapse (thirstNeuron, foodNeuron, randomWeight(random), true);
         brain.addSynapse(thirst_food);
-        Synapse thirst_water = new Synapse (thirstNeuron, waterNeuron, randomWeight(), true);
+        Synapse thirst_water = new Synapse (thirstNeuron, waterNeuron, randomWeight(random), true);
         brain.addSynapse(thirst_water);
-        Synapse thirst_attack = new Synapse (thirstNeuron, attackNeuron, randomWeight(), true);
+        Synapse thirst_attack = new Synapse (thirstNeuron, attackNeuron, randomWeight(random), true);
         brain.addSynapse(thirst_attack);
-        Synapse thirst_reproduce = new Synapse (thirstNeuron, reproduceNeuron, randomWeight(), true);
+        Synapse thirst_reproduce = new Synapse (thirstNeuron, reproduceNeuron, randomWeight(random), true);
         brain.addSynapse(thirst_reproduce);
-        Synapse thirst_rest = new Synapse (thirstNeuron, restNeuron, randomWeight(), true);
+        Synapse thirst_rest = new Synapse (thirstNeuron, restNeuron, randomWeight(random), true);
         brain.addSynapse(thirst_rest);
 
         return brain;
@@ -100,7 +104,7 @@ public class BrainFactory {
     /**
      * Helper method to generate a random weight between 0.0 and 1.0
      */
-    private double randomWeight() {
-        return Math.random();
+    private double randomWeight(RandomGenerator random) {
+        return random.nextDouble();
     }
 }
@@ -4,6 +4,7 @@ import behavior.CritterAI;
 import behavior.InteractionManager;
 import java.awt.Point;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 import model.Critter;
 import model.Critter.Orientation;
 import model.Critter.Sex;
@@ -21,36 +22,39 @@ public class CritterFactory {
 
     /**
      * Creates and returns a critter with randomized attributes
+     * The attributes, like the critter's brain, are drawn from the world's random stream, so a world
+     * seeded the same way gets the same critters
      */
     public Critter generateCritter(Point p, WorldModel world) {
-        CritterAI critterai = new CritterAI(Runtime.getRuntime().availableProcessors());
+        CritterAI critterai = new CritterAI();
 
         // random number generator for attributes for critter construction
+        RandomGenerator random = world != null ? world.random() : ThreadLocalRandom.current();
         Orientation[] orientations = Orientation.values();
-        Orientation orientation = orientations[ThreadLocalRandom.current().nextInt(orientations.length)];
+        Orientation orientation = orientations[random.nextInt(orientations.length)];
 
-        int maxAge = (int) (Math.random() * 2000);
+        int maxAge = (int) (random.nextDouble() * 2000);
 
         Sex[] sexes = Sex.values();
-        Sex sex = sexes[ThreadLocalRandom.current().nextInt(sexes.length)];
+        Sex sex = sexes[random.nextInt(sexes.length)];
 
-        double size =  (Math.random() * 100);
+        double size =  (random.nextDouble() * 100);
 
         double maxHealth = size;
 
-        double offense =  (Math.random() * 100);
+        double offense =  (random.nextDouble() * 100);
 //        double offense = size;
 
-        double defense =  (Math.random() * 100);
+        double defense =  (random.nextDouble() * 100);
 //        double defense = size;
-        double maxHunger = (Math.random() * 100);
-        double maxThirst = (Math.random() * 100);
+        double maxHunger = (random.nextDouble() * 100);
+        double maxThirst = (random.nextDouble() * 100);
 
-        double aggression = (Math.random() * 100);
+        double aggression = (random.nextDouble() * 100);
 
-        double mutationRate = (Math.random() / 10);
+        double mutationRate = (random.nextDouble() / 10);
 
-        int vision = (int) (Math.random() * 30);
+        int vision = (int) (random.nextDouble() * 30);
 
         Critter critter = new Critter(
                 critterai,
@@ -0,0 +1,118 @@
+package controller;
+
+import behavior.Pathfinder;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import model.WorldModel;
+
+/**
+ * Runs a simulation without any display, for long experiments on servers.
+ * Arguments are given as key=value pairs, for example
+ *     java controller.HeadlessSimulation width=400 height=300 ticks=100000 report=10
+ * Recognized keys, with the GUI's defaults:
+ *     width=120 height=90 food=0.02 critters=0.01 moveCost=0.001 rotateCost=0.0004 baseMoveCost=0.5
+ *     baseRotateCost=1.1 sizeCost=1.1 mutationRate=0.1 baseDamage=40 damageScaling=1.3 hunger=0.4
+ *     foodGen=2.0 scale=0.03 seed=(random)
+ *     ticks=0         number of ticks to run, 0 to run until the process is killed
+ *     tps=0           ticks per second, 0 for as fast as possible (ignored when ticks is set)
+ *     report=5        seconds between progress lines on standard output
+ *     buckets=32      buckets per brain input for the decision caches, 0 to evaluate every brain exactly
+ *     paths=astar     how critters plan paths: astar, hierarchical for large worlds, or jump_point
+ */
+public class HeadlessSimulation {
+
+    /**
+     * Parses the arguments, builds the world, and runs it until done
+     */
+    public static void main(String[] args) throws InterruptedException {
+        System.setProperty("java.awt.headless", "true");
+        Map<String, String> options = parse(args);
+
+        WorldModel world = new WorldModel(
+                intOption(options, "width", 120),
+                intOption(options, "height", 90),
+                doubleOption(options, "food", 0.02),
+                doubleOption(options, "critters", 0.01),
+                doubleOption(options, "moveCost", 0.001),
+                doubleOption(options, "rotateCost", 0.0004),
+                doubleOption(options, "baseMoveCost", 0.5),
+                doubleOption(options, "baseRotateCost", 1.1),
+                doubleOption(options, "sizeCost", 1.1),
+                doubleOption(options, "mutationRate", 0.1),
+                doubleOption(options, "baseDamage", 40),
+                doubleOption(options, "damageScaling", 1.3),
+                doubleOption(options, "hunger", 0.4),
+                doubleOption(options, "foodGen", 2.0),
+                doubleOption(options, "scale", 0.03),
+                options.containsKey("seed") ? Long.parseLong(options.get("seed")) : new Random().nextLong()
+        );
+
+        long ticks = Long.parseLong(options.getOrDefault("ticks", "0"));
+        double ticksPerSecond = doubleOption(options, "tps", 0);
+        long reportMillis = (long) (doubleOption(options, "report", 5) * 1000);
+
+        world.getPathfinder().setStrategy(
+                Pathfinder.Strategy.valueOf(options.getOrDefault("paths", "astar").toUpperCase()));
+        SimulationRunner runner = new SimulationRunner(world);
+        runner.getTickEngine().getBrainEvaluator().setBuckets(
+                intOption(options, "buckets", TickEngine.DEFAULT_DECISION_BUCKETS));
+        if (ticks > 0) {
+            runner.runTicks(ticks);
+        } else if (ticksPerSecond > 0) {
+            runner.runAtFixedRate(ticksPerSecond);
+        } else {
+            runner.runAsFastAsPossible();
+        }
+
+        System.out.println("tick\tcritters\tspecies\tfood\tticks/s\tcache hits\tpath hits");
+        long start = System.nanoTime();
+        while (runner.isRunning()) {
+            Thread.sleep(reportMillis);
+            report(runner, start);
+        }
+        runner.awaitStop();
+        report(runner, start);
+    }
+
+    /**
+     * helper method, prints one progress line
+     */
+    private static void report(SimulationRunner runner, long start) {
+        String line = runner.read(() -> {
+            WorldModel world = runner.getWorld();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            return String.format("%d\t%d\t%d\t%d\t%.1f\t%.1f%%\t%.1f%%", world.getTickCount(),
+                    world.getCritters().size(), world.speciesRegistry().species().size(), world.getFoods().size(),
+                    world.getTickCount() / seconds,
+                    runner.getTickEngine().getBrainEvaluator().cacheHitRate() * 100,
+                    world.getPathCache().hitRate() * 100);
+        });
+        System.out.println(line);
+    }
+
+    /**
+     * helper method, parses key=value arguments
+     */
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int split = arg.indexOf('=');
+            if (split <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            options.put(arg.substring(0, split), arg.substring(split + 1));
+        }
+        return options;
+    }
+
+    /**
+     * helper methods, return the option "key" parsed as a number, or "fallback" if it is not given
+     */
+    private static int intOption(Map<String, String> options, String key, int fallback) {
+        return options.containsKey(key) ? Integer.parseInt(options.get(key)) : fallback;
+    }
+    private static double doubleOption(Map<String, String> options, String key, double fallback) {
+        return options.containsKey(key) ? Double.parseDouble(options.get(key)) : fallback;
+    }
+}
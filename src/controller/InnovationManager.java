@@ -1,48 +1,148 @@
 package controller;
 
-import brain.Synapse;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 /**
  * Helps keep track of genes with the NEAT algorithm. Each world is initiated with one global InnovationManager
+ * A gene is a connection from one neuron id to another, and gets one innovation number the first time
+ * any brain grows it; every later synapse between the same ids carries the same number. Only the gene's
+ * identity is kept, as primitive arrays, never the synapses themselves, so the history holds no
+ * reference to any brain and grows with the number of distinct genes rather than with every synapse
+ * ever built
  */
 public class InnovationManager {
     /**
-     * A Map of all innovation numbers to synapses that have appeared so far
+     * The start neuron id of each gene, indexed by innovation number. Index 0 is unused
      */
-    private Map<Integer, Synapse> discovered;
+    private int[] startIds;
+
+    /**
+     * The end neuron id of each gene, indexed by innovation number. Index 0 is unused
+     */
+    private int[] endIds;
+
+    /**
+     * The number of genes discovered so far, which is also the largest innovation number
+     */
+    private int count;
+
+    /**
+     * Open-addressed table from pairKey(startId, endId) to innovation number, with linear probing.
+     * A slot is empty when its innovation number is 0. Genes are never removed
+     */
+    private long[] pairKeys;
+    private int[] pairInnovations;
 
     /**
      * Constructs a new innovation manager
      */
     public InnovationManager() {
-        this.discovered = new HashMap<>();
+        this.startIds = new int[64];
+        this.endIds = new int[64];
+        this.pairKeys = new long[128];
+        this.pairInnovations = new int[128];
     }
 
     /**
      * Returns the global innovationNumber
      */
     public int innovation() {
-        return discovered.size();
+        return count;
     }
 
     /**
-     * Returns the synapse associated with this innovation number
+     * Returns the innovation number of the gene from the neuron with id "startId" to the neuron with
+     * id "endId", or 0 if no brain has grown it yet
      */
-    public Synapse get(int innovation) {
-        assert innovation <= discovered.size();
-        return discovered.get(innovation);
+    public int innovation(int startId, int endId) {
+        long key = pairKey(startId, endId);
+        for (int slot = slot(key); ; slot = (slot + 1) & (pairKeys.length - 1)) {
+            if (pairInnovations[slot] == 0 || pairKeys[slot] == key) {
+                return pairInnovations[slot];
+            }
+        }
     }
 
     /**
-     * Adds a synapse to the discovered list
+     * Returns the innovation number of the gene from the neuron with id "startId" to the neuron with
+     * id "endId", discovering it with the next innovation number if it is new
      */
-    public void addSynapse(Synapse synapse) {
-        assert synapse != null;
-        if (discovered.containsValue(synapse)) {
-            throw new IllegalArgumentException("Synapse already discovered!");
+    public int register(int startId, int endId) {
+        int innovation = innovation(startId, endId);
+        if (innovation != 0) {
+            return innovation;
         }
-        discovered.put(synapse.innovation(), synapse);
+
+        if ((count + 1) * 2 > pairKeys.length) {
+            rehash(pairKeys.length * 2);
+        }
+        innovation = ++count;
+        if (innovation == startIds.length) {
+            startIds = Arrays.copyOf(startIds, innovation * 2);
+            endIds = Arrays.copyOf(endIds, innovation * 2);
+        }
+        startIds[innovation] = startId;
+        endIds[innovation] = endId;
+        insert(pairKey(startId, endId), innovation);
+        return innovation;
+    }
+
+    /**
+     * Returns the id of the start and end neuron of the gene with innovation number "innovation"
+     */
+    public int startId(int innovation) {
+        checkInnovation(innovation);
+        return startIds[innovation];
+    }
+    public int endId(int innovation) {
+        checkInnovation(innovation);
+        return endIds[innovation];
+    }
+
+    /**
+     * helper method, throws if no gene has innovation number "innovation"
+     */
+    private void checkInnovation(int innovation) {
+        if (innovation <= 0 || innovation > count) {
+            throw new IllegalArgumentException("Unknown innovation number: " + innovation);
+        }
+    }
+
+    /**
+     * helper method, puts a new key into the pair table, which must have room for it
+     */
+    private void insert(long key, int innovation) {
+        int slot = slot(key);
+        while (pairInnovations[slot] != 0) {
+            slot = (slot + 1) & (pairKeys.length - 1);
+        }
+        pairKeys[slot] = key;
+        pairInnovations[slot] = innovation;
+    }
+
+    /**
+     * helper method, rebuilds the pair table with "capacity" slots
+     */
+    private void rehash(int capacity) {
+        pairKeys = new long[capacity];
+        pairInnovations = new int[capacity];
+        for (int innovation = 1; innovation <= count; innovation++) {
+            insert(pairKey(startIds[innovation], endIds[innovation]), innovation);
+        }
+    }
+
+    /**
+     * helper method, returns the home slot of "key" in the pair table
+     */
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (pairKeys.length - 1);
+    }
+
+    /**
+     * helper method, packs a pair of neuron ids into one key
+     */
+    private static long pairKey(int startId, int endId) {
+        return ((long) startId << 32) | (endId & 0xFFFFFFFFL);
     }
 }
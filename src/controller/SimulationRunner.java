@@ -0,0 +1,265 @@
+package controller;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+import model.CellGrid;
+import model.Food;
+import model.WorldModel;
+
+/**
+ * Runs a world's simulation on its own thread, independent of any display.
+ * Three modes are supported: as fast as possible, a fixed number of ticks per second, and a fixed
+ * number of ticks after which the runner stops by itself. The world's thread pool is started with the
+ * runner and shut down when it stops.
+ * Each tick runs while holding a lock, so observers such as the GUI can take consistent samples of the
+ * world between ticks with read(), at whatever rate suits them.
+ */
+public class SimulationRunner {
+
+    /**
+     * The ways the simulation can be run
+     */
+    public enum Mode {
+        AS_FAST_AS_POSSIBLE, FIXED_RATE, FIXED_TICKS
+    }
+
+    /**
+     * The world being simulated
+     */
+    private final WorldModel world;
+
+    /**
+     * Runs the critters' decisions and actions each tick
+     */
+    private final TickEngine tickEngine;
+
+    /**
+     * Held while a tick runs, and by read()
+     */
+    private final Object tickLock = new Object();
+
+    /**
+     * The cells picked to grow food this tick, reused between ticks
+     */
+    private final List<Integer> spawnCells = new ArrayList<>();
+
+    /**
+     * The simulation thread, or null while stopped. A simulation thread keeps running only while it is
+     * the one stored here, so stop() just clears it, and a restart never revives a stopping thread
+     */
+    private Thread thread;
+
+    /**
+     * The most recently started simulation thread, for awaitStop()
+     */
+    private Thread lastThread;
+
+    /**
+     * The current mode, the target rate for FIXED_RATE, and the number of ticks left for FIXED_TICKS
+     */
+    private volatile Mode mode = Mode.AS_FAST_AS_POSSIBLE;
+    private volatile double ticksPerSecond;
+    private long ticksRemaining;
+
+    /**
+     * Creates a stopped runner for "world"
+     */
+    public SimulationRunner(WorldModel world) {
+        this.world = world;
+        this.tickEngine = new TickEngine(world);
+    }
+
+    /**
+     * Returns the world being simulated
+     */
+    public WorldModel getWorld() {
+        return world;
+    }
+
+    /**
+     * Returns the tick engine that advances the world
+     */
+    public TickEngine getTickEngine() {
+        return tickEngine;
+    }
+
+    /**
+     * Runs ticks back to back until stopped
+     */
+    public void runAsFastAsPossible() {
+        mode = Mode.AS_FAST_AS_POSSIBLE;
+        start();
+    }
+
+    /**
+     * Runs "ticksPerSecond" ticks per second until stopped. If a tick takes longer than its share of
+     * a second, the next one starts immediately and the runner does not try to catch up
+     */
+    public void runAtFixedRate(double ticksPerSecond) {
+        setTicksPerSecond(ticksPerSecond);
+        start();
+    }
+
+    /**
+     * Runs "ticks" ticks as fast as possible and then stops
+     */
+    public void runTicks(long ticks) {
+        synchronized (tickLock) {
+            ticksRemaining = ticks;
+        }
+        mode = Mode.FIXED_TICKS;
+        start();
+    }
+
+    /**
+     * Changes the rate of a running or future FIXED_RATE run. A rate of 0 or less means as fast as possible
+     */
+    public void setTicksPerSecond(double ticksPerSecond) {
+        this.ticksPerSecond = ticksPerSecond;
+        mode = ticksPerSecond > 0 ? Mode.FIXED_RATE : Mode.AS_FAST_AS_POSSIBLE;
+    }
+
+    /**
+     * Returns the current mode
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Returns whether the simulation is running
+     */
+    public synchronized boolean isRunning() {
+        return thread != null;
+    }
+
+    /**
+     * Asks the simulation thread to stop after its current tick. Returns immediately
+     */
+    public synchronized void stop() {
+        thread = null;
+    }
+
+    /**
+     * Waits until the most recently started simulation thread has finished
+     */
+    public void awaitStop() throws InterruptedException {
+        Thread last;
+        synchronized (this) {
+            last = lastThread;
+        }
+        if (last != null) {
+            last.join();
+        }
+    }
+
+    /**
+     * Runs "reader" between ticks, so it sees a consistent world, and returns its result.
+     * Keep readers short: the simulation waits for them
+     */
+    public <T> T read(Supplier<T> reader) {
+        synchronized (tickLock) {
+            return reader.get();
+        }
+    }
+
+    /**
+     * Runs one tick on the calling thread: advances the critters and respawns food
+     */
+    public void step() {
+        synchronized (tickLock) {
+            tickEngine.tick();
+            addFood();
+        }
+    }
+
+    /**
+     * helper method, starts the simulation thread if it is not already running
+     */
+    private synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        world.getThreadPool().start();
+        thread = new Thread(this::loop, "simulation");
+        thread.setDaemon(true);
+        lastThread = thread;
+        thread.start();
+    }
+
+    /**
+     * helper method, returns whether the calling thread is still the simulation thread
+     */
+    private synchronized boolean isCurrent() {
+        return thread == Thread.currentThread();
+    }
+
+    /**
+     * The body of the simulation thread
+     */
+    private void loop() {
+        try {
+            long nextTick = System.nanoTime();
+            while (isCurrent()) {
+                if (mode == Mode.FIXED_TICKS) {
+                    synchronized (tickLock) {
+                        if (ticksRemaining <= 0) {
+                            break;
+                        }
+                        ticksRemaining--;
+                        step();
+                    }
+                    continue;
+                }
+
+                step();
+
+                if (mode == Mode.FIXED_RATE) {
+                    long period = (long) (1_000_000_000L / ticksPerSecond);
+                    nextTick = Math.max(nextTick + period, System.nanoTime());
+                    long wait = nextTick - System.nanoTime();
+                    if (wait > 0) {
+                        Thread.sleep(wait / 1_000_000L, (int) (wait % 1_000_000L));
+                    }
+                } else {
+                    nextTick = System.nanoTime();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            synchronized (this) {
+                if (thread == Thread.currentThread()) {
+                    thread = null;
+                }
+                // leave the workers running if the simulation was restarted while this thread finished
+                if (thread == null) {
+                    world.getThreadPool().shutdown();
+                }
+            }
+        }
+    }
+
+    /**
+     * Reseeds food on the world
+     * Every grass cell independently grows food with probability 1 / (critters * food generation factor).
+     * The cells are sampled from the grid's grass index, so this costs O(food grown), not O(world area)
+     */
+    private void addFood() {
+        int numCritters = world.getCritters().size();
+        double p = 1.0 / (numCritters * world.getFOOD_GENERATION_FACTOR());
+        CellGrid grid = world.getGrid();
+
+        // pick all the cells first, since adding food takes cells out of the grass index
+        spawnCells.clear();
+        SplittableRandom random = world.random();
+        grid.sampleGrass(p, random, spawnCells::add);
+        for (int i = 0; i < spawnCells.size(); i++) {
+            int cell = spawnCells.get(i);
+            world.addFood(new Food(new Point(grid.x(cell), grid.y(cell)), (int) (random.nextDouble() * 40), 0));
+        }
+    }
+}
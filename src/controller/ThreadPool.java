@@ -1,36 +1,134 @@
 package controller;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.IntConsumer;
 
 /**
- * A fixed pool of threads to improve
- * performance by eliminating thread mechanics
+ * The simulation-wide pool of worker threads. There is one per world, so the number of threads is
+ * bounded by `parallelism` no matter how many critters there are. The pool uses work stealing, so many
+ * short tasks submitted from different critters spread evenly over the workers.
+ * The workers only exist between start() and shutdown(); while the pool is not started, submitted
+ * tasks run immediately on the calling thread.
  */
 public class ThreadPool {
     /**
-     * The pool of threads
+     * The maximum number of worker threads
      */
-    private final ExecutorService threadPool;
+    private final int parallelism;
 
     /**
-     * Creates a thread pool with "threadCount" threads
+     * The pool of threads, or null while this pool is not started
      */
-    public ThreadPool(int threadCount) {
-        this.threadPool = Executors.newFixedThreadPool(threadCount);
+    private volatile ForkJoinPool threadPool;
+
+    /**
+     * Creates a thread pool with at most "parallelism" threads. No threads are created until start()
+     */
+    public ThreadPool(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Starts the worker threads, if they are not already running
+     */
+    public synchronized void start() {
+        if (threadPool == null) {
+            threadPool = new ForkJoinPool(parallelism);
+        }
+    }
+
+    /**
+     * Returns whether the worker threads are running
+     */
+    public boolean isRunning() {
+        return threadPool != null;
+    }
+
+    /**
+     * Returns the maximum number of worker threads
+     */
+    public int getParallelism() {
+        return parallelism;
     }
 
     /**
      * Submits a new task to the thread pool
+     * If the pool is not started, the task runs on the calling thread before this method returns
      */
     public void submitTask(Runnable task) {
-        threadPool.submit(task);
+        ForkJoinPool pool = threadPool;
+        if (pool != null) {
+            try {
+                pool.execute(task);
+                return;
+            } catch (RejectedExecutionException e) {
+                // the pool was shut down after we read it, fall through and run the task here
+            }
+        }
+        task.run();
+    }
+
+    /**
+     * Runs body.accept(i) for every i in [0, count) and returns once all of them have finished.
+     * The range is split recursively so idle workers can steal halves of it. If the pool is not
+     * started, the loop runs in order on the calling thread
+     */
+    public void parallelFor(int count, IntConsumer body) {
+        ForkJoinPool pool = threadPool;
+        if (pool != null && count > 1) {
+            int grain = Math.max(1, count / (parallelism * 8));
+            try {
+                pool.invoke(new RangeTask(0, count, grain, body));
+                return;
+            } catch (RejectedExecutionException e) {
+                // the pool was shut down before the work was accepted, run it here instead
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            body.accept(i);
+        }
+    }
+
+    /**
+     * A range of parallelFor, split in half until it is at most `grain` long. Tasks are never serialized
+     */
+    @SuppressWarnings("serial")
+    private static class RangeTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final IntConsumer body;
+
+        RangeTask(int from, int to, int grain, IntConsumer body) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                for (int i = from; i < to; i++) {
+                    body.accept(i);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeTask(from, mid, grain, body), new RangeTask(mid, to, grain, body));
+        }
     }
 
     /**
-     * Closes the thread pool for new tasks
+     * Closes the thread pool for new tasks. Tasks already submitted still run, and the pool can be
+     * started again later
      */
-    public void shutdown() {
-        threadPool.shutdown();
+    public synchronized void shutdown() {
+        if (threadPool != null) {
+            threadPool.shutdown();
+            threadPool = null;
+        }
     }
 }
@@ -0,0 +1,141 @@
+package controller;
+
+import behavior.CritterAI;
+import behavior.Decision;
+import behavior.PathCache;
+import brain.BrainBatchEvaluator;
+import brain.CompiledNetwork;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import model.Critter;
+import model.CritterStore;
+import model.WorldModel;
+
+/**
+ * Advances the critters of a world by one tick in two phases.
+ * First every critter's brain is evaluated in one batch, grouped by network topology.
+ * In the decide phase every critter chooses its priority, finds its target and plans its path. This only
+ * reads the world, so it runs in parallel on the world's thread pool.
+ * In the commit phase the decisions are applied one at a time in order of critter id, each checked
+ * against the world as it is at that moment. When two critters want the same square, the one with the
+ * lower id moves first and the other finds the square taken, so the outcome does not depend on thread
+ * scheduling. Neither do the paths the critters find in the world's PathCache, which only caches the new
+ * paths once the decide phase is over.
+ */
+public class TickEngine {
+
+    /**
+     * The world this engine advances
+     */
+    private final WorldModel world;
+
+    /**
+     * The number of buckets each brain input is quantized into for the decision caches, see
+     * BrainBatchEvaluator.setBuckets
+     */
+    public static final int DEFAULT_DECISION_BUCKETS = 32;
+
+    /**
+     * Evaluates all the critters' brains at the start of each tick
+     */
+    private final BrainBatchEvaluator brains = new BrainBatchEvaluator();
+
+    /**
+     * Brain inputs and each critter's strongest brain output, reused between ticks
+     */
+    private double[] brainInputs = new double[0];
+    private int[] strongestOutputs = new int[0];
+
+    /**
+     * Creates a tick engine for "world"
+     */
+    public TickEngine(WorldModel world) {
+        this.world = world;
+        brains.setBuckets(DEFAULT_DECISION_BUCKETS);
+    }
+
+    /**
+     * Returns the evaluator for the critters' brains, to tune its decision caches and read their metrics
+     */
+    public BrainBatchEvaluator getBrainEvaluator() {
+        return brains;
+    }
+
+    /**
+     * Runs one tick for every critter alive at the start of it: decide, metabolize, commit, then
+     * remove the critters that died
+     */
+    public void tick() {
+        List<Critter> critters = new ArrayList<>(world.getCritters().values());
+        critters.sort(Comparator.comparingInt(Critter::getId));
+        int tick = world.getTickCount();
+        int[] strongest = evaluateBrains(critters);
+
+        // decide phase, in parallel. Each critter draws from its own random stream, seeded by the tick
+        // and its id, so decisions do not depend on which thread makes them
+        // and the paths they plan are only cached once they are all done
+        Decision[] decisions = new Decision[critters.size()];
+        PathCache paths = world.getPathCache();
+        paths.deferPuts();
+        try {
+            world.getThreadPool().parallelFor(critters.size(), i -> {
+                Critter critter = critters.get(i);
+                SplittableRandom random = new SplittableRandom(seed(tick, critter.getId()));
+                decisions[i] = critter.getAi().decide(critter, strongest[i], random);
+            });
+        } finally {
+            paths.applyDeferred();
+        }
+
+        // priorities first, since resting changes how much energy a critter spends this tick
+        for (Decision decision : decisions) {
+            decision.critter().setPriority(decision.priority());
+        }
+        CritterStore store = world.getCritterStore();
+        store.metabolize(world.getBASE_HUNGER_EXPENDITURE(), world.getBASE_THIRST_EXPENDITURE());
+
+        // commit phase, serially in id order
+        for (Decision decision : decisions) {
+            decision.critter().getAi().commit(decision);
+        }
+
+        List<Critter> dead = new ArrayList<>();
+        store.collectDead(dead);
+        for (Critter critter : dead) {
+            critter.die();
+        }
+        world.incrementTickCount();
+    }
+
+    /**
+     * helper method, evaluates the brains of "critters" in one batch, and returns the index of each
+     * one's strongest output. Brains are compiled here, serially, if they changed since last tick
+     */
+    private int[] evaluateBrains(List<Critter> critters) {
+        int count = critters.size();
+        if (strongestOutputs.length < count) {
+            strongestOutputs = new int[count];
+            brainInputs = new double[count * CritterAI.BRAIN_INPUTS];
+        }
+        CompiledNetwork[] networks = new CompiledNetwork[count];
+        for (int i = 0; i < count; i++) {
+            Critter critter = critters.get(i);
+            networks[i] = critter.brain().compiled();
+            CritterAI.writeBrainInput(critter, brainInputs, i * CritterAI.BRAIN_INPUTS);
+        }
+        brains.evaluate(networks, brainInputs, CritterAI.BRAIN_INPUTS, count, strongestOutputs);
+        return strongestOutputs;
+    }
+
+    /**
+     * helper method, mixes a tick and a critter id into a seed for that critter's random stream
+     */
+    private static long seed(int tick, int id) {
+        long z = ((long) tick << 32 | (id & 0xFFFFFFFFL)) + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
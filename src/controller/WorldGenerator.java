@@ -57,7 +57,6 @@ public class WorldGenerator {
     public void generateTerrain(WorldModel world) {
         int width = world.getWidth();
         int height = world.getHeight();
-        CellState[][] worldArray = world.getWorldArray();
 
         for (int x = 0; x < width; x++) {
             for (int y = 0; y < height; y++) {
@@ -78,13 +77,13 @@ public class WorldGenerator {
 
                 // Map to terrain types
                 if (noiseValue < 0.3) {
-                    worldArray[x][y] = CellState.WATER;
+                    world.setCell(x, y, CellState.WATER);
                     Water water = new Water(new Point(x, y), 0);
                     world.addWater(water);
                 } else if (noiseValue < 0.6) {
-                    worldArray[x][y] = CellState.GRASS;
+                    world.setCell(x, y, CellState.GRASS);
                 } else {
-                    worldArray[x][y] = CellState.MOUNTAIN;
+                    world.setCell(x, y, CellState.MOUNTAIN);
                 }
             }
         }
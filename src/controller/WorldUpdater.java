@@ -1,6 +1,5 @@
 package controller;
 
-import java.awt.Point;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -12,9 +11,7 @@ import javax.management.DescriptorRead;
 import javax.swing.SwingUtilities;
 import javax.swing.Timer;
 import model.Critter;
-import model.Food;
 import model.WorldModel;
-import model.WorldModel.CellState;
 import view.CritterEvoGame;
 import view.WorldView;
 
@@ -35,20 +32,37 @@ public class WorldUpdater {
      */
     private CritterEvoGame game;
 
+    /**
+     * Runs the simulation on its own thread
+     */
+    private final SimulationRunner runner;
+
     /**
      * Boolean representing whether the simulation is running or not
      */
     private boolean isRunning;
 
     /**
-     * Timer for the simulation speed
+     * Timer for sampling the world and repainting, on the Swing thread. Independent of the simulation speed
      */
     private Timer timer;
 
     /**
-     * The batch size for critters to be processed in
+     * Milliseconds between samples of the world for the view, and the number of samples between
+     * updates of the statistics panel
+     */
+    private final static int SAMPLE_INTERVAL = 40;
+    private final static int SAMPLES_PER_STATS_UPDATE = 6;
+
+    /**
+     * The number of samples taken so far
      */
-    private final static int BATCH_SIZE = 50;
+    private int samples;
+
+    /**
+     * Milliseconds between ticks. 0 means as fast as possible
+     */
+    private int delay = 100;
 
     /**
      * Constructor for worldUpdater
@@ -57,8 +71,8 @@ public class WorldUpdater {
         this.worldView = worldView;
         this.worldModel = worldView.getWorldModel();
         this.game = game;
-        // Create timer that calls tick() every 2000ms
-        this.timer = new Timer(100, e -> tick());
+        this.runner = new SimulationRunner(worldModel);
+        this.timer = new Timer(SAMPLE_INTERVAL, e -> refresh());
     }
 
     /**
@@ -66,6 +80,7 @@ public class WorldUpdater {
      */
     public void start() {
         isRunning = true;
+        runner.runAtFixedRate(ticksPerSecond());
         timer.start();
     }
 
@@ -74,83 +89,52 @@ public class WorldUpdater {
      */
     public void stop() {
         isRunning = false;
+        runner.stop();
         timer.stop();
+        refresh();
     }
 
     /**
-     * If isRunning is true, increment the tick count and update the critters and world state
+     * If isRunning is true, runs one tick right away and refreshes the display
      */
     public void tick() {
         if (isRunning) {
-            worldModel.updateWorldArray();
-            updateCritters(worldModel);
-
-            addFood();
-            worldView.repaint();
-            game.statsPanel.updateStats();
-            game.statsPanel.repaint();
+            runner.step();
+            refresh();
         }
     }
 
     /**
-     * Updates states of critters in this world
+     * Samples the world between ticks and repaints the view, and every few samples the statistics
      */
-    private void updateCritters(WorldModel worldModel) {
-        Collection<Critter> critters = worldModel.getCritters().values();
-        int numThreads = Runtime.getRuntime().availableProcessors();
-        ThreadPool threadPool = new ThreadPool(numThreads);
-
-
-        for (Critter critter : new ArrayList<>(worldModel.getCritters().values())) {
-            critter.updatePriority();
-            critter.makeMove();
-
-
-
-            if (critter.getHunger() <= 0) {
-                critter.starve();
-            }
-
-            if (critter.getHealth() <= 0) {
-                critter.die();
-            }
-
-            if (critter.getAge() >= critter.getMaxAge()) {
-                critter.die();
+    private void refresh() {
+        boolean updateStats = samples++ % SAMPLES_PER_STATS_UPDATE == 0;
+        byte[] cells = runner.read(() -> {
+            if (updateStats) {
+                game.statsPanel.updateStats();
             }
+            return worldModel.getGrid().snapshot();
+        });
+        worldView.setSnapshot(cells);
+        worldView.repaint();
+        if (updateStats) {
+            game.statsPanel.repaint();
         }
     }
 
     /**
-     * Reseeds food on the world
+     * Takes data from slider in gui to change simulation speed
      */
-    private void addFood() {
-        WorldModel world = worldView.getWorldModel();
-        int numCritters = worldView.getWorldModel().getCritters().size();
-
-        for (int i = 0; i < world.getWidth(); i++) {
-            for (int j = 0; j < world.getHeight(); j++) {
-                if (world.getWorldArray()[i][j] == CellState.GRASS) {
-                    // Generate random number between 0 and 1
-                    double random = Math.random();
-                    // Check if random number is less than 1/2N
-                    if (random < 1.0 / (numCritters * world.getFOOD_GENERATION_FACTOR())) {
-                        world.getWorldArray()[i][j] = CellState.FOOD;
-                        world.addFood(new Food(new Point(i, j), (int) (Math.random() * 40), 0));
-                    }
-                }
-            }
-        }
+    public void setTimerDelay(int delay) {
+        this.delay = delay;
+        runner.setTicksPerSecond(ticksPerSecond());
     }
 
-
     /**
-     * Takes data from slider in gui to change simulation speed
+     * helper method, converts the delay between ticks into a rate. A delay of 0 gives 0, i.e. as fast as possible
      */
-    public void setTimerDelay(int delay) {
-        if (timer != null) {
-            timer.setDelay(delay);
-        }
+    private double ticksPerSecond() {
+        return delay > 0 ? 1000.0 / delay : 0;
     }
 
 }
\ No newline at end of file
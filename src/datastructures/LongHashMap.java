@@ -0,0 +1,318 @@
+package datastructures;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A hash map from primitive `long` keys to non-null values of type `V`, implemented with open
+ * addressing and linear probing. Lookups hash the key directly, so they never box the key or allocate.
+ */
+public class LongHashMap<V> {
+
+    /**
+     * Receives the entries of the map, one at a time, in forEach
+     */
+    public interface EntryVisitor<V> {
+        void visit(long key, V value);
+    }
+
+    /**
+     * The minimum capacity of the table, and the fraction of it that may be filled before it grows
+     */
+    private static final int MIN_CAPACITY = 16;
+    private static final double MAX_LOAD = 0.6;
+
+    /**
+     * The keys of the table. A slot is in use exactly when its value is non-null
+     */
+    private long[] keys;
+
+    /**
+     * The values of the table, aligned with `keys`. null marks an empty slot
+     */
+    private Object[] values;
+
+    /**
+     * The number of entries in this map
+     */
+    private int size;
+
+    /**
+     * The number of entries allowed before the table grows
+     */
+    private int threshold;
+
+    /**
+     * Incremented on every structural change, so iterators can detect concurrent modification
+     */
+    private int modCount;
+
+    /**
+     * Creates an empty map
+     */
+    public LongHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Creates an empty map that can hold `expected` entries without growing
+     */
+    public LongHashMap(int expected) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * MAX_LOAD < expected) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * Returns the number of entries in this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether this map contains no entries
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the value associated with `key`, or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask); values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return (V) values[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns whether this map contains an entry for `key`
+     */
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Associates `value` with `key`, replacing any previous value. Returns the previous value, or null.
+     * `value` must not be null.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("LongHashMap does not support null values");
+        }
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (values[i] != null) {
+            if (keys[i] == key) {
+                V old = (V) values[i];
+                values[i] = value;
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        size++;
+        modCount++;
+        if (size > threshold) {
+            resize(keys.length << 1);
+        }
+        return null;
+    }
+
+    /**
+     * Removes the entry for `key`. Returns the removed value, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (values[i] != null) {
+            if (keys[i] == key) {
+                V old = (V) values[i];
+                deleteSlot(i);
+                size--;
+                modCount++;
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Removes every entry from this map
+     */
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Calls `visitor` with every entry of this map, in no particular order
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryVisitor<? super V> visitor) {
+        int expectedModCount = modCount;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                visitor.visit(keys[i], (V) values[i]);
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a live, read-only view of the values in this map
+     */
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new SlotIterator<>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    V at(int slot) {
+                        return (V) values[slot];
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * A key-value pair of this map, as returned by entryIterator
+     */
+    public record Entry<V>(long key, V value) {}
+
+    /**
+     * Returns an iterator over the entries of this map, in no particular order. Allocates one Entry per
+     * step, so hot paths should use get or forEach instead
+     */
+    public Iterator<Entry<V>> entryIterator() {
+        return new SlotIterator<>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            Entry<V> at(int slot) {
+                return new Entry<>(keys[slot], (V) values[slot]);
+            }
+        };
+    }
+
+    /**
+     * Iterates the occupied slots of the table in order, producing one element per slot
+     */
+    private abstract class SlotIterator<T> implements Iterator<T> {
+        private int next = advance(0);
+        private final int expectedModCount = modCount;
+
+        abstract T at(int slot);
+
+        private int advance(int from) {
+            while (from < values.length && values[from] == null) {
+                from++;
+            }
+            return from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < values.length;
+        }
+
+        @Override
+        public T next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T element = at(next);
+            next = advance(next + 1);
+            return element;
+        }
+    }
+
+    /**
+     * Empties slot `i` and shifts later entries of the same probe run back, so lookups never need
+     * tombstones (backward-shift deletion for linear probing)
+     */
+    private void deleteSlot(int i) {
+        int mask = keys.length - 1;
+        int hole = i;
+        int j = (i + 1) & mask;
+        while (values[j] != null) {
+            int home = slot(keys[j], mask);
+            // move entry j into the hole if the hole lies cyclically between its home slot and j
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+            j = (j + 1) & mask;
+        }
+        values[hole] = null;
+    }
+
+    /**
+     * helper method to grow the table to `capacity` slots and reinsert every entry
+     */
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int j = slot(oldKeys[i], mask);
+                while (values[j] != null) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * helper method to allocate an empty table with `capacity` slots (a power of two)
+     */
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        threshold = (int) (capacity * MAX_LOAD);
+    }
+
+    /**
+     * Returns the home slot of `key`. Mixes the bits first, since packed coordinates differ mostly
+     * in their high and low words
+     */
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        h ^= (h >>> 32);
+        h ^= (h >>> 16);
+        return (int) h & mask;
+    }
+}
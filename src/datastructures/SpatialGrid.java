@@ -0,0 +1,242 @@
+package datastructures;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A uniform grid spatial index over the points of a bounded 2D world. The world is divided into square
+ * buckets of `bucketSize` by `bucketSize` cells, and each bucket holds the points inside it, so proximity
+ * queries only visit the buckets that overlap the search radius instead of every point in the index.
+ */
+public class SpatialGrid {
+    /**
+     * The side length, in cells, of each bucket
+     */
+    private final int bucketSize;
+
+    /**
+     * The number of buckets along the x and y axes
+     */
+    private final int bucketsX;
+    private final int bucketsY;
+
+    /**
+     * Row-major array of buckets. Bucket (bx, by) is stored at index `by * bucketsX + bx`
+     */
+    private final List<Point>[] buckets;
+
+    /**
+     * The number of points in this index
+     */
+    private int size;
+
+    /**
+     * Creates an empty index covering a `width` by `height` world with buckets of side `bucketSize`
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public SpatialGrid(int width, int height, int bucketSize) {
+        assert bucketSize > 0;
+        this.bucketSize = bucketSize;
+        this.bucketsX = Math.max(1, (width + bucketSize - 1) / bucketSize);
+        this.bucketsY = Math.max(1, (height + bucketSize - 1) / bucketSize);
+        this.buckets = new List[bucketsX * bucketsY];
+        this.size = 0;
+    }
+
+    /**
+     * Returns the number of points in this index
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds point p to this index. Points outside the world are stored in the nearest edge bucket
+     */
+    public void add(Point p) {
+        int index = bucketIndex(bucketX(p.x), bucketY(p.y));
+        if (buckets[index] == null) {
+            buckets[index] = new ArrayList<>();
+        }
+        buckets[index].add(p);
+        size++;
+    }
+
+    /**
+     * Removes one point equal to p from this index. Returns whether a point was removed
+     */
+    public boolean remove(Point p) {
+        List<Point> bucket = buckets[bucketIndex(bucketX(p.x), bucketY(p.y))];
+        if (bucket == null) {
+            return false;
+        }
+        for (int i = 0; i < bucket.size(); i++) {
+            if (bucket.get(i).equals(p)) {
+                // swap with the last element so removal does not shift the bucket
+                int last = bucket.size() - 1;
+                bucket.set(i, bucket.get(last));
+                bucket.remove(last);
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes every point from this index
+     */
+    public void clear() {
+        for (List<Point> bucket : buckets) {
+            if (bucket != null) {
+                bucket.clear();
+            }
+        }
+        size = 0;
+    }
+
+    /**
+     * Returns the point nearest to `center` whose Euclidean distance from it is strictly less than
+     * `radius`, or null if there is no such point. Only visits the buckets within `radius` of center,
+     * working outward ring by ring and stopping once no closer point can exist.
+     */
+    public Point nearest(Point center, double radius) {
+        double radiusSquared = radius * radius;
+        int cx = bucketX(center.x);
+        int cy = bucketY(center.y);
+
+        Point best = null;
+        long bestDistance = Long.MAX_VALUE;
+        for (int ring = 0; ring <= maxRing(); ring++) {
+            long bound = ringLowerBound(ring);
+            if (bound * bound >= radiusSquared || (best != null && bound * bound > bestDistance)) {
+                break;
+            }
+            for (int by = cy - ring; by <= cy + ring; by++) {
+                for (int bx = cx - ring; bx <= cx + ring; bx++) {
+                    // only visit the outer edge of this ring, the inside was covered by earlier rings
+                    if (!onRing(bx, by, cx, cy, ring) || !inBounds(bx, by)) {
+                        continue;
+                    }
+                    List<Point> bucket = buckets[bucketIndex(bx, by)];
+                    if (bucket == null) {
+                        continue;
+                    }
+                    for (Point p : bucket) {
+                        long distance = distanceSquared(center, p);
+                        if (distance < bestDistance && distance < radiusSquared) {
+                            bestDistance = distance;
+                            best = p;
+                        }
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns up to `k` points whose Euclidean distance from `center` is strictly less than `radius`,
+     * sorted from nearest to farthest
+     */
+    public List<Point> kNearest(Point center, int k, double radius) {
+        List<Point> found = new ArrayList<>();
+        if (k <= 0) {
+            return found;
+        }
+        double radiusSquared = radius * radius;
+        int cx = bucketX(center.x);
+        int cy = bucketY(center.y);
+        Comparator<Point> byDistance = Comparator.comparingLong(p -> distanceSquared(center, p));
+
+        for (int ring = 0; ring <= maxRing(); ring++) {
+            long bound = ringLowerBound(ring);
+            if (bound * bound >= radiusSquared) {
+                break;
+            }
+            // once k points are known, stop as soon as this ring cannot hold anything closer than the kth
+            if (found.size() >= k) {
+                found.sort(byDistance);
+                if (bound * bound > distanceSquared(center, found.get(k - 1))) {
+                    break;
+                }
+            }
+            for (int by = cy - ring; by <= cy + ring; by++) {
+                for (int bx = cx - ring; bx <= cx + ring; bx++) {
+                    if (!onRing(bx, by, cx, cy, ring) || !inBounds(bx, by)) {
+                        continue;
+                    }
+                    List<Point> bucket = buckets[bucketIndex(bx, by)];
+                    if (bucket == null) {
+                        continue;
+                    }
+                    for (Point p : bucket) {
+                        if (distanceSquared(center, p) < radiusSquared) {
+                            found.add(p);
+                        }
+                    }
+                }
+            }
+        }
+
+        found.sort(byDistance);
+        return found.size() > k ? new ArrayList<>(found.subList(0, k)) : found;
+    }
+
+    /**
+     * helper method, returns a lower bound on the per-axis distance from any cell of the center bucket to
+     * any cell of a bucket `ring` buckets away
+     */
+    private long ringLowerBound(int ring) {
+        return ring == 0 ? 0 : (long) (ring - 1) * bucketSize + 1;
+    }
+
+    /**
+     * helper method, returns the largest ring that can contain a bucket
+     */
+    private int maxRing() {
+        return Math.max(bucketsX, bucketsY);
+    }
+
+    /**
+     * helper method, returns whether bucket (bx, by) lies on the edge of the ring around (cx, cy)
+     */
+    private boolean onRing(int bx, int by, int cx, int cy, int ring) {
+        return Math.max(Math.abs(bx - cx), Math.abs(by - cy)) == ring;
+    }
+
+    /**
+     * helper method, returns whether bucket (bx, by) exists
+     */
+    private boolean inBounds(int bx, int by) {
+        return bx >= 0 && bx < bucketsX && by >= 0 && by < bucketsY;
+    }
+
+    /**
+     * helper methods for converting cell coordinates to clamped bucket coordinates
+     */
+    private int bucketX(int x) {
+        return Math.min(Math.max(x / bucketSize, 0), bucketsX - 1);
+    }
+    private int bucketY(int y) {
+        return Math.min(Math.max(y / bucketSize, 0), bucketsY - 1);
+    }
+
+    /**
+     * helper method for converting bucket coordinates to an index in `buckets`
+     */
+    private int bucketIndex(int bx, int by) {
+        return by * bucketsX + bx;
+    }
+
+    /**
+     * helper method for calculating the squared Euclidean distance between two points
+     */
+    private static long distanceSquared(Point p1, Point p2) {
+        long dx = p1.x - p2.x;
+        long dy = p1.y - p2.y;
+        return dx * dx + dy * dy;
+    }
+}
@@ -0,0 +1,326 @@
+package model;
+
+import java.util.function.IntConsumer;
+import java.util.random.RandomGenerator;
+import model.WorldModel.CellState;
+
+/**
+ * A packed, row-major grid of cell states. Each cell is stored as a single byte holding its
+ * CellState value, so a world costs one byte per cell and scanning a row walks memory sequentially.
+ * The cell at (x, y) is stored at index `y * width + x`.
+ * The grid also counts the grass cells in each region, updated on every set, so random grass cells can
+ * be sampled without scanning the whole grid. The counts cost one int per region, not per cell.
+ */
+public class CellGrid {
+    /**
+     * Lookup table from a stored byte to its CellState
+     */
+    private static final CellState[] STATES = new CellState[CellState.values().length];
+    static {
+        for (CellState state : CellState.values()) {
+            STATES[state.getValue()] = state;
+        }
+    }
+
+    /**
+     * Positive integers representing the width and height of the grid
+     */
+    private final int width;
+    private final int height;
+
+    /**
+     * The cell states, stored row by row
+     */
+    private final byte[] cells;
+
+    /**
+     * The number of grass cells
+     */
+    private int grassCount;
+
+    /**
+     * Cells are grouped into square regions of this size, each with a version that counts changes to
+     * its cells, so a cached path can tell whether anything along it changed
+     */
+    public static final int REGION_SIZE = 8;
+
+    /**
+     * The number of region columns, and each region's version
+     */
+    private final int regionColumns;
+    private final int[] regionVersions;
+
+    /**
+     * The number of grass cells in each region, as a Fenwick tree: entry i (from 1) holds the grass
+     * count of regions i - lowestOneBit(i) up to i - 1, so counts up to a region and the region holding
+     * the n-th grass cell are found in O(log regions)
+     */
+    private final int[] grassTree;
+
+    /**
+     * For each region, the number of times one of its cells changed to or from mountain or water (see
+     * isOpenTerrain), and the total over all regions
+     */
+    private final int[] terrainVersions;
+    private int terrainVersion;
+
+    /**
+     * Creates a `width` by `height` grid where every cell is grass
+     */
+    public CellGrid(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.cells = new byte[width * height];
+        assert CellState.GRASS.getValue() == 0;
+        this.grassCount = cells.length;
+        this.regionColumns = (width + REGION_SIZE - 1) / REGION_SIZE;
+        this.regionVersions = new int[regionColumns * ((height + REGION_SIZE - 1) / REGION_SIZE)];
+        this.terrainVersions = new int[regionVersions.length];
+        this.grassTree = new int[regionVersions.length + 1];
+        for (int region = 0; region < regionVersions.length; region++) {
+            int left = (region % regionColumns) * REGION_SIZE;
+            int top = (region / regionColumns) * REGION_SIZE;
+            grassTree[region + 1] += Math.min(REGION_SIZE, width - left) * Math.min(REGION_SIZE, height - top);
+            int parent = region + 1 + ((region + 1) & -(region + 1));
+            if (parent < grassTree.length) {
+                grassTree[parent] += grassTree[region + 1];
+            }
+        }
+    }
+
+    /**
+     * Returns the width and height of this grid
+     */
+    public int width() { return width; }
+    public int height() { return height; }
+
+    /**
+     * Returns the number of cells in this grid
+     */
+    public int size() {
+        return cells.length;
+    }
+
+    /**
+     * Returns the index of the cell at (x, y). Requires (x, y) to be in bounds
+     */
+    public int index(int x, int y) {
+        return y * width + x;
+    }
+
+    /**
+     * Returns the x and y coordinates of the cell at index `index`
+     */
+    public int x(int index) {
+        return index % width;
+    }
+    public int y(int index) {
+        return index / width;
+    }
+
+    /**
+     * Returns whether (x, y) lies inside this grid
+     */
+    public boolean inBounds(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    /**
+     * Returns the state of the cell at (x, y). Requires (x, y) to be in bounds
+     */
+    public CellState get(int x, int y) {
+        return STATES[cells[index(x, y)]];
+    }
+
+    /**
+     * Returns the state of the cell at index `index`
+     */
+    public CellState get(int index) {
+        return STATES[cells[index]];
+    }
+
+    /**
+     * Sets the state of the cell at (x, y) to "state". Requires (x, y) to be in bounds
+     */
+    public void set(int x, int y, CellState state) {
+        int index = index(x, y);
+        byte old = cells[index];
+        byte value = (byte) state.getValue();
+        if (old == value) {
+            return;
+        }
+        cells[index] = value;
+        regionVersions[region(x, y)]++;
+        if (!isOpen(old) || !isOpen(value)) {
+            terrainVersions[region(x, y)]++;
+            terrainVersion++;
+        }
+        if (old == CellState.GRASS.getValue()) {
+            grassChanged(region(x, y), -1);
+        } else if (value == CellState.GRASS.getValue()) {
+            grassChanged(region(x, y), 1);
+        }
+    }
+
+    /**
+     * helper method, adds "delta" to the grass count of region "region"
+     */
+    private void grassChanged(int region, int delta) {
+        grassCount += delta;
+        for (int i = region + 1; i < grassTree.length; i += i & -i) {
+            grassTree[i] += delta;
+        }
+    }
+
+    /**
+     * Returns the region the cell at (x, y) lies in. Requires (x, y) to be in bounds
+     */
+    public int region(int x, int y) {
+        return (y / REGION_SIZE) * regionColumns + x / REGION_SIZE;
+    }
+
+    /**
+     * Returns the number of times a cell in region "region" has changed state
+     */
+    public int regionVersion(int region) {
+        return regionVersions[region];
+    }
+
+    /**
+     * Returns the number of times the terrain of a cell in region "region" has changed, see
+     * isOpenTerrain
+     */
+    public int terrainVersion(int region) {
+        return terrainVersions[region];
+    }
+
+    /**
+     * Returns the number of times the terrain of any cell has changed
+     */
+    public int terrainVersion() {
+        return terrainVersion;
+    }
+
+    /**
+     * Returns whether the cell at (x, y) is inside the grid and neither mountain nor water. Unlike
+     * isTraversable, critters and food count as open, since they come and go
+     */
+    public boolean isOpenTerrain(int x, int y) {
+        return inBounds(x, y) && isOpen(cells[index(x, y)]);
+    }
+
+    /**
+     * helper method, returns whether a cell holding "value" is open terrain
+     */
+    private static boolean isOpen(byte value) {
+        return value != CellState.MOUNTAIN.getValue() && value != CellState.WATER.getValue();
+    }
+
+    /**
+     * Returns the number of grass cells
+     */
+    public int grassCount() {
+        return grassCount;
+    }
+
+    /**
+     * Picks each grass cell independently with probability p and passes the index of every picked cell
+     * to "picked", so the number of picks is Binomial(grassCount, p). Uses geometric skips between
+     * picks, and finds each picked cell by its region's grass count and then a scan of that region, so
+     * it costs O(number of picks * REGION_SIZE^2) rather than O(grassCount). A p of 1 or more picks every
+     * grass cell; a p of 0 or less (or NaN) picks none.
+     * The grid must not be changed until sampling is done, so callers should collect the picked cells
+     * before changing them.
+     */
+    public void sampleGrass(double p, RandomGenerator random, IntConsumer picked) {
+        if (!(p > 0)) {
+            return;
+        }
+        if (p >= 1) {
+            for (int i = 0; i < cells.length; i++) {
+                if (cells[i] == CellState.GRASS.getValue()) {
+                    picked.accept(i);
+                }
+            }
+            return;
+        }
+        double logQ = Math.log1p(-p);
+        int position = -1;
+        while (true) {
+            // the number of cells skipped before the next pick is geometric with success probability p
+            double skip = Math.floor(Math.log1p(-random.nextDouble()) / logQ);
+            if (position + 1 + skip >= grassCount) {
+                return;
+            }
+            position += 1 + (int) skip;
+            picked.accept(grassCell(position));
+        }
+    }
+
+    /**
+     * helper method, returns the index of the n-th grass cell (from 0), counting the grass cells region
+     * by region and row by row within each region. Requires n < grassCount
+     */
+    private int grassCell(int n) {
+        // walk down the Fenwick tree to the region holding the n-th grass cell
+        int region = 0;
+        for (int step = Integer.highestOneBit(grassTree.length - 1); step > 0; step >>= 1) {
+            int next = region + step;
+            if (next < grassTree.length && grassTree[next] <= n) {
+                region = next;
+                n -= grassTree[next];
+            }
+        }
+        int left = (region % regionColumns) * REGION_SIZE;
+        int top = (region / regionColumns) * REGION_SIZE;
+        int right = Math.min(left + REGION_SIZE, width);
+        int bottom = Math.min(top + REGION_SIZE, height);
+        for (int y = top; y < bottom; y++) {
+            for (int index = y * width + left; index < y * width + right; index++) {
+                if (cells[index] == CellState.GRASS.getValue() && n-- == 0) {
+                    return index;
+                }
+            }
+        }
+        throw new IllegalStateException("grass counts out of sync in region " + region);
+    }
+
+    /**
+     * Returns whether a critter could walk onto the cell at (x, y), i.e. it is in bounds and is grass or food
+     */
+    public boolean isTraversable(int x, int y) {
+        if (!inBounds(x, y)) {
+            return false;
+        }
+        byte value = cells[index(x, y)];
+        return value == CellState.GRASS.getValue() || value == CellState.FOOD.getValue();
+    }
+
+    /**
+     * Returns a copy of the packed cells, row by row, for painting or saving without holding on to the grid
+     */
+    public byte[] snapshot() {
+        return cells.clone();
+    }
+
+    /**
+     * Returns a copy of this grid as a column-major 2D array indexed [x][y]
+     */
+    public CellState[][] toArray() {
+        CellState[][] array = new CellState[width][height];
+        for (int y = 0; y < height; y++) {
+            int row = y * width;
+            for (int x = 0; x < width; x++) {
+                array[x][y] = STATES[cells[row + x]];
+            }
+        }
+        return array;
+    }
+
+    /**
+     * Returns the CellState stored as byte value "value"
+     */
+    public static CellState stateOf(byte value) {
+        return STATES[value];
+    }
+}
@@ -1,14 +1,19 @@
 package model;
 
 import behavior.CritterAI;
+import behavior.IncrementalPlanner;
 import behavior.InteractionManager;
 import behavior.PathNode;
 import behavior.Pathfinder;
 import brain.Brain;
+import brain.Genome;
+import brain.Species;
 import controller.BrainFactory;
 import java.awt.Point;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 /** Represents a model of the critters inhabiting the world
  *
@@ -16,7 +21,7 @@ import java.util.List;
 public class Critter{
 
     /**
-     * pathfinder for the critter
+     * pathfinder for the critter, the one its world shares between all critters
      */
     private Pathfinder pathfinder;
 
@@ -34,6 +39,21 @@ public class Critter{
     public Brain brain() { return brain; }
     public void setBrain(Brain brain) { this.brain = brain; }
 
+    /**
+     * The species this critter's brain belongs to, null if it has not been assigned one
+     */
+    private Species species;
+    public Species species() { return species; }
+    public void setSpecies(Species species) { this.species = species; }
+
+    /**
+     * The planner keeping this critter's search towards its target between turns, null if it has none,
+     * see CritterAI
+     */
+    private IncrementalPlanner planner;
+    public IncrementalPlanner getPlanner() { return planner; }
+    public void setPlanner(IncrementalPlanner planner) { this.planner = planner; }
+
 
 
     public enum Sex {
@@ -126,98 +146,23 @@ public class Critter{
     List<Point> currentPath;
 
     /**
-     * A non-negative integer representing the critter's maximum age.
-     */
-    private final int maxAge;
-
-    /**
-     * A non-negative integer representing the critter's current age.
-     * Must be less than or equal to maxAge. If age becomes equal to maxAge,
-     * the critter dies.
-     */
-    private int age;
-
-    /**
-     * An integer 1-100 representing max hunger
-     */
-    private double maxHunger;
-
-    /**
-     * An int ranging from 0 to 100 representing the critter's hunger level.
-     * If hunger reaches zero, the critter loses health.
-     */
-    private double hunger;
-
-    /**
-     * An integer 1-100 representing max thirst level
-     */
-    private double maxThirst;
-
-
-    /**
-     * An integer ranging from 0 to 100 representing the critter's thirst level.
-     * If thirst reaches zero, the critter loses health.
-     */
-    private double thirst;
-
-    /**
-     * An integer ranging from 0 to 100 representing the critter's max health.
+     * The store holding this critter's physiological state and traits, and this critter's slot in it.
+     * Critters in a world live in the world's store; others get a private one-slot store
      */
-    private final double maxHealth;
-
-    /**
-     * An integer ranging from 0 to maxHealth representing the critter's current health.
-     * If health reaches zero, the critter dies.
-     */
-    private double health;
+    private CritterStore store;
+    private int slot;
 
     /**
      * The critter's sex, either male or female
      */
     private final Sex sex;
 
-    /**
-     * An integer ranging from 0 to 100 that represents the critter's size.
-     * The critter's size effects its energy consumption when performing tasks
-     * and the amount of damage it gives and the amount of damage it takes.
-     */
-    private final double size;
-
-    /**
-     * An integer ranging from 0 to 100 representing the critter's offensive power. Used for calculating
-     * attack damage. A critter's offense must equal 100 - defense.
-     */
-    private double offense;
-
-    /**
-     * An integer ranging from 0 to 100 representing the critter's defensive power. Used for calculating
-     * damage taken when attacked. A critter's defense must equal 100 - offense.
-     */
-    private double defense;
-
-    /**
-     * An integer ranging from 0 to 100 representing the critter's aggression level.
-     * The aggression level is responsible for determining how likely the critter is to fight
-     * or attack another critter
-     */
-    private final double aggression;
-
     /**
      * The critter's current priority, either food, water, or love. Will decide to search for food,
      * water, or another mate based on current priority.
      */
     private Priority priority;
 
-    /**
-     * The critter's additional mutation rate, added on top of the world's base mutation rate
-     */
-    private double mutationRate;
-
-    /**
-     * The critter's vision range, which controls how far the critter can see, defined by its vision radius
-     */
-    private int vision;
-
     /**
      * Constructs a new Critter. Takes in maxAge, maxHealth, sex, size, and aggression parameter
      * age is set to zero, health is set to maxHealth
@@ -240,29 +185,52 @@ public class Critter{
             int vision,
             WorldModel world
             ) {
+        this(ai, interactionManager, position, orientation, maxAge, maxHunger, maxThirst, maxHealth, sex, size,
+                offense, defense, aggression, mutationRate, vision, world, null);
+    }
+
+    /**
+     * Constructs a new Critter whose brain has the network described by "genome", as for a child that
+     * inherits its parent's network. If genome is null, a new brain is generated
+     */
+    public Critter(
+            CritterAI ai,
+            InteractionManager interactionManager,
+            Point position,
+            Orientation orientation,
+            int maxAge,
+            double maxHunger,
+            double maxThirst,
+            double maxHealth,
+            Sex sex,
+            double size,
+            double offense,
+            double defense,
+            double aggression,
+            double mutationRate,
+            int vision,
+            WorldModel world,
+            Genome genome
+            ) {
         this.ai = ai;
         this.interactionManager = interactionManager;
-        this.maxAge = maxAge;
-        this.age = 0;
-        this.maxHealth = maxHealth;
-        this.maxHunger = maxHunger;
-        this.hunger = maxHunger/2;
-        this.maxThirst = maxThirst;
-        this.thirst = maxThirst/2;
-        this.health = maxHealth;
         this.sex = sex;
-        this.size = size;
-        this.offense = offense;
-        this.defense = defense;
-        this.aggression = aggression;
         this.position = position;
         this.orientation = orientation;
-        this.mutationRate = mutationRate;
-        this.vision = vision;
         this.world = world;
-        this.pathfinder = new Pathfinder(world);
+        this.id = world != null ? world.nextCritterId() : 0;
+        this.store = world != null ? world.getCritterStore() : new CritterStore(1);
+        this.slot = store.add(this, maxHealth, maxHunger/2, maxThirst/2, 0,
+                maxHealth, maxHunger, maxThirst, maxAge,
+                size, offense, defense, aggression, mutationRate, vision);
+        this.pathfinder = world != null ? world.getPathfinder() : new Pathfinder(null);
         this.currentPath = new ArrayList<>();
-        this.brain = new BrainFactory().generateBrain(this);
+        this.brain = genome == null ? new BrainFactory().generateBrain(this) : new Brain(this, genome);
+        // a child is assigned its species by reproduce, once it has mutated
+        if (genome == null && world != null) {
+            this.species = world.speciesRegistry().assign(brain.genome(), null);
+            brain.compact();
+        }
         assertInv();
     }
 
@@ -272,23 +240,14 @@ public class Critter{
     public Critter(CritterAI ai, InteractionManager interactionManager, Point position, Orientation orientation, int maxAge, int maxHunger, int maxThirst, int maxHealth, Sex sex, int size, int offense, int defense, int aggression, int generation, int mutationRate) {
         this.ai = ai;
         this.interactionManager = interactionManager;
-        this.maxAge = maxAge;
-        this.age = 0;
-        this.maxHealth = maxHealth;
-        this.maxHunger = maxHunger;
-        this.hunger = maxHunger/2;
-        this.maxThirst = maxThirst;
-        this.thirst = maxThirst/2;
-        this.health = 100;
         this.sex = sex;
-        this.size = size;
-        this.offense = offense;
-        this.defense = defense;
-        this.aggression = aggression;
         this.position = position;
         this.orientation = orientation;
-        this.mutationRate = mutationRate;
         this.world = null;
+        this.store = new CritterStore(1);
+        this.slot = store.add(this, 100, maxHunger/2, maxThirst/2, 0,
+                maxHealth, maxHunger, maxThirst, maxAge,
+                size, offense, defense, aggression, mutationRate, 0);
 
         assertInv();
     }
@@ -344,9 +303,15 @@ public class Critter{
 
     /**
      * Sets this critter's priority to "priority"
+     * Attacking critters are drawn differently, so a change in priority also refreshes this critter's cell
      */
     public void setPriority(Priority priority) {
+        boolean changed = this.priority != priority;
         this.priority = priority;
+        store.setPriority(slot, priority);
+        if (changed && world != null && position != null) {
+            world.refreshCell(position);
+        }
     }
 
     /**
@@ -397,42 +362,42 @@ public class Critter{
      * Return's the critter's max age
      */
     public int getMaxAge() {
-        return maxAge;
+        return store.maxAge(slot);
     }
 
     /**
      * Returns the critter's current age
      */
     public int getAge() {
-        return age;
+        return store.age(slot);
     }
 
     /**
      * sets the critter's age to "age"
      */
     public void setAge(int age) {
-        this.age = age;
+        store.setAge(slot, age);
     }
 
     /**
      * Returns the critter's max hunger level
      */
     public double getMaxHunger() {
-        return this.maxHunger;
+        return store.maxHunger(slot);
     }
 
     /**
      * Sets the critter's max hunger level to "max"
      */
     public void setMaxHunger(double max) {
-        maxHunger = max;
+        store.setMaxHunger(slot, max);
     }
 
     /**
      * Returns the critter's current hunger level
      */
     public double getHunger() {
-        return hunger;
+        return store.hunger(slot);
     }
 
     /**
@@ -440,28 +405,28 @@ public class Critter{
      * Returns new hunger level
      */
     public void setHunger(double hunger) {
-        this.hunger = hunger;
+        store.setHunger(slot, hunger);
     }
 
     /**
      * Returns the critter's max thirst level
      */
     public double getMaxThirst() {
-        return this.maxThirst;
+        return store.maxThirst(slot);
     }
 
     /**
      * Sets the critter's max thirst to "max"
      */
     public void setMaxThirst(double max) {
-        maxThirst = max;
+        store.setMaxThirst(slot, max);
     }
 
     /**
      * Returns the critter's current thirst level
      */
     public double getThirst() {
-        return thirst;
+        return store.thirst(slot);
     }
 
     /**
@@ -469,28 +434,28 @@ public class Critter{
      * Returns the new thirst level
      */
     public void setThirst(double thirst) {
-        this.thirst = thirst;
+        store.setThirst(slot, thirst);
     }
 
     /**
      * Returns this critter's maximum health
      */
     public double getMaxHealth() {
-        return maxHealth;
+        return store.maxHealth(slot);
     }
 
     /**
      * Returns the critter's current health
      */
     public double getHealth() {
-        return health;
+        return store.health(slot);
     }
 
     /**
      * Sets the critter's health to "health"
      */
     public void setHealth(double health) {
-        this.health = health;
+        store.setHealth(slot, health);
     }
 
     /**
@@ -504,42 +469,42 @@ public class Critter{
      * Returns the critter's size
      */
     public double getSize() {
-        return size;
+        return store.size(slot);
     }
 
     /**
      * Returns this critter's speed
      */
     public double getOffense() {
-        return offense;
+        return store.offense(slot);
     }
 
     /**
      * Returns this critter's power
      */
     public double getDefense() {
-        return defense;
+        return store.defense(slot);
     }
 
     /**
      * Returns this critter's aggression
      */
     public double getAggression() {
-        return aggression;
+        return store.aggression(slot);
     }
 
     /**
      * Returns this critter's mutation rate
      */
     public double getMutationRate() {
-        return this.mutationRate;
+        return store.mutationRate(slot);
     }
 
     /**
      * Returns this critter's vision
      */
     public int getVision() {
-        return this.vision;
+        return store.vision(slot);
     }
 
     /**
@@ -582,7 +547,14 @@ public class Critter{
      * Critter asexually reproduces
      */
     public void reproduce(Critter this) {
-        interactionManager.reproduce(this);
+        interactionManager.reproduce(this, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Critter asexually reproduces, drawing the child's mutations from "random"
+     */
+    public void reproduce(Critter this, RandomGenerator random) {
+        interactionManager.reproduce(this, random);
     }
 
     /**
@@ -617,14 +589,21 @@ public class Critter{
      * decrements health when critter runs out of hunger
      */
     public void starve(Critter this) {
-        this.health -= 25;
+        setHealth(getHealth() - 25);
     }
 
     /**
      * the critter dies
+     * Its slot in the world's store is freed, and its final state is kept in a private store so any
+     * remaining references to it still read sensible values
      */
     public void die(Critter this) {
         this.interactionManager.die(this);
+        if (world != null && store == world.getCritterStore()) {
+            CritterStore detached = new CritterStore(1);
+            slot = store.moveTo(slot, detached);
+            store = detached;
+        }
     }
 
     /**
@@ -654,13 +633,14 @@ public class Critter{
     private void assertInv() {
         assert this.orientation == Orientation.N || this.orientation == Orientation.NE || this.orientation == Orientation.E || this.orientation == Orientation.S || this.orientation == Orientation.SE || this.orientation == Orientation.SW || this.orientation == Orientation.W || this.orientation == Orientation.NW;
         assert this.sex == Sex.MALE || this.sex == Sex.FEMALE;
-        assert this.maxHealth >= 0 && this.maxHealth <= 100;
-        assert this.hunger >= 0 && this.hunger <= 100;
-        assert this.thirst >= 0 && this.thirst <= 100;
-        assert this.size >= 0 && this.size <= 100;
-        assert this.offense >= 0 && this.offense <= 100;
-        assert this.defense >= 0 && this.defense <= 100;
-        assert this.aggression >= 0 && this.aggression <= 100;
+        assert getMaxHealth() >= 0 && getMaxHealth() <= 100;
+        assert getHunger() >= 0 && getHunger() <= 100;
+        assert getThirst() >= 0 && getThirst() <= 100;
+        assert getSize() >= 0 && getSize() <= 100;
+        assert getOffense() >= 0 && getOffense() <= 100;
+        assert getDefense() >= 0 && getDefense() <= 100;
+        assert getAggression() >= 0 && getAggression() <= 100;
+
 
     }
 }
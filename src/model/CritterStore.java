@@ -0,0 +1,297 @@
+package model;
+
+import java.util.Arrays;
+import java.util.List;
+import model.Critter.Priority;
+
+/**
+ * Columnar storage for the physiological state and traits of critters. Each critter owns a stable slot,
+ * and each attribute is a parallel primitive array indexed by slot, so whole-population passes
+ * (metabolism, death checks, statistics) are tight loops over contiguous memory instead of a walk over
+ * Critter objects scattered across the heap. Critter is a thin handle holding its store and slot.
+ * Slots of dead critters are reused by new critters.
+ */
+public class CritterStore {
+
+    /**
+     * The traits that can be collected for statistics
+     */
+    public enum Trait {
+        MAX_HEALTH, MAX_HUNGER, MAX_THIRST, SIZE, OFFENSE, DEFENSE, AGGRESSION, VISION
+    }
+
+    /**
+     * Fraction of the usual hunger expenditure spent while resting
+     */
+    private static final double REST_EXPENDITURE = 0.5;
+
+    /**
+     * Health lost per tick while starving
+     */
+    private static final double STARVE_DAMAGE = 25;
+
+    /**
+     * The critter that owns each slot, or null if the slot is free
+     */
+    private Critter[] owners;
+
+    /**
+     * Physiological state
+     */
+    private double[] health;
+    private double[] hunger;
+    private double[] thirst;
+    private int[] age;
+
+    /**
+     * Maxima
+     */
+    private double[] maxHealth;
+    private double[] maxHunger;
+    private double[] maxThirst;
+    private int[] maxAge;
+
+    /**
+     * Traits
+     */
+    private double[] size;
+    private double[] offense;
+    private double[] defense;
+    private double[] aggression;
+    private double[] mutationRate;
+    private int[] vision;
+
+    /**
+     * Whether each critter is resting, mirrored from its priority for the metabolism pass
+     */
+    private boolean[] resting;
+
+    /**
+     * sqrt(log(size + 2)) for each critter, the factor its hunger expenditure is scaled by
+     */
+    private double[] sizeFactor;
+
+    /**
+     * Stack of free slots below `limit`, and the number of slots on it
+     */
+    private int[] freeSlots;
+    private int freeCount;
+
+    /**
+     * One past the highest slot ever handed out. Passes only need to look at slots below this
+     */
+    private int limit;
+
+    /**
+     * The number of slots in use
+     */
+    private int count;
+
+    /**
+     * Creates an empty store with room for `capacity` critters before it grows
+     */
+    public CritterStore(int capacity) {
+        allocate(Math.max(1, capacity));
+    }
+
+    /**
+     * Returns the number of critters in this store
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Claims a free slot for "owner" and fills it with the given state. Returns the slot
+     */
+    int add(Critter owner, double health, double hunger, double thirst, int age,
+            double maxHealth, double maxHunger, double maxThirst, int maxAge,
+            double size, double offense, double defense, double aggression, double mutationRate, int vision) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (limit == owners.length) {
+                grow(owners.length * 2);
+            }
+            slot = limit++;
+        }
+        owners[slot] = owner;
+        this.health[slot] = health;
+        this.hunger[slot] = hunger;
+        this.thirst[slot] = thirst;
+        this.age[slot] = age;
+        this.maxHealth[slot] = maxHealth;
+        this.maxHunger[slot] = maxHunger;
+        this.maxThirst[slot] = maxThirst;
+        this.maxAge[slot] = maxAge;
+        this.size[slot] = size;
+        this.offense[slot] = offense;
+        this.defense[slot] = defense;
+        this.aggression[slot] = aggression;
+        this.mutationRate[slot] = mutationRate;
+        this.vision[slot] = vision;
+        this.resting[slot] = false;
+        this.sizeFactor[slot] = Math.sqrt(Math.log(size + 2));
+        count++;
+        return slot;
+    }
+
+    /**
+     * Copies the critter in `slot` of this store into a free slot of "target" and frees `slot` here.
+     * Returns the critter's slot in "target"
+     */
+    int moveTo(int slot, CritterStore target) {
+        int moved = target.add(owners[slot], health[slot], hunger[slot], thirst[slot], age[slot],
+                maxHealth[slot], maxHunger[slot], maxThirst[slot], maxAge[slot],
+                size[slot], offense[slot], defense[slot], aggression[slot], mutationRate[slot], vision[slot]);
+        target.resting[moved] = resting[slot];
+        owners[slot] = null;
+        freeSlots[freeCount++] = slot;
+        count--;
+        return moved;
+    }
+
+    /**
+     * Per-slot accessors used by Critter
+     */
+    double health(int slot) { return health[slot]; }
+    void setHealth(int slot, double value) { health[slot] = value; }
+    double hunger(int slot) { return hunger[slot]; }
+    void setHunger(int slot, double value) { hunger[slot] = value; }
+    double thirst(int slot) { return thirst[slot]; }
+    void setThirst(int slot, double value) { thirst[slot] = value; }
+    int age(int slot) { return age[slot]; }
+    void setAge(int slot, int value) { age[slot] = value; }
+    double maxHealth(int slot) { return maxHealth[slot]; }
+    double maxHunger(int slot) { return maxHunger[slot]; }
+    void setMaxHunger(int slot, double value) { maxHunger[slot] = value; }
+    double maxThirst(int slot) { return maxThirst[slot]; }
+    void setMaxThirst(int slot, double value) { maxThirst[slot] = value; }
+    int maxAge(int slot) { return maxAge[slot]; }
+    double size(int slot) { return size[slot]; }
+    double offense(int slot) { return offense[slot]; }
+    double defense(int slot) { return defense[slot]; }
+    double aggression(int slot) { return aggression[slot]; }
+    double mutationRate(int slot) { return mutationRate[slot]; }
+    int vision(int slot) { return vision[slot]; }
+    void setPriority(int slot, Priority priority) { resting[slot] = priority == Priority.REST; }
+
+    /**
+     * Applies one tick of metabolism to every critter: spends hunger (scaled by size, halved while
+     * resting, never below 0) and thirst, regenerates 1% of max health when hunger is above 80%,
+     * and ages by one tick
+     */
+    public void metabolize(double baseHungerExpenditure, double baseThirstExpenditure) {
+        for (int i = 0; i < limit; i++) {
+            if (owners[i] == null) {
+                continue;
+            }
+            double expenditure = baseHungerExpenditure * sizeFactor[i];
+            if (resting[i]) {
+                expenditure *= REST_EXPENDITURE;
+            }
+            hunger[i] = Math.max(0, hunger[i] - expenditure);
+            thirst[i] -= baseThirstExpenditure;
+            if (hunger[i] > maxHunger[i] * 0.8) {
+                health[i] = Math.min(health[i] + maxHealth[i] * 0.01, maxHealth[i]);
+            }
+            age[i]++;
+        }
+    }
+
+    /**
+     * Damages every starving critter (hunger at or below 0), then adds every critter whose health is
+     * at or below 0 or whose age has reached its max age to "dead"
+     */
+    public void collectDead(List<Critter> dead) {
+        for (int i = 0; i < limit; i++) {
+            if (owners[i] == null) {
+                continue;
+            }
+            if (hunger[i] <= 0) {
+                health[i] -= STARVE_DAMAGE;
+            }
+            if (health[i] <= 0 || age[i] >= maxAge[i]) {
+                dead.add(owners[i]);
+            }
+        }
+    }
+
+    /**
+     * Adds the value of "trait" for every critter in this store to "values"
+     */
+    public void collect(Trait trait, List<Double> values) {
+        if (trait == Trait.VISION) {
+            for (int i = 0; i < limit; i++) {
+                if (owners[i] != null) {
+                    values.add((double) vision[i]);
+                }
+            }
+            return;
+        }
+        double[] column = switch (trait) {
+            case MAX_HEALTH -> maxHealth;
+            case MAX_HUNGER -> maxHunger;
+            case MAX_THIRST -> maxThirst;
+            case SIZE -> size;
+            case OFFENSE -> offense;
+            case DEFENSE -> defense;
+            case AGGRESSION -> aggression;
+            case VISION -> throw new AssertionError();
+        };
+        for (int i = 0; i < limit; i++) {
+            if (owners[i] != null) {
+                values.add(column[i]);
+            }
+        }
+    }
+
+    /**
+     * helper method to allocate empty columns with room for `capacity` critters
+     */
+    private void allocate(int capacity) {
+        owners = new Critter[capacity];
+        health = new double[capacity];
+        hunger = new double[capacity];
+        thirst = new double[capacity];
+        age = new int[capacity];
+        maxHealth = new double[capacity];
+        maxHunger = new double[capacity];
+        maxThirst = new double[capacity];
+        maxAge = new int[capacity];
+        size = new double[capacity];
+        offense = new double[capacity];
+        defense = new double[capacity];
+        aggression = new double[capacity];
+        mutationRate = new double[capacity];
+        vision = new int[capacity];
+        resting = new boolean[capacity];
+        sizeFactor = new double[capacity];
+        freeSlots = new int[capacity];
+    }
+
+    /**
+     * helper method to grow every column to `capacity` slots
+     */
+    private void grow(int capacity) {
+        owners = Arrays.copyOf(owners, capacity);
+        health = Arrays.copyOf(health, capacity);
+        hunger = Arrays.copyOf(hunger, capacity);
+        thirst = Arrays.copyOf(thirst, capacity);
+        age = Arrays.copyOf(age, capacity);
+        maxHealth = Arrays.copyOf(maxHealth, capacity);
+        maxHunger = Arrays.copyOf(maxHunger, capacity);
+        maxThirst = Arrays.copyOf(maxThirst, capacity);
+        maxAge = Arrays.copyOf(maxAge, capacity);
+        size = Arrays.copyOf(size, capacity);
+        offense = Arrays.copyOf(offense, capacity);
+        defense = Arrays.copyOf(defense, capacity);
+        aggression = Arrays.copyOf(aggression, capacity);
+        mutationRate = Arrays.copyOf(mutationRate, capacity);
+        vision = Arrays.copyOf(vision, capacity);
+        resting = Arrays.copyOf(resting, capacity);
+        sizeFactor = Arrays.copyOf(sizeFactor, capacity);
+        freeSlots = Arrays.copyOf(freeSlots, capacity);
+    }
+}
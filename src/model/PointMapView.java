@@ -0,0 +1,81 @@
+package model;
+
+import datastructures.LongHashMap;
+import java.awt.Point;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * A live, read-only Map<Point, V> view of a LongHashMap keyed by WorldModel.pointKey. Lets callers that
+ * want a Map keep working while WorldModel stores its entities without Point keys.
+ * Use WorldModel's add and remove methods to change the underlying map.
+ */
+class PointMapView<V> extends AbstractMap<Point, V> {
+    /**
+     * The map being viewed
+     */
+    private final LongHashMap<V> map;
+
+    PointMapView(LongHashMap<V> map) {
+        this.map = map;
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    @Override
+    public V get(Object key) {
+        if (!(key instanceof Point p)) {
+            return null;
+        }
+        return map.get(WorldModel.pointKey(p.x, p.y));
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public Collection<V> values() {
+        return map.values();
+    }
+
+    @Override
+    public Set<Entry<Point, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<Point, V>> iterator() {
+                Iterator<LongHashMap.Entry<V>> entries = map.entryIterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return entries.hasNext();
+                    }
+
+                    @Override
+                    public Entry<Point, V> next() {
+                        LongHashMap.Entry<V> entry = entries.next();
+                        Point p = new Point(WorldModel.keyX(entry.key()), WorldModel.keyY(entry.key()));
+                        return new SimpleImmutableEntry<>(p, entry.value());
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return map.size();
+            }
+        };
+    }
+}
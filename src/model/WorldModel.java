@@ -1,16 +1,23 @@
 package model;
 
+import behavior.DistanceField;
+import behavior.PathCache;
+import behavior.Pathfinder;
+import brain.GenomePool;
+import brain.SpeciesRegistry;
 import controller.CritterFactory;
 import controller.InnovationManager;
+import controller.ThreadPool;
 import controller.WorldGenerator;
+import datastructures.LongHashMap;
+import datastructures.SpatialGrid;
 //import graph.WorldGraph;
 import java.awt.Point;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.SplittableRandom;
 import model.Critter.Priority;
 
 /**
@@ -24,6 +31,18 @@ public class WorldModel {
     private InnovationManager innovationManager;
     public InnovationManager innovationManager() { return innovationManager; }
 
+    /**
+     * The species the critters' brains are sorted into
+     */
+    private SpeciesRegistry speciesRegistry;
+    public SpeciesRegistry speciesRegistry() { return speciesRegistry; }
+
+    /**
+     * The pool the critters' genome structures are interned in
+     */
+    private GenomePool genomePool;
+    public GenomePool genomePool() { return genomePool; }
+
 
     // energy cost constants
     private double MOVE_COST_FACTOR = 0.001;
@@ -138,6 +157,11 @@ public class WorldModel {
      */
     private int tickCount;
 
+    /**
+     * The id given to the last critter created in this world. Ids count up from 1
+     */
+    private int lastCritterId;
+
     /**
      * Initial food density on the map i.e. the percentage of squares that initially have food.
      */
@@ -160,17 +184,40 @@ public class WorldModel {
     private double maxMutationChange;
 
     /**
-     * 2-D array representing the current world state. Entries in the array are an integer,
-     * either 0, 1, 2, 3, 4, for grass, mountain, food, water, or critter, respectively
+     * Packed grid representing the current world state. Each cell holds the value of its CellState,
+     * either 0, 1, 2, 3, 4, 5, for grass, mountain, food, water, peaceful critter, or angry critter, respectively
      */
-    private CellState[][] worldArray;
+    private CellGrid grid;
 
     /**
-     * list of cells that need to be updated
+     * The paths planned on this world, shared by all critters, and the pathfinder they plan them with
      */
-    private final Set<Point> dirtyCells;
-    public Set<Point> getDirtyCells() {
-        return dirtyCells;
+    private final PathCache pathCache;
+    private final Pathfinder pathfinder;
+    public PathCache getPathCache() {
+        return pathCache;
+    }
+    public Pathfinder getPathfinder() {
+        return pathfinder;
+    }
+
+    /**
+     * The distance from every square to the nearest water, which thirsty critters walk down instead of
+     * planning paths. Water only changes with the terrain, so the field is rarely repaired
+     */
+    private final DistanceField waterField;
+    public DistanceField getWaterField() {
+        return waterField;
+    }
+
+    /**
+     * The distance from every square to the nearest food, up to FOOD_FIELD_DISTANCE, which hungry
+     * critters walk down instead of planning paths. Every cell that turns into food or stops being food
+     * is passed on to it, see setGridCell
+     */
+    private final DistanceField foodField;
+    public DistanceField getFoodField() {
+        return foodField;
     }
 
     /**
@@ -188,22 +235,63 @@ public class WorldModel {
     }
 
     /**
-     * Represents all currently alive critters. Stored in a Map with a Point id as a key
-     * and a Critter as a value
+     * Represents all currently alive critters. Stored in a LongHashMap keyed by the packed position
+     * (see pointKey), so lookups by coordinates do not allocate a Point
+     */
+    private final LongHashMap<Critter> critters;
+
+    /**
+     * Represents all food on the grid currently. Stored in a LongHashMap keyed by the packed position
+     */
+    private final LongHashMap<Food> foods;
+
+    /**
+     * Represents all water on grid currently. Stored in a LongHashMap keyed by the packed position
      */
-    private Map<Point, Critter> critters;
+    private final LongHashMap<Water> waters;
 
     /**
-     * Represents all food on the grid currently. Stored in a Map with the Point position as a key
-     * and the food object as a value.
+     * Read-only Map<Point, ...> views of the maps above, returned by getCritters, getFoods, and getWaters
      */
-    private Map<Point, Food> foods;
+    private final Map<Point, Critter> critterView;
+    private final Map<Point, Food> foodView;
+    private final Map<Point, Water> waterView;
 
     /**
-     * Represents all water on grid currently. Stored in a Map with the Point position as a key
-     * and the water object as a value
+     * The worker threads shared by everything in this world. Started and stopped with the simulation
      */
-    private Map<Point, Water> waters;
+    private final ThreadPool threadPool;
+
+    /**
+     * The world's random stream, seeded with the world's seed, for whatever happens outside the critters'
+     * turns: seeding the world, creating critters and growing food. Not thread-safe, so only used between
+     * ticks or in the serial phase of one
+     */
+    private final SplittableRandom random;
+
+    /**
+     * Columnar storage for the state of every critter created in this world
+     */
+    private final CritterStore critterStore;
+
+    /**
+     * Side length, in cells, of the buckets used by the spatial indexes
+     */
+    private static final int SPATIAL_BUCKET_SIZE = 8;
+
+    /**
+     * The farthest the food field looks, in moves. Critters are born seeing less than this, and a
+     * critter never heads for food it cannot see
+     */
+    public static final int FOOD_FIELD_DISTANCE = 32;
+
+    /**
+     * Spatial indexes over the positions of all critters, food, and water, kept in sync with the maps
+     * above so that proximity queries only look at the area around a point
+     */
+    private SpatialGrid critterIndex;
+    private SpatialGrid foodIndex;
+    private SpatialGrid waterIndex;
 
     /**
      * The base damage done by critters in the game (default 25)
@@ -246,17 +334,31 @@ public class WorldModel {
         this.BASE_MOVE_COST = baseMoveCost;
         this.BASE_ROTATE_COST = baseRotateCost;
         this.SIZE_COST = sizeCost;
-        this.worldArray = new CellState[width][height];
-        this.dirtyCells = new HashSet<>();
+        this.grid = new CellGrid(width, height);
+        this.pathCache = new PathCache(grid);
+        this.pathfinder = new Pathfinder(this);
+        this.waterField = new DistanceField(grid, CellState.WATER);
+        this.foodField = new DistanceField(grid, CellState.FOOD, FOOD_FIELD_DISTANCE);
         this.mutationRate = mutationRate;
-        this.critters = new HashMap<Point, Critter>();
-        this.foods = new HashMap<Point, Food>();
-        this.waters = new HashMap<Point, Water>();
+        this.critters = new LongHashMap<>();
+        this.foods = new LongHashMap<>();
+        this.waters = new LongHashMap<>();
+        this.critterStore = new CritterStore(64);
+        this.threadPool = new ThreadPool(Runtime.getRuntime().availableProcessors());
+        this.random = new SplittableRandom(seed);
+        this.critterView = new PointMapView<>(critters);
+        this.foodView = new PointMapView<>(foods);
+        this.waterView = new PointMapView<>(waters);
         this.baseDamage = baseDamage;
         this.damageScalingFactor = damageScalingFactor;
         this.BASE_HUNGER_EXPENDITURE = baseHungerExpenditure;
         this.FOOD_GENERATION_FACTOR = foodGenRate;
         this.innovationManager = new InnovationManager();
+        this.speciesRegistry = new SpeciesRegistry();
+        this.genomePool = new GenomePool();
+        this.critterIndex = new SpatialGrid(width, height, SPATIAL_BUCKET_SIZE);
+        this.foodIndex = new SpatialGrid(width, height, SPATIAL_BUCKET_SIZE);
+        this.waterIndex = new SpatialGrid(width, height, SPATIAL_BUCKET_SIZE);
 
         // generate the terrain
         this.worldGenerator = new WorldGenerator(scale, seed);
@@ -271,23 +373,31 @@ public class WorldModel {
     public WorldModel(int width, int height, double initialFoodDensity, double initialCritterDensity, double mutationRate, double baseDamage, double damageScalingFactor) {
         this.width = width;
         this.height = height;
-        this.worldArray = new CellState[width][height];
-        this.dirtyCells = new HashSet<>();
-        this.critters = new HashMap<>();
-        this.foods = new HashMap<>();
-        this.waters = new HashMap<>();
+        this.grid = new CellGrid(width, height);
+        this.pathCache = new PathCache(grid);
+        this.pathfinder = new Pathfinder(this);
+        this.waterField = new DistanceField(grid, CellState.WATER);
+        this.foodField = new DistanceField(grid, CellState.FOOD, FOOD_FIELD_DISTANCE);
+        this.critters = new LongHashMap<>();
+        this.foods = new LongHashMap<>();
+        this.waters = new LongHashMap<>();
+        this.critterStore = new CritterStore(64);
+        this.threadPool = new ThreadPool(Runtime.getRuntime().availableProcessors());
+        this.random = new SplittableRandom();
+        this.critterView = new PointMapView<>(critters);
+        this.foodView = new PointMapView<>(foods);
+        this.waterView = new PointMapView<>(waters);
         this.initialFoodDensity = initialFoodDensity;
         this.initialCritterDensity = initialCritterDensity;
         this.mutationRate = mutationRate;
         this.baseDamage = baseDamage;
         this.damageScalingFactor = damageScalingFactor;
         this.innovationManager = new InnovationManager();
-
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                worldArray[x][y] = CellState.GRASS;
-            }
-        }
+        this.speciesRegistry = new SpeciesRegistry();
+        this.genomePool = new GenomePool();
+        this.critterIndex = new SpatialGrid(width, height, SPATIAL_BUCKET_SIZE);
+        this.foodIndex = new SpatialGrid(width, height, SPATIAL_BUCKET_SIZE);
+        this.waterIndex = new SpatialGrid(width, height, SPATIAL_BUCKET_SIZE);
     }
 
     /**
@@ -302,14 +412,12 @@ public class WorldModel {
         for (int i = 0; i < width; i++) {
             for (int j = 0; j < height; j++) {
                 // only place critters and food on grass squares
-                if (this.getWorldArray()[i][j] == CellState.GRASS) {
-                    double randomValue = Math.random(); // random number used for seeding world
+                if (getCell(i, j) == CellState.GRASS) {
+                    double randomValue = random.nextDouble(); // random number used for seeding world
                     if (randomValue <= initialFoodDensity) {
-                        this.worldArray[i][j] = CellState.FOOD; // 2 for food
-                        Food food = new Food(new Point(i, j), (int) (Math.random()*35 + 5), 0);
+                        Food food = new Food(new Point(i, j), (int) (random.nextDouble()*35 + 5), 0);
                         addFood(food);
                     } else if (randomValue <= initialFoodDensity + initialCritterDensity) {
-                        this.worldArray[i][j] = CellState.PEACEFUL_CRITTER; // 4 for critter
                         // construct a new critter with random attributes
                         CritterFactory critterFactory = new CritterFactory();
                         Critter critter = critterFactory.generateCritter(new Point(i, j), this);
@@ -348,6 +456,13 @@ public class WorldModel {
         this.height= height;
     }
 
+    /**
+     * Returns a new critter id, one higher than the last one handed out
+     */
+    public int nextCritterId() {
+        return ++lastCritterId;
+    }
+
     /**
      * Returns the tick count of the world
      */
@@ -365,25 +480,109 @@ public class WorldModel {
     }
 
     /**
-     * Returns the 2D array representing this world
+     * Returns a 2D array representing this world, indexed [x][y]
+     * This is a compatibility view: it is a copy of the packed grid, so writing to it does not change the
+     * world (use setCell instead), and it costs O(width * height). Prefer getCell or getGrid in hot paths.
      */
     public CellState[][] getWorldArray() {
-        return worldArray;
+        return grid.toArray();
+    }
+
+    /**
+     * Returns the packed grid backing this world
+     */
+    public CellGrid getGrid() {
+        return grid;
+    }
+
+    /**
+     * Returns the state of the cell at (x, y). Requires (x, y) to be within the world
+     */
+    public CellState getCell(int x, int y) {
+        return grid.get(x, y);
+    }
+
+    /**
+     * Sets the state of the cell at (x, y) to "state", e.g. for placing terrain.
+     * Requires (x, y) to be within the world
+     */
+    public void setCell(int x, int y, CellState state) {
+        setGridCell(x, y, state);
+    }
+
+    /**
+     * helper method, sets the grid cell at (x, y) to "state", and tells the food field if food appeared
+     * or disappeared there
+     */
+    private void setGridCell(int x, int y, CellState state) {
+        CellState old = grid.get(x, y);
+        grid.set(x, y, state);
+        if (old != state && (old == CellState.FOOD || state == CellState.FOOD)) {
+            foodField.changed(x, y);
+        }
+    }
+
+    /**
+     * Returns the thread pool shared by this world
+     */
+    public ThreadPool getThreadPool() {
+        return threadPool;
+    }
+
+    /**
+     * Returns the world's random stream. Only use it between ticks or in the serial phase of one
+     */
+    public SplittableRandom random() {
+        return random;
+    }
+
+    /**
+     * Returns the columnar store holding the state of this world's critters
+     */
+    public CritterStore getCritterStore() {
+        return critterStore;
     }
 
     /**
-     * Returns the list of all live critters
+     * Returns the key that entities at (x, y) are stored under: x in the high 32 bits, y in the low 32 bits
+     */
+    public static long pointKey(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns the x and y coordinates packed into `key` by pointKey
+     */
+    public static int keyX(long key) {
+        return (int) (key >> 32);
+    }
+    public static int keyY(long key) {
+        return (int) key;
+    }
+
+    /**
+     * Returns a read-only view of all live critters, keyed by position
      */
     public Map<Point, Critter> getCritters() {
-        return critters;
+        return critterView;
     }
 
     /**
-     * Sets the critter list to "critters"
+     * Replaces all live critters with the critters in "critters"
      */
     public void setCritters(Map<Point, Critter> critters) {
-        this.critters = critters;
-        updateWorldArray();
+        if (critters == critterView) {
+            rebuildWorldArray();
+            return;
+        }
+        this.critters.clear();
+        critterIndex.clear();
+        for (Map.Entry<Point, Critter> entry : critters.entrySet()) {
+            Point p = entry.getKey();
+            this.critters.put(pointKey(p.x, p.y), entry.getValue());
+            critterIndex.add(p);
+        }
+        rebuildWorldArray();
     }
 
     /**
@@ -391,40 +590,60 @@ public class WorldModel {
      * If there is no critter on Point p, return null
      */
     public Critter getCritter(Point p) {
-        return critters.get(p);
+        return critters.get(pointKey(p.x, p.y));
+    }
+
+    /**
+     * Returns the critter at (x, y), or null if there is none. Does not allocate
+     */
+    public Critter getCritterAt(int x, int y) {
+        return critters.get(pointKey(x, y));
     }
 
     /**
      * Adds a critter to the list of all live critters
      */
     public void addCritter(Critter critter) {
-        critters.put(critter.getPosition(), critter);
-        this.getDirtyCells().add(critter.getPosition());
-        updateWorldArray();
+        Point p = critter.getPosition();
+        if (critters.put(pointKey(p.x, p.y), critter) == null) {
+            critterIndex.add(p);
+        }
+        refreshCell(p);
     }
 
     /**
      * Removes the critter at point p from the list of all live critters
      */
     public void removeCritter(Point p) {
-        critters.remove(p);
-        this.getDirtyCells().add(p);
-        updateWorldArray();
+        if (critters.remove(pointKey(p.x, p.y)) != null) {
+            critterIndex.remove(p);
+        }
+        refreshCell(p);
     }
 
     /**
-     * Returns the list of all food on the map
+     * Returns a read-only view of all food on the map, keyed by position
      */
     public Map<Point, Food> getFoods() {
-        return foods;
+        return foodView;
     }
 
     /**
-     * Sets the foods list to "foods"
+     * Replaces all food on the map with the food in "foods"
      */
     public void setFoods(Map<Point, Food> foods) {
-        this.foods = foods;
-        updateWorldArray();
+        if (foods == foodView) {
+            rebuildWorldArray();
+            return;
+        }
+        this.foods.clear();
+        foodIndex.clear();
+        for (Map.Entry<Point, Food> entry : foods.entrySet()) {
+            Point p = entry.getKey();
+            this.foods.put(pointKey(p.x, p.y), entry.getValue());
+            foodIndex.add(p);
+        }
+        rebuildWorldArray();
     }
 
     /**
@@ -432,66 +651,134 @@ public class WorldModel {
      * If there is no food on Point p, return null
      */
     public Food getFood(Point p) {
-        return foods.get(p);
+        return foods.get(pointKey(p.x, p.y));
+    }
+
+    /**
+     * Returns the food at (x, y), or null if there is none. Does not allocate
+     */
+    public Food getFoodAt(int x, int y) {
+        return foods.get(pointKey(x, y));
     }
 
     /**
      * Adds food to the list of all food
      */
     public void addFood(Food food) {
-        this.foods.put(food.getPosition(), food);
-        this.getDirtyCells().add(food.getPosition());
-        updateWorldArray();
+        Point p = food.getPosition();
+        if (foods.put(pointKey(p.x, p.y), food) == null) {
+            foodIndex.add(p);
+        }
+        refreshCell(p);
     }
 
     /**
      * Removes food at point p from the list of all food
      */
     public void removeFood(Point p) {
-        foods.remove(p);
-        this.getDirtyCells().add(p);
-        updateWorldArray();
+        if (foods.remove(pointKey(p.x, p.y)) != null) {
+            foodIndex.remove(p);
+        }
+        refreshCell(p);
     }
 
     /**
-     * Returns the list of all food on the map
+     * Returns a read-only view of all water on the map, keyed by position
      */
     public Map<Point, Water> getWaters() {
-        return waters;
+        return waterView;
     }
 
     /**
-     * Sets the waters list to "water"
+     * Replaces all water on the map with the water in "waters"
      */
     public void setWaters(Map<Point, Water> waters) {
-        this.waters = waters;
-        updateWorldArray();
+        if (waters == waterView) {
+            rebuildWorldArray();
+            return;
+        }
+        this.waters.clear();
+        waterIndex.clear();
+        for (Map.Entry<Point, Water> entry : waters.entrySet()) {
+            Point p = entry.getKey();
+            this.waters.put(pointKey(p.x, p.y), entry.getValue());
+            waterIndex.add(p);
+        }
+        rebuildWorldArray();
     }
 
     /**
-     * Returns the food on Point p
-     * If there is no food on Point p, return null
+     * Returns the water on Point p
+     * If there is no water on Point p, return null
      */
     public Water getWater(Point p) {
-        return waters.get(p);
+        return waters.get(pointKey(p.x, p.y));
+    }
+
+    /**
+     * Returns the water at (x, y), or null if there is none. Does not allocate
+     */
+    public Water getWaterAt(int x, int y) {
+        return waters.get(pointKey(x, y));
     }
 
     /**
      * Adds water to the list of all water
      */
     public void addWater(Water water) {
-        this.waters.put(water.getPosition(), water);
-        this.getDirtyCells().add(water.getPosition());
-        updateWorldArray();
+        Point p = water.getPosition();
+        if (waters.put(pointKey(p.x, p.y), water) == null) {
+            waterIndex.add(p);
+        }
+        refreshCell(p);
     }
 
     /**
      * Removes water at point p from the list of all water
      */
     public void removeWater(Point p) {
-        waters.remove(p);
-        dirtyCells.add(p);
-        updateWorldArray();
+        if (waters.remove(pointKey(p.x, p.y)) != null) {
+            waterIndex.remove(p);
+        }
+        refreshCell(p);
+    }
+
+    /**
+     * Returns the position of the critter nearest to point p that is strictly closer than `radius`,
+     * or null if there is none. Only searches the area around p
+     */
+    public Point nearestCritter(Point p, double radius) {
+        return critterIndex.nearest(p, radius);
+    }
+
+    /**
+     * Returns the position of the food nearest to point p that is strictly closer than `radius`,
+     * or null if there is none. Only searches the area around p
+     */
+    public Point nearestFood(Point p, double radius) {
+        return foodIndex.nearest(p, radius);
+    }
+
+    /**
+     * Returns the position of the water nearest to point p that is strictly closer than `radius`,
+     * or null if there is none. Only searches the area around p
+     */
+    public Point nearestWater(Point p, double radius) {
+        return waterIndex.nearest(p, radius);
+    }
+
+    /**
+     * Returns the positions of up to k critters, food, or water strictly closer than `radius` to point p,
+     * sorted from nearest to farthest
+     */
+    public List<Point> nearestCritters(Point p, int k, double radius) {
+        return critterIndex.kNearest(p, k, radius);
+    }
+    public List<Point> nearestFoods(Point p, int k, double radius) {
+        return foodIndex.kNearest(p, k, radius);
+    }
+    public List<Point> nearestWaters(Point p, int k, double radius) {
+        return waterIndex.kNearest(p, k, radius);
     }
 
     /**
@@ -503,38 +790,84 @@ public class WorldModel {
 
 
     /**
-     * updates the world array per tick
+     * Re-derives the state of the cell at point p from the critter, water, and food maps, in O(1).
+     * Critters are drawn over water, and water over food. Empty cells fall back to grass, except
+     * mountains, which are static terrain and stay mountains.
      */
-    public void updateWorldArray() {
-        // Only update cells that have changed
-        for (Point p : dirtyCells) {
-            worldArray[p.x][p.y] = CellState.GRASS;
+    public void refreshCell(Point p) {
+        if (!isValidPosition(p)) {
+            return;
         }
+        setGridCell(p.x, p.y, resolveCell(p.x, p.y, grid.get(p.x, p.y)));
+    }
 
-        // Update only changed positions
-        foods.values().parallelStream().forEach(food -> {
+    /**
+     * helper method for refreshCell, returns what the cell at (x, y) should currently show
+     */
+    private CellState resolveCell(int x, int y, CellState current) {
+        long key = pointKey(x, y);
+        Critter critter = critters.get(key);
+        if (critter != null) {
+            return critter.getPriority() == Priority.ATTACK ? CellState.ANGRY_CRITTER : CellState.PEACEFUL_CRITTER;
+        }
+        if (waters.containsKey(key)) {
+            return CellState.WATER;
+        }
+        if (foods.containsKey(key)) {
+            return CellState.FOOD;
+        }
+        return current == CellState.MOUNTAIN ? CellState.MOUNTAIN : CellState.GRASS;
+    }
+
+    /**
+     * Consistency check and repair for the world array. Rebuilds the expected state of every cell from
+     * the critter, water, and food maps, overwrites any cell that disagrees, and returns the number of
+     * cells that had to be repaired (0 if the incremental updates kept the array consistent).
+     * This costs O(width * height), so it should only be used for debugging or after bulk changes.
+     */
+    public int rebuildWorldArray() {
+        CellGrid expected = new CellGrid(width, height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (grid.get(x, y) == CellState.MOUNTAIN) {
+                    expected.set(x, y, CellState.MOUNTAIN);
+                }
+            }
+        }
+
+        for (Food food : foods.values()) {
             Point pos = food.getPosition();
             if (isValidPosition(pos)) {
-                worldArray[pos.x][pos.y] = CellState.FOOD;
+                expected.set(pos.x, pos.y, CellState.FOOD);
             }
-        });
+        }
 
-        waters.values().parallelStream().forEach(water -> {
+        for (Water water : waters.values()) {
             Point pos = water.getPosition();
             if (isValidPosition(pos)) {
-                worldArray[pos.x][pos.y] = CellState.WATER;
+                expected.set(pos.x, pos.y, CellState.WATER);
             }
-        });
+        }
 
-        critters.values().parallelStream().forEach(critter -> {
+        for (Critter critter : critters.values()) {
             Point pos = critter.getPosition();
             if (isValidPosition(pos)) {
-                worldArray[pos.x][pos.y] = critter.getPriority() == Priority.ATTACK ?
-                        CellState.ANGRY_CRITTER : CellState.PEACEFUL_CRITTER;
+                expected.set(pos.x, pos.y, critter.getPriority() == Priority.ATTACK ?
+                        CellState.ANGRY_CRITTER : CellState.PEACEFUL_CRITTER);
             }
-        });
+        }
+
+        int repaired = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (grid.get(x, y) != expected.get(x, y)) {
+                    setGridCell(x, y, expected.get(x, y));
+                    repaired++;
+                }
+            }
+        }
 
-        dirtyCells.clear();
+        return repaired;
     }
 
 
@@ -1,12 +1,15 @@
 package view;
 
-import model.Critter;
+import brain.Species;
+import model.CritterStore;
+import model.CritterStore.Trait;
 import model.WorldModel;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -23,6 +26,11 @@ public class StatisticsPanel extends JPanel {
      */
     private final DefaultTableModel tableModel;
 
+    /**
+     * the table model listing each live species and its number of members
+     */
+    private final DefaultTableModel speciesModel;
+
     /**
      * panel holding the charts
      */
@@ -53,6 +61,12 @@ public class StatisticsPanel extends JPanel {
         statsTable = new JTable(tableModel);
         JScrollPane tableScrollPane = new JScrollPane(statsTable);
 
+        // Create species table
+        speciesModel = new DefaultTableModel(new String[] {"Species", "Members", "Genes"}, 0);
+        JScrollPane speciesScrollPane = new JScrollPane(new JTable(speciesModel));
+        JSplitPane tablesPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, tableScrollPane, speciesScrollPane);
+        tablesPane.setResizeWeight(0.75);
+
         // Create charts panel
         chartsPanel = new JPanel(new GridLayout(2, 2, 10, 10));
         chartsPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
@@ -60,7 +74,7 @@ public class StatisticsPanel extends JPanel {
         // Add components
         JSplitPane splitPane = new JSplitPane(
                 JSplitPane.VERTICAL_SPLIT,
-                tableScrollPane,
+                tablesPane,
                 chartsPanel
         );
         splitPane.setResizeWeight(0.3);
@@ -95,46 +109,59 @@ public class StatisticsPanel extends JPanel {
     public void updateStats() {
         if (world == null || world.getCritters().isEmpty()) {
             tableModel.setRowCount(0);
+            speciesModel.setRowCount(0);
             for (BarChartPanel chart : charts.values()) {
                 chart.updateData(new ArrayList<>());
             }
             return;
         }
 
-        Map<Point, Critter> critters = world.getCritters();
+        int population = world.getCritters().size();
+        CritterStore store = world.getCritterStore();
 
         // Clear existing table data
         tableModel.setRowCount(0);
 
-        // Collect data
+        // Collect data, one pass over each column of the critter store
         Map<String, List<Double>> traitData = new HashMap<>();
-        traitData.put("Max Health", new ArrayList<>());
-        traitData.put("Max Hunger", new ArrayList<>());
-        traitData.put("Max Thirst", new ArrayList<>());
-        traitData.put("Size", new ArrayList<>());
-        traitData.put("Offense", new ArrayList<>());
-        traitData.put("Defense", new ArrayList<>());
-        traitData.put("Aggression", new ArrayList<>());
-        traitData.put("Vision", new ArrayList<>());
-
-        for (Critter critter : critters.values()) {
-            traitData.get("Max Health").add((double) critter.getMaxHealth());
-            traitData.get("Max Hunger").add((double) critter.getMaxHunger());
-            traitData.get("Max Thirst").add((double) critter.getMaxThirst());
-            traitData.get("Size").add((double) critter.getSize());
-            traitData.get("Offense").add((double) critter.getOffense());
-            traitData.get("Defense").add((double) critter.getDefense());
-            traitData.get("Aggression").add((double) critter.getAggression());
-            traitData.get("Vision").add((double) critter.getVision());
-        }
+        traitData.put("Max Health", collect(store, Trait.MAX_HEALTH));
+        traitData.put("Max Hunger", collect(store, Trait.MAX_HUNGER));
+        traitData.put("Max Thirst", collect(store, Trait.MAX_THIRST));
+        traitData.put("Size", collect(store, Trait.SIZE));
+        traitData.put("Offense", collect(store, Trait.OFFENSE));
+        traitData.put("Defense", collect(store, Trait.DEFENSE));
+        traitData.put("Aggression", collect(store, Trait.AGGRESSION));
+        traitData.put("Vision", collect(store, Trait.VISION));
 
         // Update table and charts
         for (Map.Entry<String, List<Double>> entry : traitData.entrySet()) {
             String trait = entry.getKey();
             List<Double> values = entry.getValue();
-            addStatRow(trait, values, critters.size());
+            addStatRow(trait, values, population);
             updateChart(trait, values);
         }
+        updateSpecies();
+    }
+
+    /**
+     * helper function to list each live species with its number of members, largest first
+     */
+    private void updateSpecies() {
+        speciesModel.setRowCount(0);
+        List<Species> species = new ArrayList<>(world.speciesRegistry().species());
+        species.sort(Comparator.comparingInt(Species::size).reversed());
+        for (Species s : species) {
+            speciesModel.addRow(new Object[]{s.id(), s.size(), s.representative().synapseCount()});
+        }
+    }
+
+    /**
+     * helper function to gather the values of one trait from every critter in the store
+     */
+    private List<Double> collect(CritterStore store, Trait trait) {
+        List<Double> values = new ArrayList<>(store.size());
+        store.collect(trait, values);
+        return values;
     }
 
     /**
@@ -8,6 +8,7 @@ import java.io.File;
 import java.util.EnumMap;
 import javax.imageio.ImageIO;
 import javax.swing.JPanel;
+import model.CellGrid;
 import model.WorldModel;
 import model.WorldModel.CellState;
 
@@ -36,6 +37,11 @@ public class WorldView extends JPanel {
      */
     private EnumMap<CellState, BufferedImage> sprites;
 
+    /**
+     * The latest copy of the world's packed cells, taken between ticks, or null to paint the live grid
+     */
+    private volatile byte[] snapshot;
+
     /**
      * Constructs the world view. Takes in a world model as a parameter, and sets the dimensions of the panel
      * equal to the height and width multiplied by cell size.
@@ -70,6 +76,13 @@ public class WorldView extends JPanel {
 //        }
 //    }
 
+    /**
+     * Sets the cells to paint to "cells", a copy of the world's packed grid (see CellGrid.snapshot)
+     */
+    public void setSnapshot(byte[] cells) {
+        this.snapshot = cells;
+    }
+
     /**
      * Calculate the cell size based on the current panel dimensions
      */
@@ -99,15 +112,17 @@ public class WorldView extends JPanel {
         int xOffset = (getWidth() - (worldModel.getWidth() * cellSize)) / 2;
         int yOffset = (getHeight() - (worldModel.getHeight() * cellSize)) / 2;
 
-        // get the 2D array representing the world
-        CellState[][] world = worldModel.getWorldArray();
+        // get the packed cells representing the world, which are stored row by row. Prefer the latest
+        // snapshot, since the simulation may be changing the live grid on another thread
+        CellGrid world = worldModel.getGrid();
+        byte[] cells = snapshot;
         int rows = worldModel.getHeight();
         int cols = worldModel.getWidth();
 
         // Draw the grid
         for (int row = 0; row < rows; row++) {
             for (int col = 0; col < cols; col++) {
-                CellState cellState = world[col][row];
+                CellState cellState = cells != null ? CellGrid.stateOf(cells[row * cols + col]) : world.get(col, row);
 
 //                 Set color based on the state of the cell
                 switch (cellState) {
@@ -0,0 +1,113 @@
+package behavior;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import datastructures.Edge;
+import java.awt.Point;
+import java.util.List;
+import model.CellGrid;
+import model.WorldModel;
+import model.WorldModel.CellState;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test suite for ClusterGraph
+ */
+class ClusterGraphTest {
+
+    /**
+     * helper method, builds a 32 x 32 grid, four 16 x 16 clusters, with a wall of mountains along
+     * x = 16 that has a single gap at y = "gap"
+     */
+    private CellGrid walledGrid(int gap) {
+        CellGrid grid = new CellGrid(32, 32);
+        for (int y = 0; y < 32; y++) {
+            if (y != gap) {
+                grid.set(16, y, CellState.MOUNTAIN);
+            }
+        }
+        return grid;
+    }
+
+    @DisplayName("GIVEN a grid split by a wall with one gap,"
+            + "WHEN a route is planned from one side to the other,"
+            + "THEN it should pass through the entrance at the gap"
+            + "AND every edge should join two vertices of the graph with a positive weight")
+    @Test
+    void testWaypointsThroughGap() {
+        CellGrid grid = walledGrid(5);
+        ClusterGraph graph = new ClusterGraph(grid);
+        List<Point> waypoints = graph.waypoints(new Point(2, 28), new Point(29, 28));
+
+        assertTrue(waypoints.contains(new Point(15, 5)));
+        assertTrue(waypoints.contains(new Point(16, 5)));
+        for (int id = 0; id < graph.vertexCount(); id++) {
+            assertEquals(id, graph.getVertex(id).getId());
+            for (Edge edge : graph.getVertex(id).outgoingEdges()) {
+                assertEquals(id, edge.startId());
+                assertTrue(edge.endId() >= 0 && edge.endId() < graph.vertexCount());
+                assertTrue(edge.weight() > 0);
+            }
+        }
+    }
+
+    @DisplayName("GIVEN a cluster graph that has been built,"
+            + "WHEN the only gap in the wall is closed and another one opened,"
+            + "THEN routes should follow the new gap"
+            + "AND WHEN the wall is closed completely,"
+            + "THEN there should be no route")
+    @Test
+    void testTerrainChange() {
+        CellGrid grid = walledGrid(5);
+        ClusterGraph graph = new ClusterGraph(grid);
+        Point start = new Point(2, 28);
+        Point target = new Point(29, 28);
+        graph.waypoints(start, target);
+
+        grid.set(16, 5, CellState.MOUNTAIN);
+        grid.set(16, 20, CellState.GRASS);
+        List<Point> waypoints = graph.waypoints(start, target);
+        assertFalse(waypoints.contains(new Point(16, 5)));
+        assertTrue(waypoints.contains(new Point(16, 20)));
+
+        grid.set(16, 20, CellState.WATER);
+        assertNull(graph.waypoints(start, target));
+    }
+
+    @DisplayName("GIVEN a pathfinder set to plan hierarchically,"
+            + "WHEN it plans a long path,"
+            + "THEN the path should start with a step to a neighboring traversable square"
+            + "AND it should lead around the mountains"
+            + "AND it should not be cached, since its entrances are not next to each other")
+    @Test
+    void testHierarchicalPathfinder() {
+        WorldModel world = new WorldModel(64, 64, 0.0, 0.0, 0.1, 25, 1.2);
+        for (int y = 0; y < 60; y++) {
+            world.setCell(30, y, CellState.MOUNTAIN);
+        }
+        Pathfinder pathfinder = new Pathfinder(world);
+        pathfinder.setStrategy(Pathfinder.Strategy.HIERARCHICAL);
+        Point start = new Point(5, 5);
+        List<Point> path = pathfinder.findPath(start, new Point(55, 5));
+
+        assertEquals(start, path.getFirst());
+        Point step = path.get(1);
+        assertEquals(1, Math.max(Math.abs(step.x - start.x), Math.abs(step.y - start.y)));
+        assertTrue(world.getGrid().isTraversable(step.x, step.y));
+        // the only way around the wall is through the bottom row of clusters
+        assertTrue(path.stream().anyMatch(p -> p.y >= 48));
+        assertEquals(0, world.getPathCache().size());
+    }
+
+    @DisplayName("WHEN a cluster size is not a multiple of the region size,"
+            + "THEN constructing the graph should throw an IllegalArgumentException")
+    @Test
+    void testClusterSize() {
+        assertThrows(IllegalArgumentException.class, () -> new ClusterGraph(new CellGrid(32, 32), 12));
+    }
+}
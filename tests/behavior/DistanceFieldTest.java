@@ -0,0 +1,161 @@
+package behavior;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.Random;
+import model.Food;
+import model.CellGrid;
+import model.WorldModel;
+import model.WorldModel.CellState;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test suite for DistanceField
+ */
+class DistanceFieldTest {
+
+    /**
+     * helper method, asserts that "field" holds the same distances as a field built from scratch
+     */
+    private void assertSameDistances(CellGrid grid, DistanceField field) {
+        assertSameDistances(grid, field, new DistanceField(grid, CellState.WATER));
+    }
+
+    /**
+     * helper method, asserts that "field" holds the same distances as "fresh"
+     */
+    private void assertSameDistances(CellGrid grid, DistanceField field, DistanceField fresh) {
+        for (int x = 0; x < grid.width(); x++) {
+            for (int y = 0; y < grid.height(); y++) {
+                assertEquals(fresh.distance(x, y), field.distance(x, y), "at (" + x + ", " + y + ")");
+            }
+        }
+    }
+
+    @DisplayName("GIVEN a grid with a pond and a wall,"
+            + "WHEN the distances to water are read,"
+            + "THEN each square should count the moves around the wall to the pond"
+            + "AND a walled-off square should not reach the pond")
+    @Test
+    void testDistances() {
+        CellGrid grid = new CellGrid(20, 20);
+        grid.set(2, 2, CellState.WATER);
+        for (int y = 0; y < 19; y++) {
+            grid.set(10, y, CellState.MOUNTAIN);
+        }
+        grid.set(18, 0, CellState.MOUNTAIN);
+        grid.set(18, 1, CellState.MOUNTAIN);
+        grid.set(19, 1, CellState.MOUNTAIN);
+        DistanceField field = new DistanceField(grid, CellState.WATER);
+
+        assertEquals(0, field.distance(2, 2));
+        assertEquals(1, field.distance(3, 3));
+        assertEquals(7, field.distance(9, 2));
+        assertEquals(34, field.distance(11, 2));
+        assertEquals(DistanceField.UNREACHABLE, field.distance(19, 0));
+        assertEquals(DistanceField.UNREACHABLE, field.distance(10, 5));
+        assertNull(field.downhill(2, 2));
+        assertEquals(new Point(2, 2), field.downhill(3, 3));
+    }
+
+    @DisplayName("GIVEN a distance field,"
+            + "WHEN a path is read from a square,"
+            + "THEN it should step downhill square by square over open terrain"
+            + "AND end next to water")
+    @Test
+    void testPathFrom() {
+        CellGrid grid = new CellGrid(30, 30);
+        Random random = new Random(3);
+        for (int i = 0; i < 200; i++) {
+            grid.set(random.nextInt(30), random.nextInt(30), random.nextBoolean() ? CellState.WATER : CellState.MOUNTAIN);
+        }
+        DistanceField field = new DistanceField(grid, CellState.WATER);
+        Point start = new Point(15, 15);
+        grid.set(start.x, start.y, CellState.GRASS);
+        List<Point> path = field.pathFrom(start);
+
+        assertEquals(field.distance(start.x, start.y), path.size());
+        assertEquals(start, path.getFirst());
+        for (int i = 1; i < path.size(); i++) {
+            Point from = path.get(i - 1);
+            Point to = path.get(i);
+            assertEquals(1, Math.max(Math.abs(to.x - from.x), Math.abs(to.y - from.y)));
+            assertTrue(grid.isOpenTerrain(to.x, to.y));
+        }
+        assertEquals(1, field.distance(path.getLast().x, path.getLast().y));
+    }
+
+    @DisplayName("GIVEN a distance field that has been built,"
+            + "WHEN water, mountains and grass are added and removed in batches,"
+            + "THEN after each batch the repaired field should match a field built from scratch")
+    @Test
+    void testRepair() {
+        CellGrid grid = new CellGrid(40, 30);
+        Random random = new Random(11);
+        for (int i = 0; i < 60; i++) {
+            grid.set(random.nextInt(40), random.nextInt(30), CellState.WATER);
+        }
+        DistanceField field = new DistanceField(grid, CellState.WATER);
+        field.distance(0, 0);
+
+        CellState[] states = {CellState.GRASS, CellState.WATER, CellState.MOUNTAIN, CellState.FOOD};
+        for (int batch = 0; batch < 40; batch++) {
+            int changes = 1 + random.nextInt(batch % 4 == 0 ? 100 : 5);
+            for (int i = 0; i < changes; i++) {
+                grid.set(random.nextInt(40), random.nextInt(30), states[random.nextInt(states.length)]);
+            }
+            assertSameDistances(grid, field);
+        }
+    }
+
+    @DisplayName("GIVEN a food field capped at 6 moves,"
+            + "WHEN food is added to and eaten from the world in batches,"
+            + "THEN after each batch the repaired field should match a field built from scratch"
+            + "AND no square should be further than 6 moves")
+    @Test
+    void testFoodField() {
+        WorldModel world = new WorldModel(40, 40, 0.0, 0.0, 0.1, 25, 1.2);
+        CellGrid grid = world.getGrid();
+        Random random = new Random(19);
+        for (int i = 0; i < 80; i++) {
+            world.setCell(random.nextInt(40), random.nextInt(40), CellState.MOUNTAIN);
+        }
+        DistanceField field = new DistanceField(grid, CellState.FOOD, 6);
+        field.distance(0, 0);
+
+        for (int batch = 0; batch < 30; batch++) {
+            for (int i = 0; i < 1 + random.nextInt(10); i++) {
+                Point p = new Point(random.nextInt(40), random.nextInt(40));
+                if (world.getFoodAt(p.x, p.y) != null) {
+                    world.removeFood(p);
+                    field.changed(p.x, p.y);
+                } else if (grid.isTraversable(p.x, p.y)) {
+                    world.addFood(new Food(p, 10, 0));
+                    field.changed(p.x, p.y);
+                }
+            }
+            assertSameDistances(grid, field, new DistanceField(grid, CellState.FOOD, 6));
+            assertSameDistances(grid, world.getFoodField(),
+                    new DistanceField(grid, CellState.FOOD, WorldModel.FOOD_FIELD_DISTANCE));
+            for (int x = 0; x < 40; x++) {
+                for (int y = 0; y < 40; y++) {
+                    int distance = field.distance(x, y);
+                    assertTrue(distance <= 6 || distance == DistanceField.UNREACHABLE);
+                }
+            }
+        }
+    }
+
+    @DisplayName("WHEN a field is capped at a negative distance,"
+            + "THEN constructing it should throw an IllegalArgumentException")
+    @Test
+    void testMaxDistance() {
+        assertThrows(IllegalArgumentException.class, () -> new DistanceField(new CellGrid(8, 8), CellState.FOOD, -1));
+    }
+}
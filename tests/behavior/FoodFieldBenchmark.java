@@ -0,0 +1,132 @@
+package behavior;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import model.CellGrid;
+import model.Food;
+import model.WorldModel;
+
+/**
+ * Benchmark for the food field, not part of the test suite.
+ * For 1k, 10k and 50k hungry critters, each tick some food is eaten and some grows back, and then every
+ * critter heads for food, once by looking for the nearest food and planning an A* path to it, and once
+ * by walking down the world's food field. Prints the average time per tick of each after a few warm-up
+ * ticks; the field's time includes repairing it after the food changed.
+ * Run with: java -cp out:tests behavior.FoodFieldBenchmark [ticks] [seed]
+ */
+public class FoodFieldBenchmark {
+    /**
+     * Cells per critter, the share of cells with food, the share of food that changes each tick, and
+     * how far the critters see
+     */
+    private static final int CELLS_PER_CRITTER = 20;
+    private static final double FOOD_DENSITY = 0.02;
+    private static final double FOOD_CHURN = 0.05;
+    private static final int VISION = 20;
+
+    /**
+     * Ticks run before timing starts, so the JIT has compiled the hot loops
+     */
+    private static final int WARM_UP_TICKS = 5;
+
+    /**
+     * Runs the benchmark for each population size
+     */
+    public static void main(String[] args) {
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+
+        System.out.printf("%-9s %-9s %12s %12s %10s%n", "critters", "world", "A* ms/tick", "field ms/tick",
+                "speedup");
+        for (int critters : new int[] {1_000, 10_000, 50_000}) {
+            int side = (int) Math.sqrt((double) critters * CELLS_PER_CRITTER);
+            double astar = run(side, critters, ticks, seed, false);
+            double field = run(side, critters, ticks, seed, true);
+            System.out.printf("%-9d %-9s %12.1f %12.1f %9.1fx%n", critters, side + "x" + side, astar, field,
+                    astar / field);
+        }
+    }
+
+    /**
+     * helper method, runs "ticks" ticks after the warm-up ticks on a fresh world, and returns the average
+     * milliseconds per tick spent heading for food, with the field if "useField" is set
+     */
+    private static double run(int side, int critters, int ticks, long seed, boolean useField) {
+        Random random = new Random(seed);
+        WorldModel world = new WorldModel(side, side, 0.0, 0.0, 0.1, 25, 1.2);
+        CellGrid grid = world.getGrid();
+        List<Point> foods = new ArrayList<>();
+        for (int i = 0; i < side * side * FOOD_DENSITY; i++) {
+            addFood(world, foods, random);
+        }
+
+        long time = 0;
+        long found = 0;
+        for (int tick = 0; tick < WARM_UP_TICKS + ticks; tick++) {
+            for (int i = 0; i < foods.size() * FOOD_CHURN; i++) {
+                world.removeFood(foods.remove(random.nextInt(foods.size())));
+                addFood(world, foods, random);
+            }
+            Point[] positions = new Point[critters];
+            for (int i = 0; i < critters; i++) {
+                positions[i] = randomOpenSquare(grid, random);
+            }
+
+            long begin = System.nanoTime();
+            for (Point position : positions) {
+                found += useField ? walkDown(world, position) : search(world, position);
+            }
+            if (tick >= WARM_UP_TICKS) {
+                time += System.nanoTime() - begin;
+            }
+        }
+        if (found < 0) {
+            System.out.println(found);
+        }
+        return time / 1e6 / ticks;
+    }
+
+    /**
+     * helper method, heads for food the way CritterAI did before the food field, and returns the length
+     * of the path
+     */
+    private static int search(WorldModel world, Point position) {
+        Point target = world.nearestFood(position, VISION);
+        return world.getPathfinder().findPath(position, target == null ? position : target).size();
+    }
+
+    /**
+     * helper method, heads for food down the food field, and returns the length of the path
+     */
+    private static int walkDown(WorldModel world, Point position) {
+        DistanceField field = world.getFoodField();
+        if (field.distance(position.x, position.y) >= VISION) {
+            return 0;
+        }
+        return field.pathFrom(position).size();
+    }
+
+    /**
+     * helper method, grows food on a random open square
+     */
+    private static void addFood(WorldModel world, List<Point> foods, Random random) {
+        Point p = randomOpenSquare(world.getGrid(), random);
+        world.addFood(new Food(p, 10, 0));
+        foods.add(p);
+    }
+
+    /**
+     * helper method, returns a random square a critter could stand on
+     */
+    private static Point randomOpenSquare(CellGrid grid, Random random) {
+        while (true) {
+            int x = random.nextInt(grid.width());
+            int y = random.nextInt(grid.height());
+            if (grid.isTraversable(x, y)) {
+                return new Point(x, y);
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package behavior;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Point;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import model.CellGrid;
+import model.WorldModel;
+import model.WorldModel.CellState;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test suite for IncrementalPlanner
+ */
+class IncrementalPlannerTest {
+
+    /**
+     * helper method, returns the fewest moves from "start" to a traversable square next to "target",
+     * found by a breadth-first search, or -1 if there is no path
+     */
+    private int shortestPath(CellGrid grid, Point start, Point target) {
+        int[] moves = new int[grid.size()];
+        Arrays.fill(moves, -1);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        int startCell = grid.index(start.x, start.y);
+        moves[startCell] = 0;
+        queue.add(startCell);
+        while (!queue.isEmpty()) {
+            int cell = queue.poll();
+            int x = grid.x(cell);
+            int y = grid.y(cell);
+            if (Math.max(Math.abs(x - target.x), Math.abs(y - target.y)) == 1) {
+                return moves[cell];
+            }
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    if (grid.isTraversable(x + dx, y + dy) && moves[grid.index(x + dx, y + dy)] == -1) {
+                        moves[grid.index(x + dx, y + dy)] = moves[cell] + 1;
+                        queue.add(grid.index(x + dx, y + dy));
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * helper method, asserts that "path" starts at "start", steps square by square over traversable
+     * squares to next to "target", and has the fewest moves possible
+     */
+    private void assertShortest(CellGrid grid, List<Point> path, Point start, Point target) {
+        assertEquals(start, path.getFirst());
+        for (int i = 1; i < path.size(); i++) {
+            Point from = path.get(i - 1);
+            Point to = path.get(i);
+            assertEquals(1, Math.max(Math.abs(to.x - from.x), Math.abs(to.y - from.y)));
+            assertTrue(grid.isTraversable(to.x, to.y));
+        }
+        Point last = path.getLast();
+        assertEquals(1, Math.max(Math.abs(last.x - target.x), Math.abs(last.y - target.y)));
+        assertEquals(shortestPath(grid, start, target), path.size() - 1);
+    }
+
+    @DisplayName("GIVEN a critter planning a path 40 squares around a lake,"
+            + "WHEN it walks the path and replans every step while squares on and off the path change,"
+            + "THEN every plan should be a shortest path from where it stands"
+            + "AND following the path should take far fewer expansions than the first plan")
+    @Test
+    void testWalkAndRepair() {
+        WorldModel world = new WorldModel(60, 60, 0.0, 0.0, 0.1, 25, 1.2);
+        CellGrid grid = world.getGrid();
+        for (int x = 15; x < 45; x++) {
+            for (int y = 20; y < 40; y++) {
+                world.setCell(x, y, CellState.WATER);
+            }
+        }
+        Random random = new Random(29);
+        Point start = new Point(5, 30);
+        Point target = new Point(54, 30);
+        IncrementalPlanner planner = new IncrementalPlanner(world, target);
+        List<Point> path = planner.plan(start);
+        assertShortest(grid, path, start, target);
+        long firstPlan = planner.expansions();
+
+        int steps = 0;
+        while (path.size() > 1) {
+            start = path.get(1);
+            steps++;
+            if (steps % 5 == 0 && path.size() > 3) {
+                // something moves onto the path a few squares ahead
+                Point blocked = path.get(3);
+                world.setCell(blocked.x, blocked.y, CellState.MOUNTAIN);
+            }
+            Point far = new Point(random.nextInt(60), random.nextInt(60));
+            if (!far.equals(start)) {
+                world.setCell(far.x, far.y, random.nextBoolean() ? CellState.MOUNTAIN : CellState.GRASS);
+            }
+            path = planner.plan(start);
+            assertShortest(grid, path, start, target);
+        }
+        assertTrue(steps >= 40);
+        assertTrue(planner.expansions() - firstPlan < firstPlan);
+    }
+
+    @DisplayName("GIVEN a planner whose target is walled off,"
+            + "WHEN it plans with a small expansion limit,"
+            + "THEN it should give up")
+    @Test
+    void testGivingUp() {
+        WorldModel world = new WorldModel(60, 60, 0.0, 0.0, 0.1, 25, 1.2);
+        for (int y = 0; y < 60; y++) {
+            world.setCell(30, y, CellState.MOUNTAIN);
+        }
+        assertNull(new IncrementalPlanner(world, new Point(50, 30), 100).plan(new Point(5, 30)));
+    }
+
+    @DisplayName("GIVEN a planner that has planned a path,"
+            + "WHEN many squares change far away from its search,"
+            + "THEN its next plan should expand nothing"
+            + "AND WHEN a square on its path is blocked,"
+            + "THEN its next plan should go around it")
+    @Test
+    void testFarChanges() {
+        WorldModel world = new WorldModel(60, 60, 0.0, 0.0, 0.1, 25, 1.2);
+        CellGrid grid = world.getGrid();
+        IncrementalPlanner planner = new IncrementalPlanner(world, new Point(20, 30));
+        assertEquals(15, planner.plan(new Point(5, 30)).size());
+        long expansions = planner.expansions();
+
+        for (int i = 0; i < 70_000; i++) {
+            world.setCell(50, i % 60, (i / 60) % 2 == 0 ? CellState.WATER : CellState.GRASS);
+        }
+        assertEquals(14, planner.plan(new Point(6, 30)).size());
+        assertEquals(expansions, planner.expansions());
+
+        world.setCell(10, 30, CellState.MOUNTAIN);
+        List<Point> path = planner.plan(new Point(6, 30));
+        assertShortest(grid, path, new Point(6, 30), new Point(20, 30));
+        assertTrue(path.stream().noneMatch(p -> p.equals(new Point(10, 30))));
+    }
+
+    @DisplayName("GIVEN a planner whose target is walled off,"
+            + "WHEN it plans within its expansion limit,"
+            + "THEN it should return an empty path")
+    @Test
+    void testNoPath() {
+        WorldModel world = new WorldModel(20, 20, 0.0, 0.0, 0.1, 25, 1.2);
+        for (int y = 0; y < 20; y++) {
+            world.setCell(10, y, CellState.MOUNTAIN);
+        }
+        assertTrue(new IncrementalPlanner(world, new Point(15, 5)).plan(new Point(2, 5)).isEmpty());
+    }
+}
@@ -0,0 +1,124 @@
+package behavior;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Point;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import model.CellGrid;
+import model.WorldModel;
+import model.WorldModel.CellState;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test suite for JumpPointSearch
+ */
+class JumpPointSearchTest {
+
+    /**
+     * helper method, returns the fewest moves from "start" to a traversable square next to "target",
+     * found by a breadth-first search, or -1 if there is no path
+     */
+    private int shortestPath(CellGrid grid, Point start, Point target) {
+        int[] moves = new int[grid.size()];
+        Arrays.fill(moves, -1);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        int startCell = grid.index(start.x, start.y);
+        moves[startCell] = 0;
+        queue.add(startCell);
+        while (!queue.isEmpty()) {
+            int cell = queue.poll();
+            int x = grid.x(cell);
+            int y = grid.y(cell);
+            if (Math.max(Math.abs(x - target.x), Math.abs(y - target.y)) == 1) {
+                return moves[cell];
+            }
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    if (grid.isTraversable(x + dx, y + dy) && moves[grid.index(x + dx, y + dy)] == -1) {
+                        moves[grid.index(x + dx, y + dy)] = moves[cell] + 1;
+                        queue.add(grid.index(x + dx, y + dy));
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * helper method, asserts that every step of "path" moves to a neighboring traversable square
+     */
+    private void assertWalkable(CellGrid grid, List<Point> path) {
+        for (int i = 1; i < path.size(); i++) {
+            Point from = path.get(i - 1);
+            Point to = path.get(i);
+            assertEquals(1, Math.max(Math.abs(to.x - from.x), Math.abs(to.y - from.y)));
+            assertTrue(grid.isTraversable(to.x, to.y));
+        }
+    }
+
+    @DisplayName("GIVEN worlds with scattered lakes,"
+            + "WHEN paths are planned with jump point search,"
+            + "THEN each path should step square by square from the start to next to the target"
+            + "AND have the fewest moves possible"
+            + "AND never be longer than the A* path")
+    @Test
+    void testShortestPaths() {
+        Random random = new Random(5);
+        for (int round = 0; round < 100; round++) {
+            WorldModel world = new WorldModel(40, 40, 0.0, 0.0, 0.1, 25, 1.2);
+            CellGrid grid = world.getGrid();
+            double water = random.nextDouble() * 0.4;
+            for (int x = 0; x < 40; x++) {
+                for (int y = 0; y < 40; y++) {
+                    if (random.nextDouble() < water) {
+                        world.setCell(x, y, CellState.WATER);
+                    }
+                }
+            }
+            Point start = new Point(random.nextInt(40), random.nextInt(40));
+            Point target = new Point(random.nextInt(40), random.nextInt(40));
+            world.setCell(start.x, start.y, CellState.GRASS);
+
+            List<Point> path = new JumpPointSearch(grid, target).findPath(start);
+            List<Point> astar = new Pathfinder(world).findPath(start, target);
+            int moves = shortestPath(grid, start, target);
+            if (moves == -1) {
+                assertTrue(path.isEmpty());
+                assertTrue(astar.isEmpty());
+                continue;
+            }
+            assertEquals(start, path.getFirst());
+            assertEquals(1, Math.max(Math.abs(path.getLast().x - target.x), Math.abs(path.getLast().y - target.y)));
+            assertWalkable(grid, path);
+            assertEquals(moves, path.size() - 1);
+            assertTrue(path.size() <= astar.size());
+        }
+    }
+
+    @DisplayName("GIVEN open grassland,"
+            + "WHEN a pathfinder plans a long path with each strategy,"
+            + "THEN both paths should have the same number of moves"
+            + "AND jump point search should expand far fewer cells")
+    @Test
+    void testFewerExpansions() {
+        Point start = new Point(3, 4);
+        Point target = new Point(90, 60);
+        WorldModel world = new WorldModel(100, 100, 0.0, 0.0, 0.1, 25, 1.2);
+        Pathfinder astar = new Pathfinder(world);
+        List<Point> astarPath = astar.findPath(start, target);
+
+        WorldModel other = new WorldModel(100, 100, 0.0, 0.0, 0.1, 25, 1.2);
+        Pathfinder jumpPoint = new Pathfinder(other);
+        jumpPoint.setStrategy(Pathfinder.Strategy.JUMP_POINT);
+        List<Point> jumpPointPath = jumpPoint.findPath(start, target);
+
+        assertEquals(astarPath.size(), jumpPointPath.size());
+        assertWalkable(other.getGrid(), jumpPointPath);
+        assertTrue(jumpPoint.expansions() * 10 < astar.expansions());
+    }
+}
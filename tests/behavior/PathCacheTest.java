@@ -0,0 +1,133 @@
+package behavior;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import model.CellGrid;
+import model.WorldModel.CellState;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test suite for PathCache
+ */
+class PathCacheTest {
+
+    /**
+     * helper method, returns the straight path along row "y" from x = 0 to x = "length" - 1
+     */
+    private List<Point> row(int y, int length) {
+        Point[] path = new Point[length];
+        for (int x = 0; x < length; x++) {
+            path[x] = new Point(x, y);
+        }
+        return List.of(path);
+    }
+
+    @DisplayName("GIVEN a cached path,"
+            + "WHEN a cell far from it changes,"
+            + "THEN the path should still be returned"
+            + "AND WHEN a cell in a region it crosses changes,"
+            + "THEN the lookup should miss and count an invalidation")
+    @Test
+    void testRegionInvalidation() {
+        CellGrid grid = new CellGrid(64, 64);
+        PathCache cache = new PathCache(grid, 64);
+        List<Point> path = row(0, 20);
+        cache.put(new Point(0, 0), new Point(20, 0), Pathfinder.Strategy.ASTAR, path);
+
+        grid.set(40, 40, CellState.MOUNTAIN);
+        List<Point> cached = cache.get(new Point(0, 0), new Point(20, 0), Pathfinder.Strategy.ASTAR);
+        assertEquals(path, cached);
+        assertNotSame(path, cached);
+
+        // (20, 0) is the target's region, which the path itself only borders
+        grid.set(23, 5, CellState.WATER);
+        assertNull(cache.get(new Point(0, 0), new Point(20, 0), Pathfinder.Strategy.ASTAR));
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+        assertEquals(1, cache.invalidations());
+    }
+
+    @DisplayName("GIVEN a full cache,"
+            + "WHEN more paths are added,"
+            + "THEN it should stay at its capacity"
+            + "AND evict paths that were not looked up before ones that were")
+    @Test
+    void testClockEviction() {
+        CellGrid grid = new CellGrid(64, 64);
+        // one entry per segment, so every key competes for the same slot in its segment
+        PathCache cache = new PathCache(grid, 16);
+        for (int y = 0; y < 64; y++) {
+            cache.put(new Point(0, y), new Point(5, y), Pathfinder.Strategy.ASTAR, row(y, 5));
+        }
+        assertEquals(16, cache.size());
+        assertEquals(48, cache.evictions());
+
+        cache = new PathCache(grid, 32);
+        Point start = new Point(0, 0);
+        Point target = new Point(5, 0);
+        cache.put(start, target, Pathfinder.Strategy.ASTAR, row(0, 5));
+        for (int y = 1; y < 64; y++) {
+            cache.get(start, target, Pathfinder.Strategy.ASTAR);
+            cache.put(new Point(0, y), new Point(5, y), Pathfinder.Strategy.ASTAR, row(y, 5));
+        }
+        assertEquals(32, cache.size());
+        assertEquals(row(0, 5), cache.get(start, target, Pathfinder.Strategy.ASTAR));
+    }
+
+    @DisplayName("GIVEN a path cached for one strategy,"
+            + "WHEN the same start and target are looked up for another strategy,"
+            + "THEN the lookup should miss")
+    @Test
+    void testStrategies() {
+        PathCache cache = new PathCache(new CellGrid(64, 64), 64);
+        cache.put(new Point(0, 0), new Point(5, 0), Pathfinder.Strategy.ASTAR, row(0, 5));
+        assertNull(cache.get(new Point(0, 0), new Point(5, 0), Pathfinder.Strategy.JUMP_POINT));
+        assertEquals(row(0, 5), cache.get(new Point(0, 0), new Point(5, 0), Pathfinder.Strategy.ASTAR));
+    }
+
+    @DisplayName("GIVEN a cache holding back its puts,"
+            + "WHEN more paths than fit are put in different orders,"
+            + "THEN none should be found before they are applied"
+            + "AND the same paths should survive eviction whatever the order")
+    @Test
+    void testDeferredPuts() {
+        CellGrid grid = new CellGrid(64, 64);
+        List<Integer> rows = new ArrayList<>();
+        for (int y = 0; y < 64; y++) {
+            rows.add(y);
+        }
+        List<Integer> expected = null;
+        for (long seed = 0; seed < 5; seed++) {
+            PathCache cache = new PathCache(grid, 32);
+            Collections.shuffle(rows, new Random(seed));
+            cache.deferPuts();
+            for (int y : rows) {
+                cache.put(new Point(0, y), new Point(5, y), Pathfinder.Strategy.ASTAR, row(y, 5));
+            }
+            assertEquals(0, cache.size());
+            assertNull(cache.get(new Point(0, rows.getFirst()), new Point(5, rows.getFirst()),
+                    Pathfinder.Strategy.ASTAR));
+            cache.applyDeferred();
+
+            List<Integer> cached = new ArrayList<>();
+            for (int y = 0; y < 64; y++) {
+                if (cache.get(new Point(0, y), new Point(5, y), Pathfinder.Strategy.ASTAR) != null) {
+                    cached.add(y);
+                }
+            }
+            assertEquals(32, cached.size());
+            if (expected == null) {
+                expected = cached;
+            }
+            assertEquals(expected, cached);
+        }
+    }
+}
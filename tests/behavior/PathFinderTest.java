@@ -81,7 +81,7 @@ public class PathFinderTest {
         List<Point> path1 = pf.findPath(new Point(0, 0), new Point(5, 5));
         assertEquals(5, path1.size());
 
-        wm.getWorldArray()[1][1] = CellState.MOUNTAIN;
+        wm.setCell(1, 1, CellState.MOUNTAIN);
 
         Critter c1 = cf.generateCritter(new Point(1, 1), wm);
         wm.addCritter(c1);
@@ -0,0 +1,96 @@
+package behavior;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.Random;
+import model.CellGrid;
+import model.WorldModel;
+import model.WorldModel.CellState;
+
+/**
+ * Benchmark for Pathfinder strategies, not part of the test suite.
+ * Plans the same paths with ASTAR and JUMP_POINT on open grassland and on a map full of lakes, and
+ * prints the cells each strategy expanded, the time it took and the total moves of its paths.
+ * Run with: java -cp out:tests behavior.PathfinderBenchmark [size] [queries] [seed]
+ */
+public class PathfinderBenchmark {
+
+    /**
+     * Runs the benchmark on both maps
+     */
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+
+        System.out.printf("%-10s %-10s %12s %10s %10s%n", "map", "strategy", "expansions", "ms", "moves");
+        for (String map : new String[] {"grassland", "lakes"}) {
+            for (Pathfinder.Strategy strategy : new Pathfinder.Strategy[] {
+                    Pathfinder.Strategy.ASTAR, Pathfinder.Strategy.JUMP_POINT}) {
+                // every run gets its own world, so no run finds another's paths in the cache
+                WorldModel world = new WorldModel(size, size, 0.0, 0.0, 0.1, 25, 1.2);
+                if (map.equals("lakes")) {
+                    addLakes(world, new Random(seed));
+                }
+                run(world, map, strategy, queries, new Random(seed + 1));
+            }
+        }
+    }
+
+    /**
+     * helper method, plans "queries" paths between random traversable squares and prints the results
+     */
+    private static void run(WorldModel world, String map, Pathfinder.Strategy strategy, int queries,
+                            Random random) {
+        CellGrid grid = world.getGrid();
+        Pathfinder pathfinder = new Pathfinder(world);
+        pathfinder.setStrategy(strategy);
+        long moves = 0;
+        long time = 0;
+        for (int i = 0; i < queries; i++) {
+            Point start = randomOpenSquare(grid, random);
+            Point target = randomOpenSquare(grid, random);
+            long begin = System.nanoTime();
+            List<Point> path = pathfinder.findPath(start, target);
+            time += System.nanoTime() - begin;
+            moves += Math.max(path.size() - 1, 0);
+        }
+        System.out.printf("%-10s %-10s %12d %10d %10d%n", map, strategy, pathfinder.expansions(),
+                time / 1_000_000, moves);
+    }
+
+    /**
+     * helper method, fills roughly a third of the world with round lakes of random sizes
+     */
+    private static void addLakes(WorldModel world, Random random) {
+        CellGrid grid = world.getGrid();
+        int water = 0;
+        while (water < grid.size() / 3) {
+            int cx = random.nextInt(grid.width());
+            int cy = random.nextInt(grid.height());
+            int radius = 2 + random.nextInt(Math.max(grid.width() / 20, 2));
+            for (int x = cx - radius; x <= cx + radius; x++) {
+                for (int y = cy - radius; y <= cy + radius; y++) {
+                    if (grid.inBounds(x, y) && (x - cx) * (x - cx) + (y - cy) * (y - cy) <= radius * radius
+                            && grid.get(x, y) != CellState.WATER) {
+                        world.setCell(x, y, CellState.WATER);
+                        water++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * helper method, returns a random square a critter could stand on
+     */
+    private static Point randomOpenSquare(CellGrid grid, Random random) {
+        while (true) {
+            int x = random.nextInt(grid.width());
+            int y = random.nextInt(grid.height());
+            if (grid.isTraversable(x, y)) {
+                return new Point(x, y);
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package behavior;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import datastructures.HeapMinQueue;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test suite for SearchContext
+ */
+class SearchContextTest {
+
+    @DisplayName("GIVEN cells pushed with many tied priorities,"
+            + "WHEN they are popped,"
+            + "THEN they should come out in exactly the order a HeapMinQueue gives them")
+    @Test
+    void testMatchesHeapMinQueue() {
+        Random random = new Random(3);
+        SearchContext search = SearchContext.get(1000);
+        HeapMinQueue<Integer> queue = new HeapMinQueue<>();
+        int next = 0;
+        for (int round = 0; round < 200; round++) {
+            int pushes = random.nextInt(4);
+            for (int i = 0; i < pushes; i++) {
+                double priority = random.nextInt(5);
+                search.push(next, priority);
+                queue.addOrUpdate(next, priority);
+                next++;
+            }
+            if (!queue.isEmpty() && random.nextBoolean()) {
+                assertEquals(queue.remove(), search.pop());
+            }
+        }
+        while (!queue.isEmpty()) {
+            assertEquals(queue.remove(), search.pop());
+        }
+        assertTrue(search.isEmpty());
+    }
+
+    @DisplayName("WHEN a new search starts on the same thread,"
+            + "THEN it should reuse the context but forget every cell discovered before")
+    @Test
+    void testGenerations() {
+        SearchContext first = SearchContext.get(100);
+        first.discover(42, 1.5, 7);
+        assertTrue(first.discovered(42));
+        assertEquals(7, first.parent(42));
+        first.push(42, 1.5);
+
+        SearchContext second = SearchContext.get(100);
+        assertSame(first, second);
+        assertFalse(second.discovered(42));
+        assertTrue(second.isEmpty());
+    }
+}
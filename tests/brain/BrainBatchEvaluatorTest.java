@@ -0,0 +1,158 @@
+package brain;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test suite for BrainBatchEvaluator
+ */
+class BrainBatchEvaluatorTest {
+
+    /**
+     * helper method, builds a layered brain with 3 inputs and 5 outputs whose shape is drawn from
+     * "shape" and whose weights are drawn from "weights"
+     */
+    private Brain brain(Random shape, Random weights) {
+        Brain brain = new Brain();
+        List<List<Neuron>> layers = new ArrayList<>();
+        int id = 1;
+        int hidden = shape.nextInt(3);
+        for (int layer = 0; layer <= hidden + 1; layer++) {
+            List<Neuron> neurons = new ArrayList<>();
+            int size = layer == 0 ? 3 : layer > hidden ? 5 : 1 + shape.nextInt(3);
+            for (int i = 0; i < size; i++) {
+                Neuron neuron = new Neuron(id++, layer > hidden ? -1 : layer, brain);
+                brain.addNeuron(neuron);
+                neurons.add(neuron);
+            }
+            layers.add(neurons);
+        }
+        int innovation = 1;
+        for (int layer = 1; layer < layers.size(); layer++) {
+            for (Neuron end : layers.get(layer)) {
+                for (Neuron start : layers.get(layer - 1)) {
+                    if (shape.nextDouble() < 0.7) {
+                        new Synapse(start, end, weights.nextDouble(), true, innovation++);
+                    }
+                }
+            }
+        }
+        return brain;
+    }
+
+    /**
+     * helper method, returns the index of the first largest value
+     */
+    private int strongest(double[] output) {
+        int best = 0;
+        for (int i = 0; i < output.length; i++) {
+            if (output[i] > output[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    @DisplayName("GIVEN a population whose brains have a few different topologies and their own weights,"
+            + "WHEN it is evaluated in one batch,"
+            + "THEN every critter should get the same strongest output as evaluating its brain alone"
+            + "AND the population should be split into one group per topology")
+    @Test
+    void testMatchesSingleEvaluation() {
+        Random random = new Random(17);
+        long[] shapes = {1, 2, 3};
+        int count = 300;
+        CompiledNetwork[] networks = new CompiledNetwork[count];
+        Brain[] brains = new Brain[count];
+        for (int i = 0; i < count; i++) {
+            // every fourth critter shares the previous critter's brain, like a child does
+            brains[i] = i % 4 == 3 ? brains[i - 1] : brain(new Random(shapes[random.nextInt(3)]), random);
+            networks[i] = brains[i].compiled();
+        }
+        double[] inputs = new double[count * 3];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = random.nextDouble();
+        }
+
+        BrainBatchEvaluator evaluator = new BrainBatchEvaluator();
+        int[] strongest = new int[count];
+        for (int round = 0; round < 2; round++) {
+            evaluator.evaluate(networks, inputs, 3, count, strongest);
+            assertEquals(3, evaluator.lastGroupCount());
+            for (int i = 0; i < count; i++) {
+                double[] input = {inputs[i * 3], inputs[i * 3 + 1], inputs[i * 3 + 2]};
+                assertEquals(strongest(brains[i].feedForward(input)), strongest[i]);
+            }
+        }
+    }
+
+    @DisplayName("GIVEN an evaluator that quantizes inputs into buckets,"
+            + "WHEN a population is evaluated twice with inputs in the same buckets,"
+            + "THEN the first pass should evaluate the networks on the bucket centers"
+            + "AND the second pass should take every decision from the caches"
+            + "AND a changed network should start with an empty cache")
+    @Test
+    void testDecisionCache() {
+        Random random = new Random(23);
+        int count = 100;
+        Brain[] brains = new Brain[count];
+        CompiledNetwork[] networks = new CompiledNetwork[count];
+        for (int i = 0; i < count; i++) {
+            brains[i] = i % 2 == 1 ? brains[i - 1] : brain(new Random(random.nextInt(3)), random);
+            networks[i] = brains[i].compiled();
+        }
+        double[] inputs = new double[count * 3];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = random.nextDouble();
+        }
+
+        BrainBatchEvaluator evaluator = new BrainBatchEvaluator();
+        evaluator.setBuckets(8);
+        int[] strongest = new int[count];
+        evaluator.evaluate(networks, inputs, 3, count, strongest);
+        assertEquals(count, evaluator.cacheHits() + evaluator.cacheMisses());
+        for (int i = 0; i < count; i++) {
+            double[] centers = new double[3];
+            for (int j = 0; j < 3; j++) {
+                centers[j] = ((int) (inputs[i * 3 + j] * 8) + 0.5) / 8;
+            }
+            assertEquals(strongest(brains[i].feedForward(centers)), strongest[i]);
+        }
+
+        // nudge every input within its bucket
+        double[] nudged = new double[inputs.length];
+        for (int i = 0; i < inputs.length; i++) {
+            nudged[i] = ((int) (inputs[i] * 8) + 0.5) / 8;
+        }
+        int[] again = new int[count];
+        evaluator.resetCacheMetrics();
+        evaluator.evaluate(networks, nudged, 3, count, again);
+        assertEquals(count, evaluator.cacheHits());
+        assertEquals(0, evaluator.cacheMisses());
+        assertArrayEquals(strongest, again);
+        assertEquals(1.0, evaluator.cacheHitRate());
+
+        brains[0].getNeuronsByLayer(-1).getFirst().incomingSynapses().getFirst().setWeight(0.5);
+        networks[0] = brains[0].compiled();
+        evaluator.resetCacheMetrics();
+        evaluator.evaluate(networks, nudged, 3, count, again);
+        assertEquals(1, evaluator.cacheMisses());
+    }
+
+    @DisplayName("WHEN a network takes a different number of inputs than given,"
+            + "THEN evaluating it should throw an IllegalArgumentException")
+    @Test
+    void testWrongInputCount() {
+        CompiledNetwork network = brain(new Random(1), new Random(2)).compiled();
+        BrainBatchEvaluator evaluator = new BrainBatchEvaluator();
+        assertThrows(IllegalArgumentException.class,
+                () -> evaluator.evaluate(new CompiledNetwork[] {network}, new double[2], 2, 1, new int[1]));
+    }
+}
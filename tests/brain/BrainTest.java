@@ -205,7 +205,7 @@ class BrainTest {
         assertEquals(2, brain.getNeuronsByLayer(3).size());
         assertEquals(2, brain.getNeuronsByLayer(4).size());
 
-        brain.critter().getWorld().innovationManager().get(12).setEnabled(false);
+        brain.getSynapses().get(12).setEnabled(false);
 
         assertEquals(1, brain.getNeuron(7).incomingSynapses().size());
         assertEquals(1, brain.getNeuron(8).outgoingSynapses().size());
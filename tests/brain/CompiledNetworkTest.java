@@ -0,0 +1,123 @@
+package brain;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test suite for CompiledNetwork
+ */
+class CompiledNetworkTest {
+
+    /**
+     * helper method, builds a random layered brain with 3 inputs, 5 outputs and "hidden" hidden layers
+     */
+    private Brain randomBrain(Random random, int hidden) {
+        Brain brain = new Brain();
+        List<List<Neuron>> layers = new ArrayList<>();
+        int id = 1;
+        for (int layer = 0; layer <= hidden; layer++) {
+            List<Neuron> neurons = new ArrayList<>();
+            int size = layer == 0 ? 3 : 1 + random.nextInt(4);
+            for (int i = 0; i < size; i++) {
+                Neuron neuron = new Neuron(id++, layer, brain);
+                brain.addNeuron(neuron);
+                neurons.add(neuron);
+            }
+            layers.add(neurons);
+        }
+        List<Neuron> outputs = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Neuron neuron = new Neuron(id++, -1, brain);
+            brain.addNeuron(neuron);
+            outputs.add(neuron);
+        }
+        layers.add(outputs);
+
+        int innovation = 1;
+        for (int layer = 1; layer < layers.size(); layer++) {
+            for (Neuron end : layers.get(layer)) {
+                for (Neuron start : layers.get(layer - 1)) {
+                    if (random.nextDouble() < 0.8) {
+                        new Synapse(start, end, random.nextDouble(), random.nextDouble() < 0.9, innovation++);
+                    }
+                }
+            }
+        }
+        return brain;
+    }
+
+    /**
+     * helper method, evaluates "brain" the old way, by processing its neuron objects layer by layer
+     */
+    private double[] processNeurons(Brain brain, double[] input) {
+        List<Neuron> inputs = brain.getNeuronsByLayer(0);
+        for (int i = 0; i < inputs.size(); i++) {
+            inputs.get(i).setActivation(input[i]);
+        }
+        for (int layer = 1; layer <= brain.hiddenLayers(); layer++) {
+            for (Neuron neuron : brain.getNeuronsByLayer(layer)) {
+                neuron.processNeuron();
+            }
+        }
+        List<Neuron> outputs = brain.getNeuronsByLayer(-1);
+        double[] output = new double[outputs.size()];
+        for (int i = 0; i < outputs.size(); i++) {
+            output[i] = outputs.get(i).processNeuron();
+        }
+        return output;
+    }
+
+    @DisplayName("GIVEN random layered brains,"
+            + "WHEN they are evaluated with feedForward,"
+            + "THEN the outputs should exactly equal processing the neurons one by one")
+    @Test
+    void testMatchesNeuronProcessing() {
+        Random random = new Random(11);
+        for (int trial = 0; trial < 50; trial++) {
+            Brain brain = randomBrain(random, random.nextInt(4));
+            for (int i = 0; i < 5; i++) {
+                double[] input = {random.nextDouble(), random.nextDouble(), random.nextDouble()};
+                assertArrayEquals(processNeurons(brain, input), brain.feedForward(input));
+            }
+        }
+    }
+
+    @DisplayName("GIVEN a brain that has been compiled,"
+            + "WHEN it is not changed,"
+            + "THEN the same compiled network should be reused"
+            + "AND WHEN a weight, a synapse's enabled flag or a neuron is changed,"
+            + "THEN it should be recompiled and still match processing the neurons")
+    @Test
+    void testRecompileAfterMutation() {
+        Random random = new Random(5);
+        Brain brain = randomBrain(random, 2);
+        double[] input = {0.2, 0.7, 0.4};
+        CompiledNetwork first = brain.compiled();
+        assertSame(first, brain.compiled());
+
+        Synapse synapse = brain.getNeuronsByLayer(-1).getFirst().incomingSynapses().getFirst();
+        synapse.setWeight(0.05);
+        assertNotSame(first, brain.compiled());
+        assertArrayEquals(processNeurons(brain, input), brain.feedForward(input));
+
+        CompiledNetwork second = brain.compiled();
+        synapse.setEnabled(false);
+        assertNotSame(second, brain.compiled());
+        assertArrayEquals(processNeurons(brain, input), brain.feedForward(input));
+
+        Neuron hidden = new Neuron(100, 3, brain);
+        brain.addNeuron(hidden);
+        new Synapse(brain.getNeuronsByLayer(2).getFirst(), hidden, 0.5, true, 500);
+        new Synapse(hidden, brain.getNeuronsByLayer(-1).getLast(), 0.9, true, 501);
+        assertEquals(3, brain.hiddenLayers());
+        assertArrayEquals(processNeurons(brain, input), brain.feedForward(input));
+    }
+}
@@ -0,0 +1,36 @@
+package brain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test suite for DecisionCache
+ */
+class DecisionCacheTest {
+
+    @DisplayName("WHEN many random keys are cached and overwritten,"
+            + "THEN every key should return its latest value"
+            + "AND keys never cached should return -1")
+    @Test
+    void testPutAndGet() {
+        Random random = new Random(9);
+        DecisionCache cache = new DecisionCache();
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 20000; i++) {
+            int key = random.nextInt(32 * 32 * 32);
+            int value = random.nextInt(5);
+            cache.put(key, value);
+            expected.put(key, value);
+        }
+        assertEquals(expected.size(), cache.size());
+        for (int key = 0; key < 32 * 32 * 32; key++) {
+            assertEquals(expected.getOrDefault(key, -1), cache.get(key));
+        }
+        assertEquals(-1, cache.get(Integer.MAX_VALUE - 1));
+    }
+}
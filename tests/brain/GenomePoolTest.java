@@ -0,0 +1,73 @@
+package brain;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import controller.CritterFactory;
+import java.awt.Point;
+import model.Critter;
+import model.WorldModel;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test suite for GenomePool
+ */
+class GenomePoolTest {
+
+    @DisplayName("GIVEN several critters generated in the same world,"
+            + "WHEN their genomes are captured,"
+            + "THEN they should all share one structure and topology but keep their own weights"
+            + "AND their brains should hold no neuron objects until asked for them")
+    @Test
+    void testSeededCrittersShareStructure() {
+        WorldModel world = new WorldModel(20, 20, 0.0, 0.0, 0.1, 25, 1.2);
+        CritterFactory factory = new CritterFactory();
+        Critter first = factory.generateCritter(new Point(1, 1), world);
+        Critter second = factory.generateCritter(new Point(2, 2), world);
+        Genome a = first.brain().genome();
+        Genome b = second.brain().genome();
+
+        assertTrue(a.sharesStructure(b));
+        assertSame(a.compiled().offsets(), b.compiled().offsets());
+        assertSame(a.compiled().sources(), b.compiled().sources());
+        assertEquals(a.compiled().topologyHash(), b.compiled().topologyHash());
+        assertFalse(a.compiled().weights() == b.compiled().weights());
+        assertEquals(1, world.genomePool().size());
+
+        // rebuilding the objects gives the same genome back
+        double[] input = {0.2, 0.5, 0.7};
+        double[] expected = first.brain().feedForward(input);
+        assertEquals(15, first.brain().getSynapses().size());
+        assertArrayEquals(expected, first.brain().feedForward(input));
+        assertSame(a, first.brain().genome());
+    }
+
+    @DisplayName("GIVEN a pool,"
+            + "WHEN structures with the same genes are interned,"
+            + "THEN the first one should be returned for all of them"
+            + "AND a structure with different genes should get its own entry")
+    @Test
+    void testIntern() {
+        GenomePool pool = new GenomePool();
+        Genome.Structure first = structure(true);
+        Genome.Structure same = structure(true);
+        Genome.Structure disabled = structure(false);
+
+        assertSame(first, pool.intern(first));
+        assertSame(first, pool.intern(same));
+        assertSame(disabled, pool.intern(disabled));
+        assertEquals(2, pool.size());
+    }
+
+    /**
+     * helper method, builds a structure with one input, one output and one synapse gene between them
+     */
+    private Genome.Structure structure(boolean enabled) {
+        return new Genome.Structure(new int[] {1, 2}, new int[] {0, -1}, 0, new int[] {1}, new int[] {1},
+                new int[] {2}, new boolean[] {enabled});
+    }
+}
@@ -0,0 +1,102 @@
+package brain;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import controller.CritterFactory;
+import java.awt.Point;
+import model.Critter;
+import model.WorldModel;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test suite for Genome
+ */
+class GenomeTest {
+
+    @DisplayName("GIVEN a brain made from another brain's genome,"
+            + "WHEN nothing has changed,"
+            + "THEN both brains should share the genome and its compiled network"
+            + "AND WHEN the child's neurons are looked at,"
+            + "THEN they should be rebuilt from the genome and give the same outputs")
+    @Test
+    void testShareAndMaterialize() {
+        WorldModel world = new WorldModel(20, 20, 0.0, 0.0, 0.1, 25, 1.2);
+        Critter parent = new CritterFactory().generateCritter(new Point(1, 1), world);
+        Genome genome = parent.brain().genome();
+        Brain child = new Brain(parent, genome);
+
+        assertSame(genome, child.genome());
+        assertSame(parent.brain().compiled(), child.compiled());
+        assertEquals(parent.brain().neuronCount(), child.neuronCount());
+
+        double[] input = {0.4, 0.9, 0.1};
+        double[] expected = parent.brain().feedForward(input);
+        assertEquals(15, child.getSynapses().size());
+        assertSame(genome, child.genome());
+        assertArrayEquals(expected, child.feedForward(input));
+
+        // changing the child's objects must not touch the parent
+        child.getSynapses().values().iterator().next().setWeight(0.123456);
+        assertNotSame(genome, child.genome());
+        assertSame(genome, parent.brain().genome());
+        assertArrayEquals(expected, parent.brain().feedForward(input));
+    }
+
+    @DisplayName("GIVEN a child brain sharing its parent's genome,"
+            + "WHEN it mutates only weights,"
+            + "THEN its new genome should share the parent's structure and topology"
+            + "AND the parent's weights should be left intact")
+    @Test
+    void testWeightMutationCopiesOnlyWeights() {
+        WorldModel world = new WorldModel(20, 20, 0.0, 0.0, 0.5, 25, 1.2);
+        Critter parent = new CritterFactory().generateCritter(new Point(1, 1), world);
+        Genome genome = parent.brain().genome();
+        double[] parentWeights = genome.copyWeights();
+
+        int weightOnly = 0;
+        for (int i = 0; i < 50; i++) {
+            Brain child = new Brain(parent, genome);
+            child.mutate();
+            Genome mutated = child.genome();
+            if (mutated.sharesStructure(genome)) {
+                weightOnly++;
+                assertNotSame(genome, mutated);
+                assertNotEquals(0, mutated.synapseCount());
+                assertTrue(genome.compiled().sameTopology(mutated.compiled()));
+            }
+        }
+        assertTrue(weightOnly > 0);
+        assertArrayEquals(parentWeights, genome.copyWeights());
+        assertArrayEquals(parentWeights, parent.brain().genome().copyWeights());
+    }
+
+    @DisplayName("WHEN a critter reproduces,"
+            + "THEN the child should get its own brain rather than the parent's")
+    @Test
+    void testChildOwnsBrain() {
+        WorldModel world = new WorldModel(20, 20, 0.0, 0.0, 0.1, 25, 1.2);
+        for (int x = 4; x <= 6; x++) {
+            for (int y = 4; y <= 6; y++) {
+                world.setCell(x, y, WorldModel.CellState.GRASS);
+            }
+        }
+        Critter parent = new CritterFactory().generateCritter(new Point(5, 5), world);
+        world.addCritter(parent);
+        parent.reproduce();
+
+        assertEquals(2, world.getCritters().size());
+        for (Critter critter : world.getCritters().values()) {
+            if (critter != parent) {
+                assertNotSame(parent.brain(), critter.brain());
+                assertSame(critter, critter.brain().critter());
+                assertTrue(parent.brain().neuronCount() <= critter.brain().neuronCount());
+            }
+        }
+    }
+}
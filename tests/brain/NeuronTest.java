@@ -0,0 +1,102 @@
+package brain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test suite for Neuron
+ */
+class NeuronTest {
+
+    @DisplayName("GIVEN a neuron with several incoming synapses,"
+            + "WHEN synapses are disabled and enabled again,"
+            + "THEN its incoming synapse list should hold exactly the enabled ones, each disabled one swapped "
+            + "out for the last and each enabled one appended"
+            + "AND the start neurons' outgoing lists should follow along")
+    @Test
+    void testEnabledSynapses() {
+        Brain brain = new Brain();
+        Neuron end = new Neuron(10, -1, brain);
+        brain.addNeuron(end);
+        Synapse[] synapses = new Synapse[4];
+        for (int i = 0; i < synapses.length; i++) {
+            Neuron start = new Neuron(i + 1, 0, brain);
+            brain.addNeuron(start);
+            synapses[i] = new Synapse(start, end, 0.5, i != 2, i + 1);
+        }
+
+        List<Synapse> incoming = end.incomingSynapses();
+        assertEquals(List.of(synapses[0], synapses[1], synapses[3]), incoming);
+        assertEquals(0, synapses[2].start().outgoingSynapses().size());
+
+        synapses[1].setEnabled(false);
+        assertEquals(List.of(synapses[0], synapses[3]), incoming);
+        assertEquals(0, synapses[1].start().outgoingSynapses().size());
+
+        synapses[2].setEnabled(true);
+        synapses[1].setEnabled(true);
+        assertEquals(List.of(synapses[0], synapses[3], synapses[2], synapses[1]), end.incomingSynapses());
+        assertSame(synapses[2], synapses[2].start().outgoingSynapses().getFirst());
+        assertThrows(UnsupportedOperationException.class, () -> incoming.add(synapses[0]));
+    }
+
+    @DisplayName("GIVEN a neuron with many incoming synapses,"
+            + "WHEN synapses in the middle of its list are disabled and enabled in a random order,"
+            + "THEN its incoming list should always hold exactly the enabled synapses, each once,"
+            + "AND its activation should be the sum over them")
+    @Test
+    void testToggleInTheMiddle() {
+        Brain brain = new Brain();
+        Neuron end = new Neuron(100, -1, brain);
+        brain.addNeuron(end);
+        Synapse[] synapses = new Synapse[20];
+        for (int i = 0; i < synapses.length; i++) {
+            Neuron start = new Neuron(i + 1, 0, brain);
+            brain.addNeuron(start);
+            start.setActivation(1.0);
+            synapses[i] = new Synapse(start, end, i + 1, true, i + 1);
+        }
+
+        Random random = new Random(7);
+        for (int step = 0; step < 500; step++) {
+            Synapse synapse = synapses[1 + random.nextInt(synapses.length - 2)];
+            synapse.setEnabled(!synapse.isEnabled());
+
+            Set<Synapse> expected = new HashSet<>();
+            double sum = 0;
+            for (Synapse s : synapses) {
+                if (s.isEnabled()) {
+                    expected.add(s);
+                    sum += s.weight();
+                }
+            }
+            List<Synapse> incoming = end.incomingSynapses();
+            assertEquals(expected.size(), incoming.size());
+            assertEquals(expected, new HashSet<>(incoming));
+            assertEquals(synapse.isEnabled() ? 1 : 0, synapse.start().outgoingSynapses().size());
+            assertEquals(sum, end.processNeuron());
+        }
+    }
+
+    @DisplayName("WHEN neurons are created without an id,"
+            + "THEN each should get one more than the largest id added to the brain so far,"
+            + "even after the neuron with the largest id is removed")
+    @Test
+    void testIdCounter() {
+        Brain brain = new Brain();
+        brain.addNeuron(new Neuron(7, 1, brain));
+        Neuron next = new Neuron(1, brain);
+        assertEquals(8, next.getId());
+        brain.addNeuron(next);
+        brain.removeNeuron(8);
+        assertEquals(9, new Neuron(1, brain).getId());
+    }
+}
@@ -0,0 +1,117 @@
+package brain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import controller.CritterFactory;
+import java.awt.Point;
+import java.util.List;
+import model.Critter;
+import model.WorldModel;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test suite for SpeciesRegistry
+ */
+class SpeciesRegistryTest {
+
+    /**
+     * helper method, builds the genome of a brain with 2 inputs and 1 output joined by synapses with the
+     * given innovation numbers and weights. Inputs get ids 1 and 2, the output 3, and each extra
+     * innovation gets a hidden neuron of its own
+     */
+    private Genome genome(int[] innovations, double[] weights) {
+        Brain brain = new Brain();
+        Neuron[] inputs = {new Neuron(1, 0, brain), new Neuron(2, 0, brain)};
+        Neuron output = new Neuron(3, -1, brain);
+        brain.addNeuron(inputs[0]);
+        brain.addNeuron(inputs[1]);
+        brain.addNeuron(output);
+        for (int i = 0; i < innovations.length; i++) {
+            new Synapse(inputs[i % 2], output, weights[i], true, innovations[i]);
+        }
+        return brain.genome();
+    }
+
+    @DisplayName("GIVEN two genomes with matching, disjoint and excess genes,"
+            + "WHEN their compatibility distance is computed,"
+            + "THEN it should count each kind of gene and average the matching weight differences"
+            + "AND it should be symmetric")
+    @Test
+    void testCompatibility() {
+        // genes are added out of innovation order, the distance must not depend on it
+        Genome a = genome(new int[] {4, 1, 2}, new double[] {0.5, 1.0, 0.0});
+        Genome b = genome(new int[] {3, 1, 2, 6, 5}, new double[] {0.0, 0.5, 0.5, 0.0, 0.0});
+
+        // matching 1 and 2 (weight differences 0.5 each), disjoint 3 and 4, excess 5 and 6
+        assertEquals(2 * 1.0 + 2 * 2.0 + 0.5 * 3.0, a.compatibility(b, 1.0, 2.0, 3.0), 1e-9);
+        assertEquals(a.compatibility(b, 1.0, 2.0, 3.0), b.compatibility(a, 1.0, 2.0, 3.0), 1e-9);
+        assertEquals(0.0, a.compatibility(a, 1.0, 1.0, 1.0));
+    }
+
+    @DisplayName("GIVEN a registry,"
+            + "WHEN genomes are assigned,"
+            + "THEN close genomes should share a species and distant ones start a new one"
+            + "AND a species should be dropped once its last member leaves")
+    @Test
+    void testAssign() {
+        SpeciesRegistry registry = new SpeciesRegistry(1.0, 1.0, 0.4, 3.0);
+        Genome first = genome(new int[] {1, 2}, new double[] {0.1, 0.2});
+        Genome close = genome(new int[] {1, 2, 3}, new double[] {0.3, 0.2, 0.9});
+        Genome far = genome(new int[] {4, 5, 6, 7}, new double[] {0.1, 0.2, 0.3, 0.4});
+
+        Species species = registry.assign(first, null);
+        assertSame(species, registry.assign(close, null));
+        assertSame(first, species.representative());
+        assertEquals(2, species.size());
+
+        Species other = registry.assign(far, species);
+        assertNotSame(species, other);
+        assertEquals(List.of(species, other), registry.species());
+
+        registry.remove(other);
+        assertEquals(List.of(species), registry.species());
+        assertEquals(other.id() + 1, registry.assign(far, null).id());
+    }
+
+    @DisplayName("WHEN critters are born and die,"
+            + "THEN the species sizes should add up to the number of critters in the world")
+    @Test
+    void testWorldSpecies() {
+        WorldModel world = new WorldModel(20, 20, 0.0, 0.0, 0.5, 25, 1.2);
+        for (int x = 0; x < 20; x++) {
+            for (int y = 0; y < 20; y++) {
+                world.setCell(x, y, WorldModel.CellState.GRASS);
+            }
+        }
+        Critter parent = new CritterFactory().generateCritter(new Point(10, 10), world);
+        world.addCritter(parent);
+        for (int i = 0; i < 5; i++) {
+            parent.reproduce();
+        }
+        assertEquals(6, count(world));
+
+        for (Critter critter : List.copyOf(world.getCritters().values())) {
+            if (critter != parent) {
+                assertTrue(critter.species() != null);
+                critter.die();
+            }
+        }
+        assertEquals(1, count(world));
+        assertEquals(parent.species(), world.speciesRegistry().species().getFirst());
+    }
+
+    /**
+     * helper method, adds up the sizes of the world's species
+     */
+    private int count(WorldModel world) {
+        int total = 0;
+        for (Species species : world.speciesRegistry().species()) {
+            total += species.size();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,103 @@
+package controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import brain.Brain;
+import brain.Neuron;
+import brain.Synapse;
+import java.awt.Point;
+import model.Critter;
+import model.WorldFactory;
+import model.WorldModel;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test suite for InnovationManager
+ */
+class InnovationManagerTest {
+
+    @DisplayName("WHEN many genes are registered,"
+            + "THEN each pair of neuron ids should get its own innovation number, counting up from 1"
+            + "AND registering a pair again should return its existing number"
+            + "AND each number should map back to its pair")
+    @Test
+    void testRegister() {
+        InnovationManager manager = new InnovationManager();
+        assertEquals(0, manager.innovation(1, 2));
+
+        int expected = 0;
+        for (int start = 1; start <= 60; start++) {
+            for (int end = 1; end <= 60; end++) {
+                assertEquals(++expected, manager.register(start, end));
+            }
+        }
+        assertEquals(3600, manager.innovation());
+
+        for (int start = 1; start <= 60; start++) {
+            for (int end = 1; end <= 60; end++) {
+                int innovation = (start - 1) * 60 + end;
+                assertEquals(innovation, manager.register(start, end));
+                assertEquals(innovation, manager.innovation(start, end));
+                assertEquals(start, manager.startId(innovation));
+                assertEquals(end, manager.endId(innovation));
+            }
+        }
+        assertEquals(3600, manager.innovation());
+        assertEquals(0, manager.innovation(61, 1));
+        assertThrows(IllegalArgumentException.class, () -> manager.startId(3601));
+        assertThrows(IllegalArgumentException.class, () -> manager.endId(0));
+    }
+
+    @DisplayName("WHEN synapses between the same neuron ids are built in different brains,"
+            + "THEN they should share one innovation number"
+            + "AND a synapse between new ids should get the next number")
+    @Test
+    void testSynapsesShareGenes() {
+        WorldModel world = new WorldFactory().generateTestWorld();
+        InnovationManager manager = world.innovationManager();
+        CritterFactory factory = new CritterFactory();
+        Critter first = factory.generateCritter(new Point(0, 0), world);
+        int genes = manager.innovation();
+        Critter second = factory.generateCritter(new Point(1, 1), world);
+        assertEquals(genes, manager.innovation());
+        assertEquals(first.brain().getSynapses().keySet(), second.brain().getSynapses().keySet());
+
+        Brain brain = new Brain(first);
+        Neuron hidden1 = new Neuron(200, 1, brain);
+        Neuron hidden2 = new Neuron(201, 2, brain);
+        brain.addNeuron(hidden1);
+        brain.addNeuron(hidden2);
+        Synapse synapse = new Synapse(hidden1, hidden2, 0.3, true);
+        assertEquals(genes + 1, synapse.innovation());
+        assertEquals(200, manager.startId(synapse.innovation()));
+        assertEquals(201, manager.endId(synapse.innovation()));
+    }
+
+    @DisplayName("GIVEN a disabled synapse between two neurons,"
+            + "WHEN a synapse between the same neurons is added through mutation,"
+            + "THEN the existing synapse should be enabled again instead of a new one being created")
+    @Test
+    void testMutationReusesGene() {
+        WorldModel world = new WorldFactory().generateTestWorld();
+        InnovationManager manager = world.innovationManager();
+        Critter critter = new CritterFactory().generateCritter(new Point(0, 0), world);
+
+        Brain brain = new Brain(critter);
+        Neuron hidden1 = new Neuron(200, 1, brain);
+        Neuron hidden2 = new Neuron(201, 2, brain);
+        brain.addNeuron(hidden1);
+        brain.addNeuron(hidden2);
+        Synapse synapse = new Synapse(hidden1, hidden2, 0.3, false);
+        int innovations = manager.innovation();
+        assertNotEquals(0, manager.innovation(200, 201));
+
+        brain.addSynapseMutation(200, 201);
+        assertTrue(synapse.isEnabled());
+        assertEquals(innovations, manager.innovation());
+        assertEquals(1, brain.getSynapses().size());
+    }
+}
@@ -0,0 +1,62 @@
+package controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Point;
+import model.WorldModel;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test suite for SimulationRunner
+ */
+class SimulationRunnerTest {
+
+    private WorldModel world() {
+        WorldModel world = new WorldModel(30, 30, 0.0, 0.0, 0.1, 25, 1.2);
+        CritterFactory factory = new CritterFactory();
+        for (int i = 0; i < 30; i += 6) {
+            world.addCritter(factory.generateCritter(new Point(i, i), world));
+        }
+        return world;
+    }
+
+    @DisplayName("WHEN the runner is asked to run N ticks,"
+            + "THEN it should run exactly N ticks on its own thread and then stop"
+            + "AND the world's thread pool should be shut down afterwards")
+    @Test
+    void testRunTicks() throws InterruptedException {
+        WorldModel world = world();
+        SimulationRunner runner = new SimulationRunner(world);
+        runner.runTicks(5);
+        runner.awaitStop();
+
+        assertFalse(runner.isRunning());
+        assertEquals(5, world.getTickCount());
+        assertFalse(world.getThreadPool().isRunning());
+        assertEquals(0, (int) runner.read(world::rebuildWorldArray));
+    }
+
+    @DisplayName("GIVEN a runner running at a fixed rate,"
+            + "WHEN it is stopped,"
+            + "THEN it should stop after its current tick and not tick again")
+    @Test
+    void testFixedRateStop() throws InterruptedException {
+        WorldModel world = world();
+        SimulationRunner runner = new SimulationRunner(world);
+        runner.runAtFixedRate(50);
+        assertEquals(SimulationRunner.Mode.FIXED_RATE, runner.getMode());
+        assertTrue(runner.isRunning());
+        Thread.sleep(100);
+
+        runner.stop();
+        runner.awaitStop();
+        int ticks = world.getTickCount();
+        assertTrue(ticks >= 1);
+        Thread.sleep(50);
+        assertEquals(ticks, world.getTickCount());
+        assertFalse(world.getThreadPool().isRunning());
+    }
+}
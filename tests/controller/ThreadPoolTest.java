@@ -0,0 +1,57 @@
+package controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test suite for ThreadPool
+ */
+class ThreadPoolTest {
+
+    @DisplayName("GIVEN a thread pool that has not been started,"
+            + "WHEN a task is submitted,"
+            + "THEN it should run on the calling thread before submitTask returns")
+    @Test
+    void testRunsInlineWhenStopped() {
+        ThreadPool pool = new ThreadPool(2);
+        AtomicReference<Thread> ranOn = new AtomicReference<>();
+        pool.submitTask(() -> ranOn.set(Thread.currentThread()));
+        assertFalse(pool.isRunning());
+        assertEquals(Thread.currentThread(), ranOn.get());
+    }
+
+    @DisplayName("GIVEN a started thread pool,"
+            + "WHEN tasks are submitted,"
+            + "THEN they should run on worker threads"
+            + "AND the pool should run tasks inline again after it is shut down")
+    @Test
+    void testLifecycle() throws InterruptedException {
+        ThreadPool pool = new ThreadPool(2);
+        pool.start();
+        assertTrue(pool.isRunning());
+
+        CountDownLatch done = new CountDownLatch(100);
+        AtomicReference<Thread> ranOn = new AtomicReference<>();
+        for (int i = 0; i < 100; i++) {
+            pool.submitTask(() -> {
+                ranOn.set(Thread.currentThread());
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertNotEquals(Thread.currentThread(), ranOn.get());
+
+        pool.shutdown();
+        assertFalse(pool.isRunning());
+        pool.submitTask(() -> ranOn.set(Thread.currentThread()));
+        assertEquals(Thread.currentThread(), ranOn.get());
+    }
+}
@@ -0,0 +1,194 @@
+package controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import behavior.CritterAI;
+import behavior.IncrementalPlanner;
+import behavior.InteractionManager;
+import brain.Neuron;
+import brain.Synapse;
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import model.Critter;
+import model.Critter.Orientation;
+import model.Critter.Sex;
+import model.Water;
+import model.WorldModel;
+import model.WorldModel.CellState;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test suite for TickEngine
+ */
+class TickEngineTest {
+
+    @DisplayName("WHEN critters are created in a world,"
+            + "THEN they should get increasing ids starting from 1")
+    @Test
+    void testCritterIds() {
+        WorldModel world = new WorldModel(20, 20, 0.0, 0.0, 0.1, 25, 1.2);
+        CritterFactory factory = new CritterFactory();
+        Critter first = factory.generateCritter(new Point(1, 1), world);
+        Critter second = factory.generateCritter(new Point(2, 2), world);
+        assertEquals(1, first.getId());
+        assertEquals(2, second.getId());
+    }
+
+    @DisplayName("GIVEN a world whose thread pool is running,"
+            + "WHEN the tick engine runs a tick,"
+            + "THEN every critter alive at the start should have been decided, committed and aged"
+            + "AND the world's tick count should increase by 1")
+    @Test
+    void testParallelTick() {
+        WorldModel world = new WorldModel(40, 40, 0.0, 0.0, 0.1, 25, 1.2);
+        CritterFactory factory = new CritterFactory();
+        List<Critter> critters = new ArrayList<>();
+        for (int i = 0; i < 40; i += 4) {
+            for (int j = 0; j < 40; j += 4) {
+                Critter critter = factory.generateCritter(new Point(i, j), world);
+                critter.setHunger(critter.getMaxHunger());
+                critter.setThirst(critter.getMaxThirst());
+                critter.setHealth(critter.getMaxHealth());
+                critter.setAge(0);
+                world.addCritter(critter);
+                critters.add(critter);
+            }
+        }
+
+        TickEngine engine = new TickEngine(world);
+        world.getThreadPool().start();
+        try {
+            engine.tick();
+        } finally {
+            world.getThreadPool().shutdown();
+        }
+
+        assertEquals(1, world.getTickCount());
+        for (Critter critter : critters) {
+            assertNotNull(critter.getPriority());
+            assertNotNull(critter.getCurrentPath());
+            assertTrue(critter.getAge() == 1 || critter.getMaxAge() <= 1);
+        }
+        assertEquals(0, world.rebuildWorldArray());
+    }
+
+    @DisplayName("GIVEN two worlds generated from the same seed,"
+            + "WHEN one runs its ticks on the calling thread and the other on a pool of worker threads,"
+            + "THEN both should end with the same critters, born with the same mutations, in the same states"
+            + "AND the same food")
+    @Test
+    void testReproducible() {
+        WorldModel serial = seededWorld();
+        WorldModel parallel = seededWorld();
+        int initialCritters = serial.getCritters().size();
+        assertEquals(snapshot(serial), snapshot(parallel));
+
+        // a pool that is not started runs everything on the calling thread
+        TickEngine serialEngine = new TickEngine(serial);
+        TickEngine parallelEngine = new TickEngine(parallel);
+        parallel.getThreadPool().start();
+        try {
+            for (int tick = 0; tick < 60; tick++) {
+                serialEngine.tick();
+                parallelEngine.tick();
+            }
+        } finally {
+            parallel.getThreadPool().shutdown();
+        }
+
+        assertTrue(serial.getCritters().values().stream().anyMatch(c -> c.getId() > initialCritters),
+                "no critter was born");
+        assertEquals(snapshot(serial), snapshot(parallel));
+    }
+
+    /**
+     * helper method, generates a small world with terrain, food and critters from a fixed seed
+     */
+    private static WorldModel seededWorld() {
+        return new WorldModel(60, 45, 0.02, 0.03, 0.001, 0.0004, 0.5, 1.1, 1.1, 0.1, 40, 1.3, 0.4, 2.0,
+                0.03, 42L);
+    }
+
+    /**
+     * helper method, describes every critter, by id, and every food square of "world"
+     */
+    private static List<String> snapshot(WorldModel world) {
+        List<Critter> critters = new ArrayList<>(world.getCritters().values());
+        critters.sort(Comparator.comparingInt(Critter::getId));
+        List<String> snapshot = new ArrayList<>();
+        for (Critter critter : critters) {
+            snapshot.add(critter.getId() + " " + critter.getPosition() + " " + critter.getOrientation() + " "
+                    + critter.getPriority() + " " + critter.getHealth() + " " + critter.getHunger() + " "
+                    + critter.getThirst() + " " + critter.getAge() + " " + critter.getSize() + " "
+                    + critter.getVision() + " " + critter.getMutationRate() + " "
+                    + Arrays.toString(critter.brain().genome().copyWeights()));
+        }
+        List<String> foods = new ArrayList<>();
+        for (Point food : world.getFoods().keySet()) {
+            foods.add(food.x + "," + food.y);
+        }
+        Collections.sort(foods);
+        snapshot.addAll(foods);
+        return snapshot;
+    }
+
+    @DisplayName("GIVEN a thirsty critter that sees a lake behind a ridge, more moves away than it can see,"
+            + "WHEN the tick engine runs it until it reaches the lake,"
+            + "AND a rock lands on its path on the way,"
+            + "THEN it should walk there with one incremental planner"
+            + "AND walking and going around the rock should take fewer expansions than its first plan")
+    @Test
+    void testPlannerInTick() {
+        WorldModel world = new WorldModel(60, 60, 0.0, 0.0, 0.1, 25, 1.2);
+        for (int y = 0; y < 56; y++) {
+            world.setCell(25, y, CellState.MOUNTAIN);
+        }
+        for (int x = 40; x < 50; x++) {
+            for (int y = 20; y < 40; y++) {
+                world.addWater(new Water(new Point(x, y), 0));
+            }
+        }
+        Critter critter = new Critter(new CritterAI(), new InteractionManager(), new Point(10, 30), Orientation.N,
+                2000, 100, 100, 100, Sex.MALE, 50, 50, 50, 0, 0, 35, world);
+        critter.setHunger(critter.getMaxHunger());
+        world.addCritter(critter);
+        // only the water output gets any input, so the critter always wants water
+        for (Neuron output : critter.brain().getNeuronsByLayer(-1)) {
+            for (Synapse synapse : output.incomingSynapses()) {
+                synapse.setWeight(output == critter.brain().getNeuronsByLayer(-1).get(1) ? 1 : 0);
+            }
+        }
+        // more moves around the ridge than the critter can see, so the water field does not lead it
+        assertTrue(world.getWaterField().distance(10, 30) >= critter.getVision());
+
+        TickEngine engine = new TickEngine(world);
+        IncrementalPlanner planner = null;
+        long firstPlan = 0;
+        for (int tick = 0; tick < 80 && world.getWaterField().distance(critter.getPosition().x,
+                critter.getPosition().y) > 1; tick++) {
+            engine.tick();
+            if (planner == null && critter.getPlanner() != null) {
+                planner = critter.getPlanner();
+                firstPlan = planner.expansions();
+            }
+            if (tick == 20) {
+                Point rock = critter.getCurrentPath().get(3);
+                world.setCell(rock.x, rock.y, CellState.MOUNTAIN);
+            }
+        }
+
+        assertEquals(1, world.getWaterField().distance(critter.getPosition().x, critter.getPosition().y));
+        assertNotNull(planner);
+        assertSame(planner, critter.getPlanner());
+        assertTrue(planner.expansions() > firstPlan);
+        assertTrue(planner.expansions() - firstPlan < firstPlan);
+    }
+}
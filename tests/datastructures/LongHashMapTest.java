@@ -0,0 +1,81 @@
+package datastructures;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class LongHashMapTest {
+
+    @DisplayName("WHEN entries are put, replaced, and removed,"
+            + "THEN get and size should reflect the changes"
+            + "AND removing a missing key should return null")
+    @Test
+    void testPutGetRemove() {
+        LongHashMap<String> map = new LongHashMap<>();
+        assertNull(map.put(1L << 32 | 5, "a"));
+        assertNull(map.put(-3L, "b"));
+        assertEquals("a", map.put(1L << 32 | 5, "c"));
+        assertEquals(2, map.size());
+        assertEquals("c", map.get(1L << 32 | 5));
+        assertEquals("b", map.get(-3L));
+        assertNull(map.get(5L));
+
+        assertEquals("b", map.remove(-3L));
+        assertNull(map.remove(-3L));
+        assertFalse(map.containsKey(-3L));
+        assertEquals(1, map.size());
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1L << 32 | 5));
+    }
+
+    @DisplayName("GIVEN many random puts and removes, including colliding keys,"
+            + "WHEN the map is compared to a HashMap after each operation,"
+            + "THEN both should contain the same entries")
+    @Test
+    void testMatchesHashMap() {
+        Random random = new Random(11);
+        LongHashMap<Integer> map = new LongHashMap<>();
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 20000; i++) {
+            long key = ((long) random.nextInt(64) << 32) | random.nextInt(64);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, i), map.put(key, i));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+
+        List<Long> visited = new ArrayList<>();
+        map.forEach((key, value) -> {
+            assertEquals(expected.get(key), value);
+            visited.add(key);
+        });
+        assertEquals(expected.size(), visited.size());
+
+        int count = 0;
+        Iterator<LongHashMap.Entry<Integer>> entries = map.entryIterator();
+        while (entries.hasNext()) {
+            LongHashMap.Entry<Integer> entry = entries.next();
+            assertEquals(expected.get(entry.key()), entry.value());
+            count++;
+        }
+        assertEquals(expected.size(), count);
+        assertEquals(expected.size(), map.values().size());
+    }
+}
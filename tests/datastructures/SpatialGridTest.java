@@ -0,0 +1,91 @@
+package datastructures;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class SpatialGridTest {
+
+    @DisplayName("WHEN points are added and removed,"
+            + "THEN the size of the index should be updated accordingly"
+            + "AND removing a point that is not in the index should do nothing")
+    @Test
+    void testAddRemove() {
+        SpatialGrid grid = new SpatialGrid(100, 100, 8);
+        grid.add(new Point(1, 1));
+        grid.add(new Point(50, 50));
+        assertEquals(2, grid.size());
+
+        assertTrue(grid.remove(new Point(1, 1)));
+        assertFalse(grid.remove(new Point(1, 1)));
+        assertEquals(1, grid.size());
+    }
+
+    @DisplayName("WHEN the nearest point within a radius is queried,"
+            + "THEN the closest point strictly inside the radius should be returned"
+            + "AND null should be returned if there is no point inside the radius")
+    @Test
+    void testNearest() {
+        SpatialGrid grid = new SpatialGrid(100, 100, 8);
+        grid.add(new Point(0, 0));
+        grid.add(new Point(5, 5));
+        grid.add(new Point(11, 11));
+
+        assertEquals(new Point(11, 11), grid.nearest(new Point(10, 10), 30));
+        assertEquals(new Point(5, 5), grid.nearest(new Point(4, 4), 30));
+        assertNull(grid.nearest(new Point(90, 90), 10));
+        // the radius is exclusive
+        assertNull(grid.nearest(new Point(11, 14), 3));
+        assertEquals(new Point(11, 11), grid.nearest(new Point(11, 14), 3.01));
+    }
+
+    @DisplayName("GIVEN many random points,"
+            + "WHEN the nearest and k nearest points are queried,"
+            + "THEN the results should match a brute-force search")
+    @Test
+    void testMatchesBruteForce() {
+        Random random = new Random(7);
+        SpatialGrid grid = new SpatialGrid(200, 150, 8);
+        List<Point> points = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            Point p = new Point(random.nextInt(200), random.nextInt(150));
+            points.add(p);
+            grid.add(p);
+        }
+
+        for (int i = 0; i < 200; i++) {
+            Point center = new Point(random.nextInt(200), random.nextInt(150));
+            double radius = random.nextInt(40);
+            Comparator<Point> byDistance = Comparator.comparingDouble(p -> p.distanceSq(center));
+            List<Point> expected = new ArrayList<>();
+            for (Point p : points) {
+                if (p.distance(center) < radius) {
+                    expected.add(p);
+                }
+            }
+            expected.sort(byDistance);
+
+            Point nearest = grid.nearest(center, radius);
+            if (expected.isEmpty()) {
+                assertNull(nearest);
+            } else {
+                assertEquals(expected.getFirst().distanceSq(center), nearest.distanceSq(center));
+            }
+
+            List<Point> kNearest = grid.kNearest(center, 5, radius);
+            assertEquals(Math.min(5, expected.size()), kNearest.size());
+            for (int j = 0; j < kNearest.size(); j++) {
+                assertEquals(expected.get(j).distanceSq(center), kNearest.get(j).distanceSq(center));
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import model.WorldModel.CellState;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test suite for CellGrid
+ */
+class CellGridTest {
+
+    @DisplayName("GIVEN a grid whose cells are changed at random,"
+            + "WHEN every grass cell is sampled with probability 1,"
+            + "THEN exactly the grass cells should be returned, each once"
+            + "AND sampling with probability 1/2 should only ever pick grass cells, and over many rounds all of them")
+    @Test
+    void testGrassIndex() {
+        Random random = new Random(3);
+        CellGrid grid = new CellGrid(40, 30);
+        CellState[] states = CellState.values();
+        for (int i = 0; i < 5000; i++) {
+            grid.set(random.nextInt(40), random.nextInt(30), states[random.nextInt(states.length)]);
+        }
+
+        Set<Integer> expected = new HashSet<>();
+        for (int i = 0; i < grid.size(); i++) {
+            if (grid.get(i) == CellState.GRASS) {
+                expected.add(i);
+            }
+        }
+        assertEquals(expected.size(), grid.grassCount());
+
+        List<Integer> sampled = new ArrayList<>();
+        grid.sampleGrass(1.0, random, sampled::add);
+        assertEquals(expected.size(), sampled.size());
+        assertEquals(expected, new HashSet<>(sampled));
+
+        Set<Integer> seen = new HashSet<>();
+        for (int i = 0; i < 50; i++) {
+            List<Integer> half = new ArrayList<>();
+            grid.sampleGrass(0.5, random, half::add);
+            assertEquals(half.size(), new HashSet<>(half).size());
+            assertTrue(expected.containsAll(half));
+            seen.addAll(half);
+        }
+        assertEquals(expected, seen);
+    }
+
+    @DisplayName("GIVEN a grid that is mostly grass,"
+            + "WHEN grass cells are sampled with probability p many times,"
+            + "THEN the average number of picks should be close to p times the number of grass cells"
+            + "AND every pick should be a distinct grass cell")
+    @Test
+    void testSampleGrass() {
+        Random random = new Random(5);
+        CellGrid grid = new CellGrid(100, 100);
+        for (int x = 0; x < 100; x++) {
+            grid.set(x, 50, CellState.MOUNTAIN);
+        }
+        int grass = grid.grassCount();
+        assertEquals(9900, grass);
+
+        double p = 0.01;
+        int rounds = 500;
+        long total = 0;
+        for (int i = 0; i < rounds; i++) {
+            List<Integer> sampled = new ArrayList<>();
+            grid.sampleGrass(p, random, sampled::add);
+            assertEquals(sampled.size(), new HashSet<>(sampled).size());
+            for (int cell : sampled) {
+                assertEquals(CellState.GRASS, grid.get(cell));
+            }
+            total += sampled.size();
+        }
+        double mean = (double) total / rounds;
+        // the standard error of the mean is about sqrt(99 / 500) ~ 0.45
+        assertTrue(Math.abs(mean - grass * p) < 2.5, "mean was " + mean);
+
+        List<Integer> none = new ArrayList<>();
+        grid.sampleGrass(0, random, none::add);
+        grid.sampleGrass(Double.NaN, random, none::add);
+        assertTrue(none.isEmpty());
+    }
+}
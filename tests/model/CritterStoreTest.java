@@ -0,0 +1,105 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import behavior.InteractionManager;
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import model.Critter.Orientation;
+import model.Critter.Priority;
+import model.Critter.Sex;
+import model.CritterStore.Trait;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test suite for CritterStore
+ */
+class CritterStoreTest {
+
+    private Critter critter(WorldModel world, Point p, int maxAge, double maxHealth, double size) {
+        Critter critter = new Critter(null, new InteractionManager(), p, Orientation.N, maxAge,
+                100, 100, maxHealth, Sex.MALE, size, 50, 50, 50, 0, 5, world);
+        world.addCritter(critter);
+        return critter;
+    }
+
+    @DisplayName("GIVEN critters living in a world,"
+            + "WHEN the store metabolizes one tick,"
+            + "THEN hunger and thirst should be spent, resting critters should spend half the hunger,"
+            + "AND well-fed critters should heal and every critter should age by one")
+    @Test
+    void testMetabolize() {
+        WorldModel world = new WorldModel(10, 10, 0.0, 0.0, 1, 1, 1);
+        Critter active = critter(world, new Point(1, 1), 100, 60, 10);
+        Critter resting = critter(world, new Point(3, 3), 100, 60, 10);
+        resting.setPriority(Priority.REST);
+        Critter fed = critter(world, new Point(5, 5), 100, 60, 10);
+        fed.setHunger(95);
+        fed.setHealth(50);
+
+        world.getCritterStore().metabolize(0.4, 0.8);
+
+        double expenditure = 0.4 * Math.sqrt(Math.log(10 + 2));
+        assertEquals(50 - expenditure, active.getHunger(), 1e-9);
+        assertEquals(50 - expenditure * 0.5, resting.getHunger(), 1e-9);
+        assertEquals(49.2, active.getThirst(), 1e-9);
+        assertEquals(60, active.getHealth());
+        assertEquals(50.6, fed.getHealth(), 1e-9);
+        assertEquals(1, active.getAge());
+        assertEquals(1, fed.getAge());
+    }
+
+    @DisplayName("GIVEN a starving critter, a critter at its max age, and a healthy critter,"
+            + "WHEN the store collects dead critters,"
+            + "THEN the starving critter should lose 25 health"
+            + "AND only critters out of health or at their max age should be collected")
+    @Test
+    void testCollectDead() {
+        WorldModel world = new WorldModel(10, 10, 0.0, 0.0, 1, 1, 1);
+        Critter starving = critter(world, new Point(1, 1), 100, 20, 10);
+        starving.setHunger(0);
+        Critter old = critter(world, new Point(3, 3), 5, 60, 10);
+        old.setAge(5);
+        Critter healthy = critter(world, new Point(5, 5), 100, 60, 10);
+        healthy.setHunger(0);
+        healthy.setHealth(60);
+
+        List<Critter> dead = new ArrayList<>();
+        world.getCritterStore().collectDead(dead);
+
+        assertEquals(List.of(starving, old), dead);
+        assertEquals(-5, starving.getHealth());
+        assertEquals(35, healthy.getHealth());
+    }
+
+    @DisplayName("WHEN a critter dies,"
+            + "THEN it should leave the world's store but keep its state"
+            + "AND statistics should only include the critters still in the store")
+    @Test
+    void testDieFreesSlot() {
+        WorldModel world = new WorldModel(10, 10, 0.0, 0.0, 1, 1, 1);
+        Critter first = critter(world, new Point(1, 1), 100, 60, 10);
+        critter(world, new Point(3, 3), 100, 40, 20);
+        first.setHealth(12);
+        assertEquals(2, world.getCritterStore().size());
+
+        first.die();
+        assertEquals(1, world.getCritterStore().size());
+        assertEquals(12, first.getHealth());
+        assertEquals(10, first.getSize());
+
+        List<Double> sizes = new ArrayList<>();
+        world.getCritterStore().collect(Trait.SIZE, sizes);
+        assertEquals(List.of(20.0), sizes);
+
+        // the freed slot is reused
+        critter(world, new Point(5, 5), 100, 60, 30);
+        sizes.clear();
+        world.getCritterStore().collect(Trait.SIZE, sizes);
+        assertEquals(2, sizes.size());
+        assertTrue(sizes.contains(30.0));
+    }
+}
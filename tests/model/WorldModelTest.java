@@ -109,4 +109,49 @@ public class WorldModelTest {
         assertEquals(numFoods - 1, world.getFoods().size());
         assertNull(world.getFood(new Point(5, 5)));
     }
+
+    @DisplayName("WHEN critters and food are added, moved, and removed,"
+            + "THEN only their cells should be updated in the world array"
+            + "AND a full rebuild should find nothing to repair")
+    @Test
+    void testIncrementalWorldArray() {
+        WorldModel world = new WorldModel(10, 10, 0.0, 0.0, 1, 1, 1);
+        world.setCell(0, 0, WorldModel.CellState.MOUNTAIN);
+
+        Food food = new Food(new Point(3, 3), 40, 0);
+        world.addFood(food);
+        assertEquals(WorldModel.CellState.FOOD, world.getCell(3, 3));
+
+        CritterFactory critterFactory = new CritterFactory();
+        Critter critter = critterFactory.generateCritter(new Point(5, 5), world);
+        world.addCritter(critter);
+        assertEquals(WorldModel.CellState.PEACEFUL_CRITTER, world.getCell(5, 5));
+
+        world.removeCritter(critter.getPosition());
+        critter.setPosition(new Point(5, 6));
+        world.addCritter(critter);
+        assertEquals(WorldModel.CellState.GRASS, world.getCell(5, 5));
+        assertEquals(WorldModel.CellState.PEACEFUL_CRITTER, world.getCell(5, 6));
+
+        world.removeFood(food.getPosition());
+        assertEquals(WorldModel.CellState.GRASS, world.getCell(3, 3));
+        assertEquals(WorldModel.CellState.MOUNTAIN, world.getCell(0, 0));
+
+        assertEquals(0, world.rebuildWorldArray());
+    }
+
+    @DisplayName("WHEN the world array is changed without going through the world model,"
+            + "THEN rebuildWorldArray should repair the inconsistent cells and report how many it fixed")
+    @Test
+    void testRebuildWorldArray() {
+        WorldModel world = new WorldModel(10, 10, 0.0, 0.0, 1, 1, 1);
+        world.addFood(new Food(new Point(2, 2), 40, 0));
+
+        world.setCell(2, 2, WorldModel.CellState.GRASS);
+        world.setCell(4, 4, WorldModel.CellState.FOOD);
+
+        assertEquals(2, world.rebuildWorldArray());
+        assertEquals(WorldModel.CellState.FOOD, world.getCell(2, 2));
+        assertEquals(WorldModel.CellState.GRASS, world.getCell(4, 4));
+    }
 }